@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# 在本机启动注册了模拟识别器的后端，再运行压力测试客户端，请求经过完整的HTTP、服务和SQLite链路
+# 用法: scripts/load-test.sh [客户端参数，如--rates=5,10,20,40 --step-duration=30]
+# 后端和模拟识别器的配置通过环境变量SERVER_ARGS传入，如:
+#   SERVER_ARGS="--form.scanner.synthetic-ocr.cpu-cost=50ms --form.scanner.bulkhead.recognizers.synthetic.max-concurrent=16"
+set -euo pipefail
+
+PORT=${PORT:-18090}
+BACKEND_DIR=$(cd "$(dirname "$0")/.." && pwd)
+LOAD_DIR=${LOAD_DIR:-$BACKEND_DIR/load-test}
+
+mkdir -p "$LOAD_DIR"
+cd "$BACKEND_DIR"
+mvn -B -q test-compile dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile="$LOAD_DIR/classpath.txt"
+CLASSPATH="target/test-classes:target/classes:$(cat "$LOAD_DIR/classpath.txt")"
+
+# 模拟识别器只在测试类路径上，因此直接从编译输出启动后端
+# shellcheck disable=SC2086
+java --add-opens=java.base/java.nio=ALL-UNNAMED -cp "$CLASSPATH" com.example.formscanner.FormScannerApplication \
+    --server.port="$PORT" \
+    --form.scanner.db-path="$LOAD_DIR/form-scanner.db" \
+    --form.scanner.upload-dir="$LOAD_DIR/uploads" \
+    --form.scanner.synthetic-ocr.enabled=true \
+    ${SERVER_ARGS:-} \
+    > "$LOAD_DIR/server.log" 2>&1 &
+SERVER_PID=$!
+trap 'kill "$SERVER_PID" 2>/dev/null || true' EXIT INT TERM
+
+for _ in $(seq 1 60); do
+    if curl -sf "http://localhost:$PORT/api/actuator/health" > /dev/null; then
+        break
+    fi
+    sleep 1
+done
+if ! curl -sf "http://localhost:$PORT/api/actuator/health" > /dev/null; then
+    echo "后端启动失败，日志: $LOAD_DIR/server.log" >&2
+    exit 1
+fi
+echo "后端已启动（端口 $PORT），日志: $LOAD_DIR/server.log"
+
+java -cp "$CLASSPATH" com.example.formscanner.bench.LoadTestDriver --base-url="http://localhost:$PORT/api" "$@"
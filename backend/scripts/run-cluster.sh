@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# 在本机启动多个共享任务模式的后端实例，共用同一个数据库和上传目录，用于验证多节点任务分摊
+# 用法: scripts/run-cluster.sh [实例数，默认3] [起始端口，默认8081]
+set -euo pipefail
+
+NODES=${1:-3}
+BASE_PORT=${2:-8081}
+BACKEND_DIR=$(cd "$(dirname "$0")/.." && pwd)
+CLUSTER_DIR=${CLUSTER_DIR:-$BACKEND_DIR/cluster}
+
+mkdir -p "$CLUSTER_DIR/uploads" "$CLUSTER_DIR/logs"
+cd "$BACKEND_DIR"
+mvn -B -q package -DskipTests
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+
+PIDS=()
+trap 'kill "${PIDS[@]}" 2>/dev/null || true' EXIT INT TERM
+
+for ((i = 0; i < NODES; i++)); do
+    PORT=$((BASE_PORT + i))
+    java -jar "$JAR" \
+        --server.port="$PORT" \
+        --form.scanner.db-path="$CLUSTER_DIR/form-scanner.db" \
+        --form.scanner.upload-dir="$CLUSTER_DIR/uploads" \
+        --form.scanner.jobs.mode=shared \
+        --form.scanner.jobs.node-id="node-$PORT" \
+        > "$CLUSTER_DIR/logs/node-$PORT.log" 2>&1 &
+    PIDS+=($!)
+    echo "节点 node-$PORT 已启动，日志: $CLUSTER_DIR/logs/node-$PORT.log"
+done
+
+echo "按 Ctrl+C 停止所有节点"
+wait
@@ -1,6 +1,7 @@
 package com.example.formscanner.auth;
 
 import com.alibaba.fastjson2.JSONObject;
+import com.example.formscanner.service.ocr.OcrMetrics;
 import jakarta.annotation.Resource;
 import okhttp3.FormBody;
 import okhttp3.OkHttpClient;
@@ -9,13 +10,33 @@ import okhttp3.Response;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Component
 public class BaiduOcrAuth {
     @Resource
     private OkHttpClient okHttpClient;
 
-    public String accessToken;
+    @Resource
+    private OcrMetrics ocrMetrics;
+
+    public volatile String accessToken;
+
+    /**
+     * Access Token的过期时间（System.nanoTime）
+     */
+    private volatile long expiresAtNanos;
+
+    /**
+     * 获取Token时使用ReentrantLock而非synchronized，避免在网络请求期间钉住虚拟线程的载体线程
+     */
+    private final ReentrantLock tokenLock = new ReentrantLock();
+
+    /**
+     * 提前刷新Token的时间余量（秒）
+     */
+    private static final long REFRESH_MARGIN_SECONDS = 300L;
 
     public static final String API_KEY = "1ILlL6o1MxiqYDf6NxzdLP1l";
 
@@ -28,10 +49,27 @@ public class BaiduOcrAuth {
      * @throws IOException IO异常
      */
     public String getAccessToken() throws IOException {
-        if (accessToken != null && !accessToken.isEmpty()) {
+        if (isTokenValid()) {
             return accessToken;
         }
 
+        // 只允许一个线程刷新Token，其余线程等待后复用刷新结果
+        tokenLock.lock();
+        try {
+            if (isTokenValid()) {
+                return accessToken;
+            }
+            return fetchAccessToken();
+        } finally {
+            tokenLock.unlock();
+        }
+    }
+
+    private boolean isTokenValid() {
+        return accessToken != null && !accessToken.isEmpty() && System.nanoTime() < expiresAtNanos;
+    }
+
+    private String fetchAccessToken() throws IOException {
         FormBody body = new FormBody.Builder()
                 .add("grant_type", "client_credentials")
                 .add("client_id", API_KEY)
@@ -43,9 +81,18 @@ public class BaiduOcrAuth {
                 .post(body)
                 .addHeader("Content-Type", "application/x-www-form-urlencoded")
                 .build();
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
         try (Response response = okHttpClient.newCall(request).execute()){
-            accessToken = JSONObject.parse(response.body().string()).getString("access_token");
+            status = String.valueOf(response.code());
+            JSONObject json = JSONObject.parse(response.body().string());
+            // 百度返回的有效期单位为秒，默认30天
+            long expiresIn = json.getLongValue("expires_in", TimeUnit.DAYS.toSeconds(30));
+            expiresAtNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(0L, expiresIn - REFRESH_MARGIN_SECONDS));
+            accessToken = json.getString("access_token");
             return accessToken;
+        } finally {
+            ocrMetrics.recordBaiduHttp("token", status, System.nanoTime() - start);
         }
     }
 }
@@ -0,0 +1,328 @@
+package com.example.formscanner.config;
+
+import com.example.formscanner.util.FormValueParser;
+import com.example.formscanner.util.SearchBigrams;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 数据库配置
+ * 写连接池只有一个连接，所有写操作串行执行，避免多个连接争抢写锁出现SQLITE_BUSY；
+ * 只读事务通过延迟连接代理路由到独立的只读连接池，WAL模式下读操作不会被写操作阻塞。
+ * schema.sql中的CREATE TABLE IF NOT EXISTS不会为已有的表添加新列，
+ * 执行初始化脚本前先检查已有表的列，为旧版本创建的表补齐新增的列；
+ * 全文索引表、统计表和变更日志表新建时，由已有的表单数据重建索引、统计和变更日志；
+ * 写连接上注册bigrams()函数，供维护二元分词索引的触发器使用；
+ * 新增方量和强度等级解析列时，为已有的表单数据补充解析结果
+ */
+@Slf4j
+@Configuration
+public class DatabaseConfig {
+    /**
+     * 在已有表上补齐的列，新增列只能追加在末尾
+     */
+    private static final List<ColumnUpgrade> COLUMN_UPGRADES = List.of(
+            new ColumnUpgrade("ocr_job", "priority", "INTEGER NOT NULL DEFAULT 0"),
+            new ColumnUpgrade("form_data", "volume", "REAL"),
+            new ColumnUpgrade("form_data", "strengthGrade", "TEXT"),
+            new ColumnUpgrade("form_data", "version", "INTEGER NOT NULL DEFAULT 0"),
+            new ColumnUpgrade("form_data", "image_hash", "TEXT"),
+            new ColumnUpgrade("ocr_job", "image_hash", "TEXT"),
+            new ColumnUpgrade("form_change", "changed_at", "INTEGER"),
+            new ColumnUpgrade("ocr_job", "stage_nanos", "TEXT")
+    );
+
+    /**
+     * 由form_data全量重新计算统计表
+     */
+    private static final List<String> REBUILD_STATS = List.of(
+            "DELETE FROM form_stats",
+            "INSERT INTO form_stats (dimension, group_key, form_count, volume_count, total_volume) "
+                    + "SELECT 'project', COALESCE(projectName, ''), COUNT(*), COUNT(volume), TOTAL(volume) "
+                    + "FROM form_data GROUP BY 2",
+            "INSERT INTO form_stats (dimension, group_key, form_count, volume_count, total_volume) "
+                    + "SELECT 'unit', COALESCE(constructionUnit, ''), COUNT(*), COUNT(volume), TOTAL(volume) "
+                    + "FROM form_data GROUP BY 2",
+            "INSERT INTO form_stats (dimension, group_key, form_count, volume_count, total_volume) "
+                    + "SELECT 'day', COALESCE(substr(created_at, 1, 10), ''), COUNT(*), COUNT(volume), TOTAL(volume) "
+                    + "FROM form_data GROUP BY 2"
+    );
+
+    /**
+     * 写连接池，只有一个连接，创建连接时注册维护二元分词索引的bigrams()函数
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource writeDataSource(DataSourceProperties dataSourceProperties, SqliteProperties sqliteProperties) {
+        SQLiteDataSource sqliteDataSource = new SQLiteDataSource(sqliteConfig(sqliteProperties)) {
+            @Override
+            public SQLiteConnection getConnection(String username, String password) throws SQLException {
+                SQLiteConnection connection = super.getConnection(username, password);
+                SearchBigrams.register(connection);
+                return connection;
+            }
+        };
+        sqliteDataSource.setUrl(dataSourceProperties.determineUrl());
+
+        HikariConfig config = new HikariConfig();
+        config.setDataSource(sqliteDataSource);
+        config.setPoolName("sqlite-writer");
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(1);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * 只读连接池，连接开启query_only，误用于写操作时直接报错
+     */
+    @Bean(destroyMethod = "close")
+    public HikariDataSource readDataSource(DataSourceProperties dataSourceProperties, SqliteProperties sqliteProperties) {
+        HikariConfig config = baseConfig(dataSourceProperties, sqliteProperties);
+        config.setPoolName("sqlite-reader");
+        config.setMaximumPoolSize(sqliteProperties.getReadPoolSize());
+        config.setConnectionInitSql("PRAGMA query_only = 1");
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * 应用使用的数据源：只读事务使用只读连接池，其余使用写连接。
+     * 连接在第一次执行SQL时才获取，此时已经知道事务是否只读
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource writeDataSource, HikariDataSource readDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writeDataSource);
+        dataSource.setReadOnlyDataSource(readDataSource);
+        return dataSource;
+    }
+
+    @Bean
+    public SqlDataSourceScriptDatabaseInitializer dataSourceScriptDatabaseInitializer(
+            DataSource dataSource, SqlInitializationProperties properties) {
+        return new SqlDataSourceScriptDatabaseInitializer(dataSource, properties) {
+            @Override
+            public boolean initializeDatabase() {
+                Set<String> addedColumns = addMissingColumns(dataSource);
+                boolean valuesParsed = addedColumns.contains("form_data.volume");
+                if (valuesParsed) {
+                    parseFormValues(dataSource);
+                }
+                if (addedColumns.contains("form_change.changed_at")) {
+                    stampChangeLog(dataSource);
+                }
+                boolean ftsExisted = tableExists(dataSource, "form_data_fts");
+                boolean bigramExisted = tableExists(dataSource, "form_data_bigram");
+                boolean statsExisted = tableExists(dataSource, "form_stats");
+                boolean changesExisted = tableExists(dataSource, "form_change");
+                boolean initialized = super.initializeDatabase();
+                if (!ftsExisted && tableExists(dataSource, "form_data_fts")) {
+                    rebuildFullTextIndex(dataSource);
+                }
+                if (!bigramExisted && tableExists(dataSource, "form_data_bigram")) {
+                    buildBigramIndex(dataSource);
+                }
+                if ((!statsExisted || valuesParsed) && tableExists(dataSource, "form_stats")) {
+                    rebuildStats(dataSource);
+                }
+                if (!changesExisted && tableExists(dataSource, "form_change")) {
+                    initChangeLog(dataSource);
+                }
+                return initialized;
+            }
+        };
+    }
+
+    private static HikariConfig baseConfig(DataSourceProperties dataSourceProperties, SqliteProperties sqliteProperties) {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+        config.setJdbcUrl(dataSourceProperties.determineUrl());
+        config.setDataSourceProperties(sqliteConfig(sqliteProperties).toProperties());
+        return config;
+    }
+
+    private static SQLiteConfig sqliteConfig(SqliteProperties sqliteProperties) {
+        SQLiteConfig sqliteConfig = new SQLiteConfig();
+        sqliteConfig.setJournalMode(SQLiteConfig.JournalMode.valueOf(sqliteProperties.getJournalMode().toUpperCase(Locale.ROOT)));
+        sqliteConfig.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(sqliteProperties.getSynchronous().toUpperCase(Locale.ROOT)));
+        sqliteConfig.setBusyTimeout((int) sqliteProperties.getBusyTimeout().toMillis());
+        return sqliteConfig;
+    }
+
+    /**
+     * 补齐已有表缺少的列
+     * @return 新增的列，格式为"表名.列名"
+     */
+    private static Set<String> addMissingColumns(DataSource dataSource) {
+        Set<String> added = new HashSet<>();
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            for (ColumnUpgrade upgrade : COLUMN_UPGRADES) {
+                Set<String> columns = new HashSet<>();
+                try (ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + upgrade.table() + ")")) {
+                    while (resultSet.next()) {
+                        columns.add(resultSet.getString("name"));
+                    }
+                }
+                // 表不存在时由初始化脚本创建完整的表
+                if (columns.isEmpty() || columns.contains(upgrade.column())) {
+                    continue;
+                }
+                statement.executeUpdate("ALTER TABLE " + upgrade.table() + " ADD COLUMN "
+                        + upgrade.column() + " " + upgrade.definition());
+                added.add(upgrade.table() + "." + upgrade.column());
+                log.info("已为表 {} 添加列 {}", upgrade.table(), upgrade.column());
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("升级数据库表结构失败: " + e.getMessage(), e);
+        }
+        return added;
+    }
+
+    /**
+     * 为升级前已有的表单数据解析方量和强度等级，之后新增和修改的数据在入库时解析
+     */
+    private static void parseFormValues(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement select = connection.createStatement();
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE form_data SET volume = ?, strengthGrade = ? WHERE id = ?")) {
+            long start = System.currentTimeMillis();
+            int rows = 0;
+            connection.setAutoCommit(false);
+            try (ResultSet resultSet = select.executeQuery("SELECT id, currentVolume, strengthLevel FROM form_data")) {
+                while (resultSet.next()) {
+                    Double volume = FormValueParser.parseVolume(resultSet.getString("currentVolume"));
+                    update.setObject(1, volume);
+                    update.setString(2, FormValueParser.parseStrengthGrade(resultSet.getString("strengthLevel")));
+                    update.setLong(3, resultSet.getLong("id"));
+                    update.addBatch();
+                    if (++rows % 1000 == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+            connection.commit();
+            connection.setAutoCommit(true);
+            log.info("已解析 {} 条表单数据的方量和强度等级，耗时 {} ms", rows, System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            throw new IllegalStateException("解析表单方量和强度等级失败: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean tableExists(DataSource dataSource, String table) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("查询数据库表结构失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 为升级前已有的表单数据建立全文索引，之后由触发器保持同步
+     */
+    private static void rebuildFullTextIndex(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            long start = System.currentTimeMillis();
+            statement.executeUpdate("INSERT INTO form_data_fts (form_data_fts) VALUES ('rebuild')");
+            log.info("已重建表单全文索引，耗时 {} ms", System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            throw new IllegalStateException("重建全文索引失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 为升级前已有的表单数据建立二元分词索引，之后由触发器保持同步
+     */
+    private static void buildBigramIndex(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            long start = System.currentTimeMillis();
+            int rows = statement.executeUpdate(
+                    "INSERT INTO form_data_bigram (rowid, projectName, constructionUnit, projectAddress, constructionPart) "
+                            + "SELECT id, bigrams(projectName), bigrams(constructionUnit), "
+                            + "bigrams(projectAddress), bigrams(constructionPart) FROM form_data");
+            log.info("已为 {} 条表单数据建立二元分词索引，耗时 {} ms", rows, System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            throw new IllegalStateException("建立二元分词索引失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 全量重新计算表单统计，之后由触发器增量维护
+     */
+    private static void rebuildStats(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            long start = System.currentTimeMillis();
+            connection.setAutoCommit(false);
+            for (String sql : REBUILD_STATS) {
+                statement.executeUpdate(sql);
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+            log.info("已重建表单统计，耗时 {} ms", System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            throw new IllegalStateException("重建表单统计失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 将升级前已有的表单数据按ID顺序记入变更日志，之后由触发器维护
+     */
+    private static void initChangeLog(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            long start = System.currentTimeMillis();
+            int rows = statement.executeUpdate(
+                    "INSERT INTO form_change (form_id, deleted, changed_at) "
+                            + "SELECT id, 0, CAST(strftime('%s', 'now') AS INTEGER) FROM form_data ORDER BY id");
+            log.info("已为 {} 条表单数据建立变更日志，耗时 {} ms", rows, System.currentTimeMillis() - start);
+        } catch (SQLException e) {
+            throw new IllegalStateException("建立表单变更日志失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 升级前的变更记录没有变更时间，以升级时间代替，墓碑的保留期限从升级时开始计算
+     */
+    private static void stampChangeLog(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.executeUpdate("UPDATE form_change SET changed_at = CAST(strftime('%s', 'now') AS INTEGER) "
+                    + "WHERE changed_at IS NULL");
+        } catch (SQLException e) {
+            throw new IllegalStateException("补齐变更日志的变更时间失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 需要补齐的列
+     * @param table 表名
+     * @param column 列名
+     * @param definition 列定义
+     */
+    private record ColumnUpgrade(String table, String column, String definition) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.formscanner.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 热文件夹导入配置
+ * 扫描仪将图片写入共享目录后由系统自动识别入库
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "form.scanner.hot-folder")
+public class HotFolderProperties {
+    // 是否启用热文件夹导入
+    private boolean enabled = false;
+
+    // 监听的收件目录
+    private String inboxDir = "./hot-folder/inbox";
+
+    // 处理成功后文件移动到的目录
+    private String doneDir = "./hot-folder/done";
+
+    // 处理失败后文件移动到的目录
+    private String failedDir = "./hot-folder/failed";
+
+    // 检查点日志文件，重启后据此跳过已处理的文件
+    private String journalFile = "./hot-folder/journal.log";
+
+    // 使用的OCR识别器类型
+    private String ocrType;
+
+    // 同时处理的最大文件数
+    private int parallelism = 2;
+
+    // 文件大小和修改时间保持不变多久后才认为写入完成
+    private Duration settleTime = Duration.ofSeconds(2);
+
+    // 全量扫描间隔，网络共享目录上WatchService可能收不到事件，需定期扫描兜底
+    private Duration rescanInterval = Duration.ofSeconds(30);
+
+    // 接受的文件扩展名
+    private List<String> extensions = List.of("jpg", "jpeg", "png", "bmp", "tif", "tiff");
+}
@@ -0,0 +1,64 @@
+package com.example.formscanner.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 识别任务队列配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "form.scanner.jobs")
+public class JobQueueProperties {
+    /**
+     * 任务处理模式
+     */
+    public enum Mode {
+        // 各节点只处理自己收到的上传
+        LOCAL,
+        // 上传只入队，由任意节点从共享任务表中领取处理
+        SHARED
+    }
+
+    // 任务处理模式
+    private Mode mode = Mode.LOCAL;
+
+    // 是否启动后台任务处理线程
+    private boolean workerEnabled = true;
+
+    // 节点ID，用于标识任务租约的持有者，为空时使用"主机名:端口"
+    private String nodeId;
+
+    // 后台处理线程数
+    private int workerThreads = 4;
+
+    // 每次领取的最大任务数
+    private int claimBatchSize = 8;
+
+    // 队列轮询间隔
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    // 任务租约时长，超过该时间未续约的任务可被其他节点重新领取
+    private Duration leaseDuration = Duration.ofSeconds(60);
+
+    // 心跳间隔，处理中的任务按该间隔续约，应明显小于租约时长
+    private Duration heartbeatInterval = Duration.ofSeconds(15);
+
+    // 共享模式下同步上传等待任务完成的最长时间，超时返回202和任务ID
+    private Duration awaitTimeout = Duration.ofSeconds(60);
+
+    // 共享模式下同步上传查询任务状态的间隔，任务由本节点处理时完成后直接唤醒，不需要查询
+    private Duration awaitPollInterval = Duration.ofMillis(200);
+
+    // 共享模式下同一优先级类别的最大待处理任务数，超过时同步上传直接返回429
+    private int maxPending = 256;
+
+    // 队列已满时建议客户端的重试间隔
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    // 单个任务的最大尝试次数
+    private int maxAttempts = 3;
+}
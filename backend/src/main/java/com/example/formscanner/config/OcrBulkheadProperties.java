@@ -0,0 +1,109 @@
+package com.example.formscanner.config;
+
+import com.example.formscanner.model.OcrPriority;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 识别器隔离舱配置
+ * 为每种OCR识别器设置独立的并发上限和等待队列，以及各优先级类别的调度权重
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "form.scanner.bulkhead")
+public class OcrBulkheadProperties {
+    /**
+     * 未单独配置的识别器使用的默认值
+     */
+    private Limit defaults = new Limit(4, 16, Duration.ofSeconds(30), Duration.ofSeconds(5));
+
+    /**
+     * 按识别器类型覆盖的配置
+     */
+    private Map<String, Limit> recognizers = new HashMap<>();
+
+    /**
+     * 按优先级类别覆盖的调度配置
+     */
+    private Map<OcrPriority, PriorityClass> priorities = new EnumMap<>(OcrPriority.class);
+
+    /**
+     * 获取指定识别器的配置，未配置的项使用默认值
+     * @param recognizerType 识别器类型
+     * @return 识别器的隔离舱配置
+     */
+    public Limit getLimit(String recognizerType) {
+        Limit limit = recognizers.get(recognizerType);
+        if (limit == null) {
+            return defaults;
+        }
+
+        return new Limit(
+                limit.getMaxConcurrent() != null ? limit.getMaxConcurrent() : defaults.getMaxConcurrent(),
+                limit.getQueueCapacity() != null ? limit.getQueueCapacity() : defaults.getQueueCapacity(),
+                limit.getMaxWait() != null ? limit.getMaxWait() : defaults.getMaxWait(),
+                limit.getRetryAfter() != null ? limit.getRetryAfter() : defaults.getRetryAfter());
+    }
+
+    /**
+     * 获取指定优先级类别的调度配置，未配置的项使用该类别的默认值，
+     * 队列容量和最长等待为空时沿用识别器的配置
+     * @param priority 优先级类别
+     * @return 优先级类别的调度配置
+     */
+    public PriorityClass getPriorityClass(OcrPriority priority) {
+        PriorityClass defaultClass = switch (priority) {
+            case INTERACTIVE -> new PriorityClass(8, null, null);
+            case BATCH -> new PriorityClass(2, 256, Duration.ofMinutes(10));
+            case REPROCESS -> new PriorityClass(1, 256, Duration.ofMinutes(10));
+        };
+        PriorityClass priorityClass = priorities.get(priority);
+        if (priorityClass == null) {
+            return defaultClass;
+        }
+
+        return new PriorityClass(
+                priorityClass.getWeight() != null ? priorityClass.getWeight() : defaultClass.getWeight(),
+                priorityClass.getQueueCapacity() != null ? priorityClass.getQueueCapacity() : defaultClass.getQueueCapacity(),
+                priorityClass.getMaxWait() != null ? priorityClass.getMaxWait() : defaultClass.getMaxWait());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        // 同时执行识别的最大数量
+        private Integer maxConcurrent;
+
+        // 等待执行的最大请求数
+        private Integer queueCapacity;
+
+        // 排队等待的最长时间
+        private Duration maxWait;
+
+        // 拒绝时建议的重试间隔
+        private Duration retryAfter;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriorityClass {
+        // 权重，识别器繁忙时各类别获得许可的比例与权重成正比
+        private Integer weight;
+
+        // 该类别在单个识别器上等待的最大请求数，为空时使用识别器的队列容量
+        private Integer queueCapacity;
+
+        // 该类别排队等待的最长时间，为空时使用识别器的最长等待
+        private Duration maxWait;
+    }
+}
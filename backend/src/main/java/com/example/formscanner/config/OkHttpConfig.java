@@ -3,9 +3,12 @@ package com.example.formscanner.config;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -17,17 +20,30 @@ public class OkHttpConfig {
     private static final long KEEP_ALIVE_TIME = 5000L;
  
     private static final long TIMEOUT = 60000L;
+
+    /**
+     * 是否启用虚拟线程模式
+     */
+    @Value("${form.scanner.virtual-threads:false}")
+    private boolean virtualThreads;
  
     @Bean
     public OkHttpClient okHttpClient() {
         ConnectionPool connectionPool = new ConnectionPool(32, KEEP_ALIVE_TIME, TimeUnit.MILLISECONDS);
  
-        return new OkHttpClient().newBuilder()
+        OkHttpClient.Builder builder = new OkHttpClient().newBuilder()
                 .connectTimeout(TIMEOUT, TimeUnit.MILLISECONDS)
                 .writeTimeout(TIMEOUT, TimeUnit.MILLISECONDS)
                 .readTimeout(TIMEOUT, TimeUnit.MILLISECONDS)
                 .connectionPool(connectionPool)
-                .retryOnConnectionFailure(false)
-                .build();
+                .retryOnConnectionFailure(false);
+
+        // OkHttp 4.x的HTTP/2读写在synchronized块内进行socket I/O，会钉住虚拟线程的载体线程；
+        // HTTP/1.1路径只在synchronized内做连接池簿记，不涉及阻塞I/O
+        if (virtualThreads) {
+            log.info("虚拟线程模式下OkHttp仅使用HTTP/1.1，避免载体线程被钉住");
+            builder.protocols(List.of(Protocol.HTTP_1_1));
+        }
+        return builder.build();
     }
 }
\ No newline at end of file
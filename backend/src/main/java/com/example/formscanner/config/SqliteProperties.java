@@ -0,0 +1,40 @@
+package com.example.formscanner.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * SQLite连接配置
+ * 写操作使用单个专用写连接，由写入队列合并提交；只读查询使用独立的只读连接池
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "form.scanner.sqlite")
+public class SqliteProperties {
+    // 日志模式，WAL模式下读写互不阻塞
+    private String journalMode = "WAL";
+
+    // 同步级别，WAL模式下NORMAL只在检查点时刷盘，进程崩溃不丢数据，断电可能丢失最近的提交
+    private String synchronous = "NORMAL";
+
+    // 数据库被其他连接（或其他节点进程）锁定时的等待时间
+    private Duration busyTimeout = Duration.ofSeconds(5);
+
+    // 只读连接池大小
+    private int readPoolSize = 4;
+
+    // 写入队列配置
+    private WriteQueue writeQueue = new WriteQueue();
+
+    @Data
+    public static class WriteQueue {
+        // 每次合并提交的最大写操作数
+        private int batchSize = 64;
+
+        // 队列容量，队列满时写操作在调用线程中等待
+        private int capacity = 1024;
+    }
+}
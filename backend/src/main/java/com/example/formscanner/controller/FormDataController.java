@@ -1,20 +1,51 @@
 package com.example.formscanner.controller;
 
+import com.example.formscanner.exception.ChangeTokenExpiredException;
+import com.example.formscanner.exception.FormDataVersionConflictException;
+import com.example.formscanner.exception.InvalidIfMatchException;
+import com.example.formscanner.exception.OcrJobPendingException;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.model.DocumentProgress;
 import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataBulkRequest;
+import com.example.formscanner.model.FormDataChanges;
+import com.example.formscanner.model.FormDataCursor;
+import com.example.formscanner.model.FormDataExportFilter;
+import com.example.formscanner.model.FormDataExportToken;
+import com.example.formscanner.model.FormDataPage;
+import com.example.formscanner.model.FormDataQuery;
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.FormStats;
+import com.example.formscanner.model.FormStatsDimension;
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.model.ReextractionProgress;
 import com.example.formscanner.service.FormDataService;
+import com.example.formscanner.service.document.DocumentIngestionService;
+import com.example.formscanner.service.export.FormDataExporter;
+import com.example.formscanner.service.export.FormDataExporterFactory;
+import com.example.formscanner.service.job.OcrJobService;
+import com.example.formscanner.service.ocr.OcrTimeline;
+import com.example.formscanner.service.reextract.FormReextractionService;
 import com.example.formscanner.service.impl.FormDataServiceImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * 表单数据控制器
@@ -25,103 +56,621 @@ import java.util.Map;
 @RequiredArgsConstructor
 @Slf4j
 public class FormDataController {
+    // 全文检索关键词的最大长度
+    private static final int MAX_SEARCH_LENGTH = 100;
+
+    // 统计接口最多返回的分组数
+    private static final int MAX_STATS_GROUPS = 1000;
+
+    // 返回导出水位令牌的响应头
+    private static final String EXPORT_TOKEN_HEADER = "X-Export-Token";
+
+    // 批量操作单次最多指定的ID数
+    private static final int MAX_BULK_IDS = 10000;
+
+    // 返回增量同步起始令牌的响应头
+    private static final String CHANGE_TOKEN_HEADER = "X-Change-Token";
+
+    // 返回上传识别各阶段耗时的响应头
+    private static final String SERVER_TIMING = "Server-Timing";
 
     private final FormDataServiceImpl formDataService;
+
+    private final DocumentIngestionService documentIngestionService;
+
+    private final OcrJobService ocrJobService;
+
+    private final FormDataExporterFactory exporterFactory;
+
+    private final FormReextractionService reextractionService;
+
+    // 列表接口每页的最大条数
+    @Value("${form.scanner.list.max-page-size:100}")
+    private int maxPageSize;
+
+    // 增量同步每次最多返回的变更条数
+    @Value("${form.scanner.changes.max-batch-size:1000}")
+    private int maxChangesBatchSize;
+
+    // 上传识别接口是否返回Server-Timing响应头，关闭后不记录各阶段耗时
+    @Value("${form.scanner.server-timing.enabled:true}")
+    private boolean serverTimingEnabled;
     
     /**
      * 上传并处理表单图片
      * @param file 上传的图片文件
      * @param ocrType OCR识别器类型（可选）
+     * @param timings 是否在响应中返回各阶段耗时（timings字段）
      * @return 处理后的表单数据
      */
     @PostMapping("/upload")
     public ResponseEntity<FormData> uploadFormImage(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "ocrType", required = false) String ocrType) {
+            @RequestParam(value = "ocrType", required = false) String ocrType,
+            @RequestParam(value = "timings", defaultValue = "false") boolean timings) {
         log.info("接收到表单图片上传请求，文件名: {}, OCR类型: {}", file.getOriginalFilename(), ocrType);
-        FormData formData;
-        if (ocrType != null && !ocrType.isEmpty()) {
-            formData = formDataService.processFormImage(file, ocrType);
-        } else {
-            formData = formDataService.processFormImage(file);
+        OcrTimeline timeline = serverTimingEnabled || timings ? OcrTimeline.begin() : null;
+        try {
+            FormData formData;
+            if (ocrType != null && !ocrType.isEmpty()) {
+                formData = formDataService.processFormImage(file, ocrType);
+            } else {
+                formData = formDataService.processFormImage(file);
+            }
+            if (timeline == null) {
+                return ResponseEntity.ok(formData);
+            }
+            Map<String, Double> millis = timeline.toMillis();
+            if (timings) {
+                formData.setTimings(millis);
+            }
+            return ResponseEntity.ok()
+                    .header(SERVER_TIMING, OcrTimeline.toServerTiming(millis))
+                    .body(formData);
+        } finally {
+            if (timeline != null) {
+                OcrTimeline.end();
+            }
         }
-        return ResponseEntity.ok(formData);
     }
     
     /**
-     * 获取所有表单数据
-     * @return 表单数据列表
+     * 批量提交表单图片，保存后加入识别队列由后台异步处理，重启后未完成的任务会继续处理
+     * @param files 上传的图片文件
+     * @param ocrType OCR识别器类型（可选）
+     * @return 识别任务列表
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<List<OcrJob>> submitFormImages(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestParam(value = "ocrType", required = false) String ocrType) {
+        log.info("接收到批量识别请求，文件数: {}, OCR类型: {}", files.size(), ocrType);
+        List<OcrJob> jobs = files.stream()
+                .map(file -> formDataService.submitFormImage(file, ocrType))
+                .toList();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobs);
+    }
+
+    /**
+     * 查询识别任务状态
+     * @param jobId 任务ID
+     * @return 识别任务
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<OcrJob> getJob(@PathVariable Long jobId) {
+        return ocrJobService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * 上传多页文档（PDF或多页TIFF），每页作为一张表单异步识别
+     * @param file 上传的文档
+     * @param ocrType OCR识别器类型（可选）
+     * @return 文档识别进度
+     */
+    @PostMapping("/documents")
+    public ResponseEntity<DocumentProgress> uploadDocument(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "ocrType", required = false) String ocrType) {
+        log.info("接收到多页文档上传请求，文件名: {}, OCR类型: {}", file.getOriginalFilename(), ocrType);
+        if (!documentIngestionService.isMultiPageDocument(file)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(documentIngestionService.submit(file, ocrType));
+    }
+
+    /**
+     * 查询多页文档的识别进度和已完成页面的结果
+     * @param documentId 文档任务ID
+     * @return 文档识别进度
+     */
+    @GetMapping("/documents/{documentId}")
+    public ResponseEntity<DocumentProgress> getDocumentProgress(@PathVariable String documentId) {
+        return documentIngestionService.getProgress(documentId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * 分页获取表单数据，按创建时间倒序
+     * @param cursor 上一页返回的游标（可选，为空时返回第一页）
+     * @param limit 每页条数
+     * @param projectName 工程名称（可选）
+     * @param constructionUnit 施工单位（可选）
+     * @param strengthLevel 强度等级（可选）
+     * @param createdFrom 创建日期下限，包含当天（可选）
+     * @param createdTo 创建日期上限，包含当天（可选）
+     * @return 一页表单数据和下一页的游标；第一页的响应头X-Change-Token为增量同步的起始令牌
      */
     @GetMapping
-    public ResponseEntity<List<FormData>> getAllFormData() {
-        List<FormData> formDataList = formDataService.getAllFormData();
-        return ResponseEntity.ok(formDataList);
+    public ResponseEntity<FormDataPage> getFormDataPage(
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            @RequestParam(value = "projectName", required = false) String projectName,
+            @RequestParam(value = "constructionUnit", required = false) String constructionUnit,
+            @RequestParam(value = "strengthLevel", required = false) String strengthLevel,
+            @RequestParam(value = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(value = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo) {
+        if (limit < 1 || limit > maxPageSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        FormDataQuery query = FormDataQuery.builder()
+                .projectName(emptyToNull(projectName))
+                .constructionUnit(emptyToNull(constructionUnit))
+                .strengthLevel(emptyToNull(strengthLevel))
+                .createdFrom(createdFrom != null ? createdFrom.atStartOfDay() : null)
+                .createdTo(createdTo != null ? createdTo.plusDays(1).atStartOfDay() : null)
+                .limit(limit)
+                .build();
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                query.setAfter(FormDataCursor.decode(cursor));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+            return ResponseEntity.ok(formDataService.getFormDataPage(query));
+        }
+        // 令牌在查询列表之前获取，两次查询之间的变更会在下次同步时再次返回，不会遗漏
+        String changeToken = formDataService.getLatestChangeToken();
+        return ResponseEntity.ok()
+                .header(CHANGE_TOKEN_HEADER, changeToken)
+                .body(formDataService.getFormDataPage(query));
+    }
+
+    /**
+     * 增量同步：返回令牌之后新增、修改和删除的表单数据
+     * 每条表单只返回最近一次变更，删除的表单只返回ID；没有新变更时返回空列表和原令牌
+     * @param since 上次同步返回的nextToken或列表接口返回的X-Change-Token（可选，为空时从头同步全部数据）
+     * @param limit 最多返回的变更条数
+     * @return 变更的表单数据和下次同步的令牌，令牌早于已清理的删除记录时返回410
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<FormDataChanges> getFormDataChanges(
+            @RequestParam(value = "since", required = false) String since,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        if (limit < 1 || limit > maxChangesBatchSize) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(formDataService.getFormDataChanges(since, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 按工程、施工单位或创建日期统计单数和方量合计
+     * @param by 统计维度：project、unit、day
+     * @param from 开始日期，包含当天（可选，仅按日期统计时有效）
+     * @param to 结束日期，包含当天（可选，仅按日期统计时有效）
+     * @param limit 最多返回的分组数
+     * @return 各分组的统计
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<FormStats>> getFormStats(
+            @RequestParam(value = "by", defaultValue = "project") String by,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        FormStatsDimension dimension = FormStatsDimension.fromKey(by).orElse(null);
+        if (dimension == null || limit < 1 || limit > MAX_STATS_GROUPS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(formDataService.getFormStats(dimension, from, to, limit));
+    }
+
+    /**
+     * 按关键词全文检索表单数据，结果按相关度排序
+     * @param q 以空格分隔的关键词，匹配工程名称、施工单位、工程地址和施工部位
+     * @param cursor 上一页返回的游标（可选，为空时返回第一页）
+     * @param limit 每页条数
+     * @return 一页表单数据和下一页的游标
+     */
+    @GetMapping("/search")
+    public ResponseEntity<FormDataPage> searchFormData(
+            @RequestParam("q") String q,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (limit < 1 || limit > maxPageSize || q.length() > MAX_SEARCH_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(formDataService.searchFormData(q, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * 根据ID获取表单数据
+     * 响应头ETag为当前版本号，请求头If-None-Match与之相同时返回304，不再返回数据
      * @param id 表单数据ID
      * @return 表单数据
      */
     @GetMapping("/{id}")
     public ResponseEntity<FormData> getFormDataById(@PathVariable Long id) {
         return formDataService.getFormDataById(id)
-                .map(ResponseEntity::ok)
+                .map(formData -> ResponseEntity.ok().eTag(eTag(formData.getVersion())).body(formData))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     /**
-     * 更新表单数据
+     * 更新表单数据，请求体中的可修改字段全部覆盖原值（未传入的字段置空）
      * @param id 表单数据ID
+     * @param ifMatch 读取时得到的ETag（可选），数据已被修改时返回412
      * @param formData 更新的表单数据
      * @return 更新后的表单数据
      */
     @PutMapping("/{id}")
-    public ResponseEntity<FormData> updateFormData(@PathVariable Long id, @RequestBody FormData formData) {
-        return formDataService.getFormDataById(id)
-                .map(existingFormData -> {
-                    formData.setProjectName(existingFormData.getProjectName());
-                    formData.setConstructionUnit(existingFormData.getConstructionUnit());
-                    formData.setProjectAddress(existingFormData.getProjectAddress());
-                    formData.setConstructionPart(existingFormData.getConstructionPart());
-                    formData.setStrengthLevel(existingFormData.getStrengthLevel());
-                    formData.setCurrentVolume(existingFormData.getCurrentVolume());
-                    formData.setCreatedAt(existingFormData.getCreatedAt());
-                    return ResponseEntity.ok(formDataService.saveFormData(formData));
-                })
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<FormData> updateFormData(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody FormData formData) {
+        Map<String, String> changes = new HashMap<>();
+        changes.put("projectName", formData.getProjectName());
+        changes.put("constructionUnit", formData.getConstructionUnit());
+        changes.put("projectAddress", formData.getProjectAddress());
+        changes.put("constructionPart", formData.getConstructionPart());
+        changes.put("strengthLevel", formData.getStrengthLevel());
+        changes.put("currentVolume", formData.getCurrentVolume());
+        return toUpdateResponse(formDataService.updateFormData(id, changes, parseIfMatch(ifMatch)));
+    }
+
+    /**
+     * 部分更新表单数据（JSON Merge Patch），只修改请求体中出现的字段，值为null时将字段置空
+     * @param id 表单数据ID
+     * @param ifMatch 读取时得到的ETag（可选），数据已被修改时返回412
+     * @param patch 要修改的字段和新值
+     * @return 更新后的表单数据
+     */
+    @PatchMapping("/{id}")
+    public ResponseEntity<FormData> patchFormData(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Map<String, Object> patch) {
+        Map<String, String> changes = new HashMap<>();
+        for (Map.Entry<String, Object> entry : patch.entrySet()) {
+            if (entry.getValue() != null && !(entry.getValue() instanceof String)) {
+                return ResponseEntity.badRequest().build();
+            }
+            changes.put(entry.getKey(), (String) entry.getValue());
+        }
+        try {
+            return toUpdateResponse(formDataService.updateFormData(id, changes, parseIfMatch(ifMatch)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     /**
      * 删除表单数据
      * @param id 表单数据ID
+     * @param ifMatch 读取时得到的ETag（可选），数据已被修改时返回412
      * @return 响应状态
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteFormData(@PathVariable Long id) {
-        return formDataService.getFormDataById(id)
-                .map(formData -> {
-                    formDataService.deleteFormData(id);
-                    return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
-                })
+    public ResponseEntity<Void> deleteFormData(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        if (formDataService.deleteFormData(id, parseIfMatch(ifMatch))) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 批量删除按ID列表或筛选条件选中的表单数据，单条语句在一个事务中完成
+     * @param request 选择条件：ids和filter至少需要其一
+     * @return 删除的条数
+     */
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<Map<String, Object>> bulkDeleteFormData(@RequestBody FormDataBulkRequest request) {
+        try {
+            return toBulkResponse(formDataService.bulkDeleteFormData(toSelection(request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量修改选中的表单数据，fields中出现的字段改为相同的值
+     * @param request 选择条件和要修改的字段
+     * @return 修改的条数
+     */
+    @PostMapping("/bulk/update")
+    public ResponseEntity<Map<String, Object>> bulkUpdateFormData(@RequestBody FormDataBulkRequest request) {
+        Map<String, String> changes = new HashMap<>();
+        if (request.getFields() != null) {
+            for (Map.Entry<String, Object> entry : request.getFields().entrySet()) {
+                if (entry.getValue() != null && !(entry.getValue() instanceof String)) {
+                    return ResponseEntity.badRequest().body(Map.of("error", "字段值必须是字符串: " + entry.getKey()));
+                }
+                changes.put(entry.getKey(), (String) entry.getValue());
+            }
+        }
+        try {
+            return toBulkResponse(formDataService.bulkUpdateFormData(toSelection(request), changes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 批量重新识别选中的表单，以重新识别优先级加入任务队列，识别完成后更新原表单
+     * @param request 选择条件和OCR识别器类型（可选）
+     * @return 创建的任务数
+     */
+    @PostMapping("/bulk/reprocess")
+    public ResponseEntity<Map<String, Object>> bulkReprocessFormData(@RequestBody FormDataBulkRequest request) {
+        try {
+            int queued = formDataService.reprocessFormData(toSelection(request), emptyToNull(request.getOcrType()));
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("affected", queued));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 从保存的识别原始输出中按当前的提取规则重新提取选中表单的字段，不再调用OCR识别，异步执行。
+     * 没有选择条件时处理全部表单；识别后被手工修改过的表单会跳过
+     * @param request 选择条件（可选）
+     * @return 任务进度，可通过Location中的地址查询
+     */
+    @PostMapping("/bulk/reextract")
+    public ResponseEntity<ReextractionProgress> bulkReextractFormData(
+            @RequestBody(required = false) FormDataBulkRequest request) {
+        FormDataSelection selection;
+        try {
+            selection = request != null ? toSelection(request) : new FormDataSelection();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        ReextractionProgress progress = reextractionService.submit(selection);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/forms/reextract/{id}").buildAndExpand(progress.getId()).toUri())
+                .body(progress);
+    }
+
+    /**
+     * 查询重新提取进度
+     * @param id 任务ID
+     * @return 任务进度
+     */
+    @GetMapping("/reextract/{id}")
+    public ResponseEntity<ReextractionProgress> getReextractionProgress(@PathVariable String id) {
+        return reextractionService.getProgress(id)
+                .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
+
+    /**
+     * 条件更新或删除时数据已被修改，返回412和当前版本的ETag
+     * @param e 版本冲突异常
+     * @return 412响应
+     */
+    @ExceptionHandler(FormDataVersionConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleVersionConflict(FormDataVersionConflictException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        response.put("id", e.getId());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(eTag(e.getCurrentVersion()))
+                .body(response);
+    }
+
+    /**
+     * 同步令牌早于已清理的删除记录时返回410，客户端应不带since参数重新全量同步
+     * @param e 同步令牌过期异常
+     * @return 410响应
+     */
+    @ExceptionHandler(ChangeTokenExpiredException.class)
+    public ResponseEntity<Map<String, Object>> handleChangeTokenExpired(ChangeTokenExpiredException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.GONE).body(response);
+    }
+
+    /**
+     * If-Match请求头无效或包含弱ETag时返回400
+     * @param e If-Match无效异常
+     * @return 400响应
+     */
+    @ExceptionHandler(InvalidIfMatchException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidIfMatch(InvalidIfMatchException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        return ResponseEntity.badRequest().body(response);
+    }
+
+    private static ResponseEntity<Map<String, Object>> toBulkResponse(int affected) {
+        return ResponseEntity.ok(Map.of("affected", affected));
+    }
+
+    /**
+     * 将批量操作请求转换为选择条件
+     * @param request 批量操作请求
+     * @return 选择条件
+     * @throws IllegalArgumentException ID数量超过上限
+     */
+    private static FormDataSelection toSelection(FormDataBulkRequest request) {
+        if (request.getIds() != null && request.getIds().size() > MAX_BULK_IDS) {
+            throw new IllegalArgumentException("单次最多指定 " + MAX_BULK_IDS + " 个ID，更多数据请使用筛选条件");
+        }
+        FormDataSelection.FormDataSelectionBuilder selection = FormDataSelection.builder().ids(request.getIds());
+        FormDataBulkRequest.Filter filter = request.getFilter();
+        if (filter != null) {
+            selection.projectName(emptyToNull(filter.getProjectName()))
+                    .constructionUnit(emptyToNull(filter.getConstructionUnit()))
+                    .strengthLevel(emptyToNull(filter.getStrengthLevel()))
+                    .createdFrom(filter.getCreatedFrom() != null ? filter.getCreatedFrom().atStartOfDay() : null)
+                    .createdTo(filter.getCreatedTo() != null ? filter.getCreatedTo().plusDays(1).atStartOfDay() : null);
+        }
+        return selection.build();
+    }
+
+    private static ResponseEntity<FormData> toUpdateResponse(Optional<FormData> updated) {
+        return updated
+                .map(formData -> ResponseEntity.ok().eTag(eTag(formData.getVersion())).body(formData))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    private static String eTag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * 解析If-Match请求头中的版本号
+     * 请求头是逗号分隔的ETag列表，数据的当前版本与其中任意一个相同即满足条件。
+     * If-Match按RFC 9110使用强比较，弱ETag（W/前缀）不可能匹配，直接作为无效请求拒绝；
+     * 引号内不是版本号的ETag不与任何版本匹配
+     * @param ifMatch If-Match请求头
+     * @return 期望的版本号列表，未传入或为*时为空（不检查版本）
+     * @throws InvalidIfMatchException 请求头语法错误或包含弱ETag
+     */
+    static List<Long> parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        List<Long> versions = new ArrayList<>();
+        int i = 0;
+        int length = ifMatch.length();
+        while (i < length) {
+            char c = ifMatch.charAt(i);
+            if (c == ',' || c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (ifMatch.startsWith("W/", i)) {
+                throw new InvalidIfMatchException("If-Match使用强比较，不支持弱ETag: " + ifMatch);
+            }
+            int end = c == '"' ? ifMatch.indexOf('"', i + 1) : -1;
+            if (end < 0) {
+                throw new InvalidIfMatchException("无效的If-Match请求头: " + ifMatch);
+            }
+            String tag = ifMatch.substring(i + 1, end);
+            if (!tag.isEmpty() && tag.chars().allMatch(Character::isDigit)) {
+                try {
+                    versions.add(Long.parseLong(tag));
+                } catch (NumberFormatException e) {
+                    // 超出范围的数字不与任何版本匹配
+                }
+            }
+            i = end + 1;
+            // ETag之后只能是空白或分隔的逗号
+            while (i < length && (ifMatch.charAt(i) == ' ' || ifMatch.charAt(i) == '\t')) {
+                i++;
+            }
+            if (i < length && ifMatch.charAt(i) != ',') {
+                throw new InvalidIfMatchException("无效的If-Match请求头: " + ifMatch);
+            }
+        }
+        return versions;
+    }
     
     /**
-     * 导出表单数据为Excel
-     * @return Excel文件
+     * 按条件导出表单数据，生成的内容直接写入响应
+     * 响应头X-Export-Token返回本次导出的水位令牌，下次作为since参数传入时只导出之后修改的数据
+     * @param format 导出格式：xlsx（默认）、csv、jsonl、arrow（Arrow IPC流格式）
+     * @param projectName 工程名称（可选）
+     * @param constructionUnit 施工单位（可选）
+     * @param strengthLevel 强度等级（可选）
+     * @param createdFrom 创建日期下限，包含当天（可选）
+     * @param createdTo 创建日期上限，包含当天（可选）
+     * @param since 上次导出返回的水位令牌（可选，为空时导出全部符合条件的数据）
+     * @return 导出文件
      */
     @GetMapping("/export")
-    public ResponseEntity<byte[]> exportToExcel() {
-        byte[] excelBytes = formDataService.exportToExcel();
-        
+    public ResponseEntity<StreamingResponseBody> exportFormData(
+            @RequestParam(value = "format", defaultValue = "xlsx") String format,
+            @RequestParam(value = "projectName", required = false) String projectName,
+            @RequestParam(value = "constructionUnit", required = false) String constructionUnit,
+            @RequestParam(value = "strengthLevel", required = false) String strengthLevel,
+            @RequestParam(value = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdFrom,
+            @RequestParam(value = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate createdTo,
+            @RequestParam(value = "since", required = false) String since) {
+        FormDataExporter exporter = exporterFactory.getExporter(format).orElse(null);
+        if (exporter == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        FormDataExportToken token = formDataService.newExportToken();
+        FormDataExportFilter filter = FormDataExportFilter.builder()
+                .projectName(emptyToNull(projectName))
+                .constructionUnit(emptyToNull(constructionUnit))
+                .strengthLevel(emptyToNull(strengthLevel))
+                .createdFrom(createdFrom != null ? createdFrom.atStartOfDay() : null)
+                .createdTo(createdTo != null ? createdTo.plusDays(1).atStartOfDay() : null)
+                .changeSeqUntil(token.seq())
+                .build();
+        if (since != null && !since.isEmpty()) {
+            try {
+                filter.setChangeSeqAfter(FormDataExportToken.decode(since).seq());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
-        headers.setContentDispositionFormData("attachment", "form_data.xlsx");
+        headers.setContentType(MediaType.parseMediaType(exporter.getContentType()));
+        headers.setContentDispositionFormData("attachment", "form_data." + exporter.getFileExtension());
+        headers.set(EXPORT_TOKEN_HEADER, token.encode());
         
-        return new ResponseEntity<>(excelBytes, headers, HttpStatus.OK);
+        StreamingResponseBody body = outputStream -> formDataService.exportFormData(filter, exporter, outputStream);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    /**
+     * 识别器繁忙时返回429，并通过Retry-After提示客户端稍后重试
+     * @param e 识别请求被拒绝异常
+     * @return 429响应
+     */
+    @ExceptionHandler(OcrRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleOcrRejected(OcrRejectedException e) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", e.getMessage());
+        response.put("ocrType", e.getRecognizerType());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getRetryAfter().toSeconds())))
+                .body(response);
     }
     
+    /**
+     * 共享任务模式下识别未在等待时间内完成，返回202和任务查询地址
+     * @param e 任务未完成异常
+     * @return 识别任务
+     */
+    @ExceptionHandler(OcrJobPendingException.class)
+    public ResponseEntity<OcrJob> handleOcrJobPending(OcrJobPendingException e) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath()
+                        .path("/forms/jobs/{jobId}").buildAndExpand(e.getJob().getId()).toUri())
+                .body(e.getJob());
+    }
+
     /**
      * 获取所有可用的OCR识别器类型
      * @return OCR识别器类型列表
@@ -133,4 +682,8 @@ public class FormDataController {
         response.put("ocrTypes", ocrTypes);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.formscanner.controller;
+
+import com.example.formscanner.model.ImageBlob;
+import com.example.formscanner.service.storage.ImageStore;
+import com.example.formscanner.service.storage.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 图片控制器
+ * 按摘要返回表单图片的原图或缩略图。图片按内容寻址，同一地址的内容永远不变，
+ * 响应带强ETag和一年的缓存期，浏览器再次显示时不会重新请求。
+ * 支持单段Range请求；连接器支持sendfile时文件内容由Tomcat直接从文件写入连接，不经过堆内存。
+ * 不支持时用FileChannel.transferTo写到响应输出流，目标不是文件或套接字通道，内容仍经过堆内缓冲区逐块复制
+ */
+@RestController
+@RequestMapping("/images")
+@RequiredArgsConstructor
+@Slf4j
+public class ImageController {
+    private static final Pattern HASH_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    // 单段范围：bytes=起始-结束、bytes=起始-、bytes=-末尾字节数
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d{0,18})-(\\d{0,18})");
+
+    private static final String CACHE_CONTROL = "max-age=31536000, immutable";
+
+    // Tomcat的sendfile请求属性，连接器支持时由Tomcat在响应结束后直接发送文件
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private final ImageStore imageStore;
+
+    private final ThumbnailService thumbnailService;
+
+    /**
+     * 获取图片
+     * @param hash 图片摘要（表单的imageHash）
+     * @param size 缩略图尺寸（可选），不指定时返回原图
+     */
+    @GetMapping("/{hash}")
+    public void getImage(@PathVariable String hash,
+                         @RequestParam(value = "size", required = false) Integer size,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ImageBlob> blob = HASH_PATTERN.matcher(hash).matches() ? imageStore.find(hash) : Optional.empty();
+        if (blob.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        if (size == null) {
+            Path file = imageStore.resolve(blob.get());
+            MediaType contentType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+            writeFile(request, response, file, contentType, "\"" + hash + "\"");
+            return;
+        }
+
+        Optional<Path> thumbnail;
+        try {
+            thumbnail = thumbnailService.getThumbnail(blob.get(), size);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), e.getMessage());
+            return;
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (thumbnail.isEmpty()) {
+            response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(), "图片无法解码，不能生成缩略图");
+            return;
+        }
+        writeFile(request, response, thumbnail.get(), MediaType.IMAGE_JPEG, "\"" + hash + "-" + size + "\"");
+    }
+
+    private void writeFile(HttpServletRequest request, HttpServletResponse response, Path file,
+                           MediaType contentType, String etag) throws IOException {
+        long length;
+        try {
+            length = Files.size(file);
+        } catch (NoSuchFileException e) {
+            log.warn("图片文件不存在: {}", file);
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matchesAny(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range与当前ETag不同时返回完整内容
+        ByteRange byteRange = range != null && (ifRange == null || ifRange.equals(etag))
+                ? parseRange(range, length) : null;
+        if (byteRange == ByteRange.UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            return;
+        }
+        if (byteRange != null) {
+            start = byteRange.start();
+            end = byteRange.end();
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentType(contentType.toString());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end + 1 - position, output);
+                if (transferred == 0) {
+                    // 文件在发送过程中被截断，继续循环不会再有进展
+                    throw new IOException("图片文件在位置 " + position + " 处没有可发送的内容: " + file);
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * 解析单段Range请求头
+     * 按RFC 9110，语法无效的范围（如结束位置小于起始位置）和多段等不支持的格式忽略，返回完整内容；
+     * 只有语法有效但起始位置不在内容内（或末尾长度为0）时才是无法满足的范围
+     * @param range Range请求头
+     * @param length 内容长度
+     * @return 要返回的范围，忽略时为空，无法满足时为{@link ByteRange#UNSATISFIABLE}
+     */
+    static ByteRange parseRange(String range, long length) {
+        Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+        if (!matcher.matches() || (matcher.group(1).isEmpty() && matcher.group(2).isEmpty())) {
+            return null;
+        }
+        if (matcher.group(1).isEmpty()) {
+            long suffixLength = Long.parseLong(matcher.group(2));
+            if (suffixLength == 0 || length == 0) {
+                return ByteRange.UNSATISFIABLE;
+            }
+            return new ByteRange(Math.max(0, length - suffixLength), length - 1);
+        }
+        long start = Long.parseLong(matcher.group(1));
+        long last = matcher.group(2).isEmpty() ? Long.MAX_VALUE : Long.parseLong(matcher.group(2));
+        if (last < start) {
+            return null;
+        }
+        if (start >= length) {
+            return ByteRange.UNSATISFIABLE;
+        }
+        return new ByteRange(start, Math.min(last, length - 1));
+    }
+
+    /**
+     * If-None-Match按弱比较匹配，可以是多个ETag或*
+     */
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单段字节范围，包含起止位置
+     * @param start 起始位置
+     * @param end 结束位置
+     */
+    record ByteRange(long start, long end) {
+        // 无法满足的范围，返回416
+        static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+    }
+}
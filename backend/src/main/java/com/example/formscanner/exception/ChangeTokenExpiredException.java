@@ -0,0 +1,18 @@
+package com.example.formscanner.exception;
+
+import lombok.Getter;
+
+/**
+ * 增量同步令牌已过期异常
+ * 令牌早于已清理的墓碑，客户端可能错过了其间的删除，由控制器转换为410响应，客户端需要重新全量同步
+ */
+@Getter
+public class ChangeTokenExpiredException extends RuntimeException {
+    // 已清理的墓碑中最大的变更序号
+    private final long horizon;
+
+    public ChangeTokenExpiredException(long seq, long horizon) {
+        super("同步令牌 " + seq + " 早于已清理的删除记录 " + horizon + "，请不带since参数重新全量同步");
+        this.horizon = horizon;
+    }
+}
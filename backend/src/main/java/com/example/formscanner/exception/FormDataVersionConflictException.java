@@ -0,0 +1,22 @@
+package com.example.formscanner.exception;
+
+import lombok.Getter;
+
+/**
+ * 表单数据版本冲突异常
+ * 条件更新或删除时数据已被其他人修改，由控制器转换为412响应，并返回当前版本的ETag
+ */
+@Getter
+public class FormDataVersionConflictException extends RuntimeException {
+    // 表单数据ID
+    private final Long id;
+
+    // 数据库中的当前版本号
+    private final Long currentVersion;
+
+    public FormDataVersionConflictException(Long id, Long currentVersion) {
+        super("表单数据 " + id + " 已被修改，当前版本: " + currentVersion);
+        this.id = id;
+        this.currentVersion = currentVersion;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.formscanner.exception;
+
+/**
+ * If-Match请求头无效异常
+ * 请求头语法错误或包含弱ETag时抛出，由控制器转换为400响应
+ */
+public class InvalidIfMatchException extends RuntimeException {
+
+    public InvalidIfMatchException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.formscanner.exception;
+
+import lombok.Getter;
+
+/**
+ * 识别任务租约已失效异常
+ * 完成任务时租约已过期并被其他处理者接手，本次识别结果随事务回滚，任务由新的持有者处理
+ */
+@Getter
+public class OcrJobLeaseLostException extends RuntimeException {
+    // 任务ID
+    private final Long jobId;
+
+    public OcrJobLeaseLostException(Long jobId) {
+        super("识别任务 " + jobId + " 的租约已失效");
+        this.jobId = jobId;
+    }
+}
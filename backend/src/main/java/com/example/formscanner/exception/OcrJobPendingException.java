@@ -0,0 +1,19 @@
+package com.example.formscanner.exception;
+
+import com.example.formscanner.model.OcrJob;
+import lombok.Getter;
+
+/**
+ * OCR识别任务尚未完成异常
+ * 共享任务模式下同步上传在等待时间内未得到结果时抛出，由控制器转换为202响应，客户端可凭任务ID查询结果
+ */
+@Getter
+public class OcrJobPendingException extends RuntimeException {
+    // 仍在排队或处理中的任务
+    private final OcrJob job;
+
+    public OcrJobPendingException(OcrJob job) {
+        super("识别任务 " + job.getId() + " 仍在处理中");
+        this.job = job;
+    }
+}
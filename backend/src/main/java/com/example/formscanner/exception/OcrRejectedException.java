@@ -0,0 +1,24 @@
+package com.example.formscanner.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * OCR识别请求被拒绝异常
+ * 识别器并发已满且等待队列已满（或等待超时）时抛出，由控制器转换为429响应
+ */
+@Getter
+public class OcrRejectedException extends RuntimeException {
+    // 被拒绝的识别器类型
+    private final String recognizerType;
+
+    // 建议客户端的重试间隔
+    private final Duration retryAfter;
+
+    public OcrRejectedException(String recognizerType, Duration retryAfter, String message) {
+        super(message);
+        this.recognizerType = recognizerType;
+        this.retryAfter = retryAfter;
+    }
+}
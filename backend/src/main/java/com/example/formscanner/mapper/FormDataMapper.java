@@ -1,10 +1,20 @@
 package com.example.formscanner.mapper;
 
 import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataChange;
+import com.example.formscanner.model.FormDataExportFilter;
+import com.example.formscanner.model.FormDataPatch;
+import com.example.formscanner.model.FormDataQuery;
+import com.example.formscanner.model.FormDataSearch;
+import com.example.formscanner.model.FormDataSelection;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 表单数据Mapper接口
@@ -21,18 +31,36 @@ public interface FormDataMapper {
     int insert(FormData formData);
     
     /**
-     * 更新表单数据
-     * @param formData 表单数据
-     * @return 影响的行数
+     * 部分更新表单数据并递增版本号
+     * @param patch 要更新的列和期望的版本号
+     * @return 更新后的表单数据，数据不存在或版本不一致时返回null
      */
-    int update(FormData formData);
+    FormData patch(FormDataPatch patch);
     
     /**
      * 根据ID删除表单数据
      * @param id 表单数据ID
+     * @param versions 期望的版本号，当前版本是其中之一才删除，为空时不检查版本
+     * @return 影响的行数
+     */
+    int deleteById(@Param("id") Long id, @Param("versions") Collection<Long> versions);
+
+    /**
+     * 批量部分更新选中的表单数据，各自的版本号加一
+     * @param selection 选择条件，至少需要一个条件
+     * @param fields 要更新的列和新值，列名必须来自可修改列的白名单
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int patchSelected(@Param("selection") FormDataSelection selection, @Param("fields") Map<String, Object> fields,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 批量删除选中的表单数据
+     * @param selection 选择条件，至少需要一个条件
      * @return 影响的行数
      */
-    int deleteById(@Param("id") Long id);
+    int deleteSelected(@Param("selection") FormDataSelection selection);
     
     /**
      * 根据ID查询表单数据
@@ -46,4 +74,59 @@ public interface FormDataMapper {
      * @return 表单数据列表
      */
     List<FormData> selectAll();
+
+    /**
+     * 逐行读取待导出的表单数据，需在事务内遍历
+     * @param filter 导出条件
+     * @return 表单数据游标
+     */
+    Cursor<FormData> scanForExport(FormDataExportFilter filter);
+
+    /**
+     * 按条件分页查询表单数据，按创建时间和ID倒序
+     * @param query 查询条件
+     * @return 表单数据列表
+     */
+    List<FormData> selectPage(FormDataQuery query);
+
+    /**
+     * 全文检索表单数据，按相关度排序
+     * @param search 检索条件
+     * @return 表单数据列表
+     */
+    List<FormData> search(FormDataSearch search);
+
+    /**
+     * 按变更序号顺序读取指定序号之后的变更
+     * @param since 已同步的最后一个变更序号
+     * @param limit 最多返回的条数
+     * @return 变更记录，已删除的表单不带内容
+     */
+    List<FormDataChange> selectChanges(@Param("since") long since, @Param("limit") int limit);
+
+    /**
+     * 查询当前最大的变更序号
+     * @return 变更序号，没有任何变更时为0
+     */
+    long selectLatestChangeSeq();
+
+    /**
+     * 查询已清理的墓碑中最大的变更序号，令牌早于该序号时可能错过删除
+     * @return 变更序号，没有清理过墓碑时为0
+     */
+    long selectChangeHorizon();
+
+    /**
+     * 将清理水位推进到最早的一批过期墓碑中最大的序号
+     * @param changedBefore 变更时间早于该时刻（Unix秒）的墓碑已过期
+     * @param limit 每批最多清理的墓碑数
+     * @return 影响的行数，没有过期墓碑时为0
+     */
+    int advanceChangeHorizon(@Param("changedBefore") long changedBefore, @Param("limit") int limit);
+
+    /**
+     * 删除清理水位之前的墓碑
+     * @return 删除的墓碑数
+     */
+    int deleteCompactedTombstones();
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.FormRawOcr;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 识别原始输出Mapper接口
+ * 表单删除时由触发器删除对应的原始输出
+ */
+@Mapper
+public interface FormRawOcrMapper {
+
+    /**
+     * 保存表单的原始输出，已存在时覆盖（重新识别）
+     * @param raw 原始输出
+     * @return 影响的行数
+     */
+    int upsert(FormRawOcr raw);
+
+    /**
+     * 按表单ID顺序读取一批可重新提取的原始输出，连同表单的当前内容；
+     * 识别后被手工修改过的表单不会返回
+     * @param selection 表单选择条件，没有条件时选择全部
+     * @param afterId 上一批最后一条的表单ID
+     * @param limit 最多返回的条数
+     * @return 原始输出
+     */
+    List<FormRawOcr> selectForReextraction(@Param("selection") FormDataSelection selection,
+                                           @Param("afterId") long afterId, @Param("limit") int limit);
+
+    /**
+     * 记录由提取结果写入表单后的版本号
+     * @param formDataId 表单数据ID
+     * @param version 表单的新版本号
+     * @return 影响的行数
+     */
+    int updateExtractedVersion(@Param("formDataId") Long formDataId, @Param("version") Long version);
+}
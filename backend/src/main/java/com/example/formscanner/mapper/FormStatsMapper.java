@@ -0,0 +1,26 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormStats;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 表单统计Mapper接口
+ * 统计表由form_data上的触发器维护，这里只提供查询
+ */
+@Mapper
+public interface FormStatsMapper {
+
+    /**
+     * 按维度查询统计：按日期统计时按日期倒序，其余按方量合计倒序
+     * @param dimension 维度键
+     * @param from 分组下限（包含，可为空）
+     * @param to 分组上限（包含，可为空）
+     * @param limit 最多返回的分组数
+     * @return 各分组的统计
+     */
+    List<FormStats> selectByDimension(@Param("dimension") String dimension, @Param("from") String from,
+                                      @Param("to") String to, @Param("limit") int limit);
+}
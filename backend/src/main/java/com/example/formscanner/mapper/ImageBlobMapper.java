@@ -0,0 +1,48 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.ImageBlob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 图片存储记录Mapper接口
+ */
+@Mapper
+public interface ImageBlobMapper {
+
+    /**
+     * 登记保存的图片，已存在时只刷新最近使用时间
+     * @param blob 图片
+     * @return 已登记的图片（扩展名以第一次保存时为准）
+     */
+    ImageBlob touch(ImageBlob blob);
+
+    /**
+     * 根据摘要查询
+     * @param hash 图片摘要
+     * @return 图片，不存在时为null
+     */
+    ImageBlob selectByHash(@Param("hash") String hash);
+
+    /**
+     * 查询一批可回收的图片：最近使用早于指定时间，且没有表单和未完成的识别任务引用，
+     * 按(最近使用时间, 摘要)排序并从上一批的最后一张之后开始
+     * @param usedBefore 最近使用时间的上限
+     * @param after 上一批的最后一张图片，为空时从头开始
+     * @param limit 最多返回的条数
+     * @return 可回收的图片
+     */
+    List<ImageBlob> selectCollectable(@Param("usedBefore") LocalDateTime usedBefore, @Param("after") ImageBlob after,
+                                      @Param("limit") int limit);
+
+    /**
+     * 在仍满足回收条件时删除图片记录
+     * @param hash 图片摘要
+     * @param usedBefore 最近使用时间的上限
+     * @return 影响的行数，0表示图片已被重新使用
+     */
+    int deleteIfCollectable(@Param("hash") String hash, @Param("usedBefore") LocalDateTime usedBefore);
+}
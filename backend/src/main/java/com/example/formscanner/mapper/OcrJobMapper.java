@@ -0,0 +1,150 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.model.OcrPriority;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * OCR识别任务Mapper接口
+ * 提供任务的入队、领取、完成和恢复操作
+ */
+@Mapper
+public interface OcrJobMapper {
+
+    /**
+     * 插入识别任务
+     * @param job 识别任务
+     * @return 影响的行数
+     */
+    int insert(OcrJob job);
+
+    /**
+     * 为选中的表单批量创建重新识别任务，使用各表单最近一次完成的任务的图片，识别后更新原表单
+     * @param selection 表单选择条件，至少需要一个条件
+     * @param ocrType OCR识别器类型，为空时沿用原任务的识别器
+     * @param priority 优先级类别
+     * @param maxAttempts 最大尝试次数
+     * @param createdAt 创建时间
+     * @return 创建的任务数
+     */
+    int insertReprocessJobs(@Param("selection") FormDataSelection selection, @Param("ocrType") String ocrType,
+                            @Param("priority") OcrPriority priority, @Param("maxAttempts") int maxAttempts,
+                            @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * 根据ID查询识别任务
+     * @param id 任务ID
+     * @return 识别任务
+     */
+    OcrJob selectById(@Param("id") Long id);
+
+    /**
+     * 查询同一图片最近一次未失败的识别任务
+     * @param imageHash 图片摘要
+     * @return 识别任务，没有时返回null
+     */
+    OcrJob selectLatestByImageHash(@Param("imageHash") String imageHash);
+
+    /**
+     * 统计指定优先级类别的待处理任务数
+     * @param priority 优先级类别
+     * @return 待处理任务数
+     */
+    int countPending(@Param("priority") OcrPriority priority);
+
+    /**
+     * 批量领取待处理任务和租约已过期的任务，单条UPDATE语句保证同一任务只会被一个领取者拿到
+     * @param owner 租约持有者
+     * @param token 本次领取的令牌
+     * @param now 当前时间（毫秒时间戳）
+     * @param leaseUntil 租约到期时间（毫秒时间戳）
+     * @param limit 最多领取的任务数
+     * @param updatedAt 更新时间
+     * @return 领取到的任务数
+     */
+    int claimBatch(@Param("owner") String owner, @Param("token") String token, @Param("now") long now,
+                   @Param("leaseUntil") long leaseUntil, @Param("limit") int limit,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 查询本次领取到的任务
+     * @param token 领取令牌
+     * @return 识别任务列表
+     */
+    List<OcrJob> selectByLeaseToken(@Param("token") String token);
+
+    /**
+     * 标记任务完成，仅在仍持有租约时生效
+     * @param id 任务ID
+     * @param token 领取令牌
+     * @param formDataId 表单ID
+     * @param stageNanos 处理时各阶段的耗时
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int markDone(@Param("id") Long id, @Param("token") String token, @Param("formDataId") Long formDataId,
+                 @Param("stageNanos") String stageNanos, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 任务处理失败：未达到最大尝试次数时退回待处理，否则标记失败
+     * @param id 任务ID
+     * @param token 领取令牌
+     * @param error 错误信息
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int markFailed(@Param("id") Long id, @Param("token") String token, @Param("error") String error,
+                   @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 直接标记任务失败，不再重试
+     * @param id 任务ID
+     * @param token 领取令牌
+     * @param error 错误信息
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int markAbandoned(@Param("id") Long id, @Param("token") String token, @Param("error") String error,
+                      @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 退回任务并且不计入尝试次数（如识别器繁忙）
+     * @param id 任务ID
+     * @param token 领取令牌
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int release(@Param("id") Long id, @Param("token") String token, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 将指定节点持有的处理中任务全部退回待处理，用于节点重启后的恢复
+     * @param owner 租约持有者
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int releaseByOwner(@Param("owner") String owner, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 为节点持有的处理中任务续约（心跳）
+     * @param owner 租约持有者
+     * @param ids 仍在处理中的任务ID
+     * @param leaseUntil 新的租约到期时间（毫秒时间戳）
+     * @return 续约成功的任务数
+     */
+    int renewLeases(@Param("owner") String owner, @Param("ids") Collection<Long> ids,
+                    @Param("leaseUntil") long leaseUntil);
+
+    /**
+     * 将租约已过期且尝试次数已用尽的任务标记为失败
+     * @param now 当前时间（毫秒时间戳）
+     * @param updatedAt 更新时间
+     * @return 影响的行数
+     */
+    int failExhausted(@Param("now") long now, @Param("updatedAt") LocalDateTime updatedAt);
+}
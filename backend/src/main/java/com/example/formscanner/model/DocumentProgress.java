@@ -0,0 +1,139 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多页文档识别进度
+ * 每页识别完成后立即追加到结果中，客户端可以在整个文档完成前获取部分结果
+ */
+@Getter
+public class DocumentProgress {
+    public enum Status {
+        // 正在拆分和识别
+        PROCESSING,
+        // 全部页面识别成功
+        COMPLETED,
+        // 部分页面识别失败
+        PARTIALLY_COMPLETED,
+        // 文档无法打开或全部页面识别失败
+        FAILED
+    }
+
+    // 文档任务ID
+    private final String id;
+
+    // 原始文件名
+    private final String fileName;
+
+    // 使用的OCR识别器类型
+    private final String ocrType;
+
+    // 提交时间
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    // 任务状态
+    private volatile Status status = Status.PROCESSING;
+
+    // 总页数，文档打开前为0
+    private volatile int totalPages;
+
+    // 错误信息
+    private volatile String error;
+
+    // 完成时间
+    private volatile LocalDateTime finishedAt;
+
+    // 已完成页面的结果，按完成顺序排列
+    private final List<PageResult> pages = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger completedPages = new AtomicInteger();
+
+    private final AtomicInteger failedPages = new AtomicInteger();
+
+    private final AtomicInteger queuedPages = new AtomicInteger();
+
+    public DocumentProgress(String id, String fileName, String ocrType) {
+        this.id = id;
+        this.fileName = fileName;
+        this.ocrType = ocrType;
+    }
+
+    public int getCompletedPages() {
+        return completedPages.get();
+    }
+
+    public int getQueuedPages() {
+        return queuedPages.get();
+    }
+
+    public int getFailedPages() {
+        return failedPages.get();
+    }
+
+    public void start(int totalPages) {
+        this.totalPages = totalPages;
+    }
+
+    public void pageCompleted(int pageNumber, FormData formData) {
+        pages.add(new PageResult(pageNumber, formData.getId(), formData, null, null));
+        completedPages.incrementAndGet();
+    }
+
+    public void pageQueued(int pageNumber, Long jobId) {
+        pages.add(new PageResult(pageNumber, null, null, jobId, null));
+        queuedPages.incrementAndGet();
+    }
+
+    public void pageFailed(int pageNumber, String error) {
+        pages.add(new PageResult(pageNumber, null, null, null, error));
+        failedPages.incrementAndGet();
+    }
+
+    public void finish() {
+        if (failedPages.get() == 0) {
+            status = Status.COMPLETED;
+        } else if (completedPages.get() + queuedPages.get() > 0) {
+            status = Status.PARTIALLY_COMPLETED;
+        } else {
+            status = Status.FAILED;
+        }
+        finishedAt = LocalDateTime.now();
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        this.status = Status.FAILED;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 单页识别结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PageResult {
+        // 页码，从1开始
+        private int pageNumber;
+
+        // 识别入库后的表单ID
+        private Long formDataId;
+
+        // 识别得到的表单数据
+        private FormData formData;
+
+        // 共享任务模式下等待超时、仍在队列中的识别任务ID
+        private Long jobId;
+
+        // 识别失败时的错误信息
+        private String error;
+    }
+}
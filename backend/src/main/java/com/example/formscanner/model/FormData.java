@@ -1,18 +1,20 @@
 package com.example.formscanner.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 /**
  * 表单数据实体类
  * 根据图片中识别的表单字段设计
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class FormData {
@@ -44,4 +46,20 @@ public class FormData {
     
     // 更新时间
     private LocalDateTime updatedAt;
+
+    // 由本车方量解析出的数值（m³），无法解析时为空
+    private Double volume;
+
+    // 规范的强度等级（如C30），无法解析时为空
+    private String strengthGrade;
+
+    // 版本号，每次修改加一，作为ETag用于条件请求
+    private Long version;
+
+    // 表单图片的SHA-256摘要，对应图片存储中的文件
+    private String imageHash;
+
+    // 上传识别请求各阶段的耗时（毫秒），只在上传时请求返回耗时才有值，不入库
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Double> timings;
 }
\ No newline at end of file
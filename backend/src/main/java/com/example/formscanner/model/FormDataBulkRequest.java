@@ -0,0 +1,47 @@
+package com.example.formscanner.model;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量操作请求
+ * 通过ID列表和筛选条件选择表单数据，至少需要其中之一
+ */
+@Data
+public class FormDataBulkRequest {
+    // 表单数据ID（可选）
+    private List<Long> ids;
+
+    // 筛选条件（可选）
+    private Filter filter;
+
+    // 批量修改的字段和新值，值为null时将字段置空（仅批量修改）
+    private Map<String, Object> fields;
+
+    // 重新识别使用的OCR识别器类型，为空时使用原任务的识别器（仅重新识别）
+    private String ocrType;
+
+    /**
+     * 筛选条件，与列表接口的筛选参数相同
+     */
+    @Data
+    public static class Filter {
+        // 工程名称（精确匹配）
+        private String projectName;
+
+        // 施工单位（精确匹配）
+        private String constructionUnit;
+
+        // 强度等级（精确匹配）
+        private String strengthLevel;
+
+        // 创建日期下限，包含当天
+        private LocalDate createdFrom;
+
+        // 创建日期上限，包含当天
+        private LocalDate createdTo;
+    }
+}
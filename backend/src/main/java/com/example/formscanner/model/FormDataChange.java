@@ -0,0 +1,25 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 变更日志中的一条记录
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataChange {
+    // 变更序号
+    private Long seq;
+
+    // 表单数据ID
+    private Long formId;
+
+    // 是否已删除
+    private Boolean deleted;
+
+    // 表单数据的当前内容，已删除时为空
+    private FormData formData;
+}
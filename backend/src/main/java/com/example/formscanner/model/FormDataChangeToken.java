@@ -0,0 +1,44 @@
+package com.example.formscanner.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 增量同步令牌
+ * 记录客户端已同步到的变更序号，下次同步只读取序号更大的变更。对客户端是不透明的字符串
+ * @param seq 已同步的最后一个变更序号
+ */
+public record FormDataChangeToken(long seq) {
+    /**
+     * 从头开始同步的令牌
+     */
+    public static final FormDataChangeToken INITIAL = new FormDataChangeToken(0);
+
+    /**
+     * 编码为URL安全的字符串
+     * @return 令牌字符串
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(seq).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析令牌字符串
+     * @param token 令牌字符串
+     * @return 增量同步令牌
+     * @throws IllegalArgumentException 如果令牌格式不正确
+     */
+    public static FormDataChangeToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            long seq = Long.parseLong(raw);
+            if (seq < 0) {
+                throw new IllegalArgumentException("变更序号不能为负数");
+            }
+            return new FormDataChangeToken(seq);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的同步令牌: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 一次增量同步的结果
+ * 每条表单最多出现一次：新增或修改的在items中（当前内容），删除的在deletedIds中
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataChanges {
+    // 新增或修改的表单数据
+    private List<FormData> items;
+
+    // 已删除的表单数据ID
+    private List<Long> deletedIds;
+
+    // 下次同步传入的令牌，没有新的变更时与本次传入的相同
+    private String nextToken;
+
+    // 是否还有更多变更，为true时应立即用nextToken继续同步
+    private boolean hasMore;
+}
@@ -0,0 +1,50 @@
+package com.example.formscanner.model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 表单列表的分页游标
+ * 记录上一页最后一条数据的创建时间和ID，下一页从该位置之后继续查询，
+ * 查询代价与翻到第几页无关。对客户端是不透明的字符串
+ * @param createdAt 上一页最后一条数据的创建时间
+ * @param id 上一页最后一条数据的ID
+ */
+public record FormDataCursor(LocalDateTime createdAt, Long id) {
+    /**
+     * 根据一页中的最后一条数据生成游标
+     * @param formData 最后一条数据
+     * @return 分页游标
+     */
+    public static FormDataCursor after(FormData formData) {
+        return new FormDataCursor(formData.getCreatedAt(), formData.getId());
+    }
+
+    /**
+     * 编码为URL安全的字符串
+     * @return 游标字符串
+     */
+    public String encode() {
+        String raw = createdAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     * @param cursor 游标字符串
+     * @return 分页游标
+     * @throws IllegalArgumentException 如果游标格式不正确
+     */
+    public static FormDataCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(',');
+            return new FormDataCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor, e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 表单导出条件
+ * 未设置的条件不参与过滤；设置了变更序号下限时为增量导出，按变更序号顺序读取
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataExportFilter {
+    // 工程名称（精确匹配）
+    private String projectName;
+
+    // 施工单位（精确匹配）
+    private String constructionUnit;
+
+    // 强度等级（精确匹配）
+    private String strengthLevel;
+
+    // 创建时间下限（包含）
+    private LocalDateTime createdFrom;
+
+    // 创建时间上限（不包含）
+    private LocalDateTime createdTo;
+
+    // 变更序号下限（不包含），即上次导出的水位
+    private Long changeSeqAfter;
+
+    // 变更序号上限（包含），即本次导出的水位
+    private Long changeSeqUntil;
+}
@@ -0,0 +1,41 @@
+package com.example.formscanner.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 增量导出的水位令牌
+ * 记录本次导出包含的最后一个变更序号（form_change.seq），下次导出只读取序号更大的变更。
+ * 变更序号在写事务中分配，所有写操作经同一个写连接串行提交，读到序号N时序号不大于N的变更都已提交，
+ * 不会像按修改时间划分水位那样遗漏修改时间较早、提交较晚的数据。对客户端是不透明的字符串
+ * @param seq 本次导出包含的最后一个变更序号
+ */
+public record FormDataExportToken(long seq) {
+    /**
+     * 编码为URL安全的字符串
+     * @return 令牌字符串
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(seq).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析令牌字符串
+     * @param token 令牌字符串
+     * @return 导出水位令牌
+     * @throws IllegalArgumentException 如果令牌格式不正确
+     */
+    public static FormDataExportToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            long seq = Long.parseLong(raw);
+            if (seq < 0) {
+                throw new IllegalArgumentException("变更序号不能为负数");
+            }
+            return new FormDataExportToken(seq);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的导出令牌: " + token, e);
+        }
+    }
+}
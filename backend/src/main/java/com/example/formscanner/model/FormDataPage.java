@@ -0,0 +1,21 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 表单列表的一页数据
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataPage {
+    // 本页数据
+    private List<FormData> items;
+
+    // 下一页的游标，没有更多数据时为空
+    private String nextCursor;
+}
@@ -0,0 +1,32 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 表单数据的部分更新
+ * 只更新fields中出现的列，值为null时将该列置空；同时递增版本号
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataPatch {
+    // 表单数据ID
+    private Long id;
+
+    // 要更新的列和新值，列名必须来自可修改列的白名单
+    private Map<String, Object> fields;
+
+    // 期望的当前版本号，当前版本是其中之一才更新，为空时不检查版本
+    private Collection<Long> expectedVersions;
+
+    // 更新时间
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,39 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 表单列表查询条件
+ * 结果按创建时间和ID倒序排列，未设置的条件不参与过滤
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataQuery {
+    // 工程名称（精确匹配）
+    private String projectName;
+
+    // 施工单位（精确匹配）
+    private String constructionUnit;
+
+    // 强度等级（精确匹配）
+    private String strengthLevel;
+
+    // 创建时间下限（包含）
+    private LocalDateTime createdFrom;
+
+    // 创建时间上限（不包含）
+    private LocalDateTime createdTo;
+
+    // 分页游标，只返回排在游标之后的数据
+    private FormDataCursor after;
+
+    // 每页条数
+    private int limit;
+}
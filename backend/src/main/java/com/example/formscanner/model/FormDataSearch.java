@@ -0,0 +1,70 @@
+package com.example.formscanner.model;
+
+import com.example.formscanner.util.SearchBigrams;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 表单全文检索条件
+ * 不少于3个字符的关键词使用trigram全文索引匹配并按相关度排序，
+ * 两个字符的关键词使用二元分词索引匹配，只有单个字符（或含标点）的关键词在候选结果上按LIKE过滤
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataSearch {
+    // trigram索引的FTS5查询表达式，没有不少于3个字符的关键词时为空
+    private String matchQuery;
+
+    // 二元分词索引的FTS5查询表达式，没有两个字符的关键词时为空
+    private String bigramQuery;
+
+    // 短关键词的LIKE匹配模式
+    private List<String> likePatterns;
+
+    // 每页条数
+    private int limit;
+
+    // 跳过的条数
+    private int offset;
+
+    /**
+     * 按关键词长度选择匹配方式
+     * @param terms 关键词
+     * @param limit 每页条数
+     * @param offset 跳过的条数
+     * @return 检索条件
+     */
+    public static FormDataSearch of(String[] terms, int limit, int offset) {
+        List<String> matchTerms = new ArrayList<>();
+        List<String> bigramTerms = new ArrayList<>();
+        List<String> likePatterns = new ArrayList<>();
+        for (String term : terms) {
+            if (term.codePointCount(0, term.length()) >= 3) {
+                // 双引号内作为短语匹配，避免关键词被解析为FTS5运算符
+                matchTerms.add(quote(term));
+            } else if (SearchBigrams.isIndexable(term)) {
+                bigramTerms.add(quote(term));
+            } else {
+                likePatterns.add("%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%");
+            }
+        }
+        return FormDataSearch.builder()
+                .matchQuery(matchTerms.isEmpty() ? null : String.join(" ", matchTerms))
+                .bigramQuery(bigramTerms.isEmpty() ? null : String.join(" ", bigramTerms))
+                .likePatterns(likePatterns)
+                .limit(limit)
+                .offset(offset)
+                .build();
+    }
+
+    private static String quote(String term) {
+        return "\"" + term.replace("\"", "\"\"") + "\"";
+    }
+}
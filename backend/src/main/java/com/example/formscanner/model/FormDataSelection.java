@@ -0,0 +1,46 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量操作选中的表单数据
+ * 按ID列表和筛选条件选择，同时设置时取交集，未设置的条件不参与过滤
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormDataSelection {
+    // 表单数据ID
+    private List<Long> ids;
+
+    // 工程名称（精确匹配）
+    private String projectName;
+
+    // 施工单位（精确匹配）
+    private String constructionUnit;
+
+    // 强度等级（精确匹配）
+    private String strengthLevel;
+
+    // 创建时间下限（包含）
+    private LocalDateTime createdFrom;
+
+    // 创建时间上限（不包含）
+    private LocalDateTime createdTo;
+
+    /**
+     * 是否没有任何选择条件，没有条件的批量操作会作用于全部数据，应当拒绝
+     * @return 是否为空
+     */
+    public boolean isEmpty() {
+        return (ids == null || ids.isEmpty()) && projectName == null && constructionUnit == null
+                && strengthLevel == null && createdFrom == null && createdTo == null;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 识别器的原始输出，压缩后与表单数据一对一保存
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormRawOcr {
+    // 表单数据ID
+    private Long formDataId;
+
+    // 产生该输出的OCR识别器类型，重新提取时使用同一识别器的提取规则
+    private String ocrType;
+
+    // 压缩方式
+    private String encoding;
+
+    // 压缩前的字节数
+    private Integer rawSize;
+
+    // 压缩后的内容
+    private byte[] content;
+
+    // 最近一次由识别或提取写入表单时的版本号
+    private Long extractedVersion;
+
+    // 识别时间
+    private LocalDateTime recognizedAt;
+
+    // 表单数据的当前内容（仅重新提取时查询）
+    private FormData formData;
+}
@@ -0,0 +1,27 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 表单统计：一个分组的单数和方量合计
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FormStats {
+    // 分组值：工程名称、施工单位或日期（yyyy-MM-dd），为空时是空字符串
+    private String key;
+
+    // 单数
+    private Long formCount;
+
+    // 方量可解析的单数
+    private Long volumeCount;
+
+    // 方量合计（m³）
+    private Double totalVolume;
+}
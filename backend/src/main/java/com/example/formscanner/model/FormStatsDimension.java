@@ -0,0 +1,34 @@
+package com.example.formscanner.model;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * 表单统计维度，对应form_stats表的dimension列
+ */
+public enum FormStatsDimension {
+    // 按工程名称
+    PROJECT,
+    // 按施工单位
+    UNIT,
+    // 按创建日期
+    DAY;
+
+    /**
+     * 获取维度在统计表中的键
+     * @return 维度键
+     */
+    public String getKey() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 根据维度键查找统计维度
+     * @param key 维度键（不区分大小写）
+     * @return 统计维度，不存在时返回空
+     */
+    public static Optional<FormStatsDimension> fromKey(String key) {
+        return Arrays.stream(values()).filter(dimension -> dimension.getKey().equalsIgnoreCase(key)).findFirst();
+    }
+}
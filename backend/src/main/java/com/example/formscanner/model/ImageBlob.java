@@ -0,0 +1,32 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图片存储中的一张图片，按内容的SHA-256摘要唯一
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImageBlob {
+    // 内容的SHA-256摘要（十六进制小写）
+    private String hash;
+
+    // 文件扩展名（不含点）
+    private String extension;
+
+    // 文件大小（字节）
+    private Long size;
+
+    // 第一次保存的时间
+    private LocalDateTime createdAt;
+
+    // 最近一次保存的时间
+    private LocalDateTime lastUsedAt;
+}
@@ -0,0 +1,76 @@
+package com.example.formscanner.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * OCR识别任务实体类
+ * 图片保存后即持久化任务记录，进程崩溃或重启后可以继续处理未完成的任务
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OcrJob {
+    public static final String STATE_PENDING = "PENDING";
+
+    public static final String STATE_RUNNING = "RUNNING";
+
+    public static final String STATE_DONE = "DONE";
+
+    public static final String STATE_FAILED = "FAILED";
+
+    private Long id;
+
+    // 已保存的图片路径
+    private String imagePath;
+
+    // 图片的SHA-256摘要，处理中的任务引用的图片不会被回收
+    private String imageHash;
+
+    // 原始文件名
+    private String originalFilename;
+
+    // OCR识别器类型
+    private String ocrType;
+
+    // 优先级类别
+    private OcrPriority priority;
+
+    // 任务状态
+    private String state;
+
+    // 已尝试次数
+    private Integer attempts;
+
+    // 最大尝试次数
+    private Integer maxAttempts;
+
+    // 租约持有者（节点ID）
+    private String leaseOwner;
+
+    // 本次领取的令牌，完成任务时校验，防止租约过期后被重复提交
+    private String leaseToken;
+
+    // 租约到期时间（毫秒时间戳）
+    private Long leaseUntil;
+
+    // 识别完成后的表单ID；重新识别任务在创建时即关联要更新的表单
+    private Long formDataId;
+
+    // 最近一次失败的错误信息
+    private String lastError;
+
+    // 处理时各阶段的耗时，格式为"阶段名=纳秒"并以逗号分隔，等待任务的同步上传据此返回Server-Timing
+    private String stageNanos;
+
+    // 创建时间
+    private LocalDateTime createdAt;
+
+    // 更新时间
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,15 @@
+package com.example.formscanner.model;
+
+/**
+ * OCR识别优先级类别
+ * 识别器繁忙时按各类别的权重加权公平地分配识别许可，
+ * 以序号持久化到任务表中，新增类别只能追加在末尾
+ */
+public enum OcrPriority {
+    // 交互式上传，用户在页面上等待结果
+    INTERACTIVE,
+    // 批量导入，如热文件夹、多页文档和批量提交的任务
+    BATCH,
+    // 重新识别历史数据
+    REPROCESS
+}
@@ -0,0 +1,106 @@
+package com.example.formscanner.model;
+
+import lombok.Getter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 重新提取任务的进度
+ */
+@Getter
+public class ReextractionProgress {
+    public enum Status {
+        // 排队等待
+        QUEUED,
+        // 正在提取
+        PROCESSING,
+        // 已完成
+        COMPLETED,
+        // 因错误中止
+        FAILED
+    }
+
+    // 任务ID
+    private final String id;
+
+    // 提交时间
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+
+    // 任务状态
+    private volatile Status status = Status.QUEUED;
+
+    // 开始时间
+    private volatile LocalDateTime startedAt;
+
+    // 完成时间
+    private volatile LocalDateTime finishedAt;
+
+    // 错误信息
+    private volatile String error;
+
+    private final AtomicInteger scanned = new AtomicInteger();
+
+    private final AtomicInteger updated = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    public ReextractionProgress(String id) {
+        this.id = id;
+    }
+
+    /**
+     * 已读取的原始输出数
+     */
+    public int getScanned() {
+        return scanned.get();
+    }
+
+    /**
+     * 提取结果与当前内容不同、已更新的表单数
+     */
+    public int getUpdated() {
+        return updated.get();
+    }
+
+    /**
+     * 原始输出无法解析的表单数
+     */
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 每秒处理的表单数
+     */
+    public double getFormsPerSecond() {
+        if (startedAt == null) {
+            return 0;
+        }
+        long millis = Duration.between(startedAt, finishedAt != null ? finishedAt : LocalDateTime.now()).toMillis();
+        return millis > 0 ? scanned.get() * 1000.0 / millis : 0;
+    }
+
+    public void start() {
+        startedAt = LocalDateTime.now();
+        status = Status.PROCESSING;
+    }
+
+    public void batchCompleted(int scannedForms, int updatedForms, int failedForms) {
+        scanned.addAndGet(scannedForms);
+        updated.addAndGet(updatedForms);
+        failed.addAndGet(failedForms);
+    }
+
+    public void finish() {
+        finishedAt = LocalDateTime.now();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = LocalDateTime.now();
+        status = Status.FAILED;
+    }
+}
@@ -1,9 +1,24 @@
 package com.example.formscanner.service;
 
+import com.example.formscanner.exception.FormDataVersionConflictException;
 import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataChanges;
+import com.example.formscanner.model.FormDataExportFilter;
+import com.example.formscanner.model.FormDataExportToken;
+import com.example.formscanner.model.FormDataPage;
+import com.example.formscanner.model.FormDataQuery;
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.FormStats;
+import com.example.formscanner.model.FormStatsDimension;
+import com.example.formscanner.service.export.FormDataExporter;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -24,7 +39,49 @@ public interface FormDataService {
      * @return 表单数据列表
      */
     List<FormData> getAllFormData();
+
+    /**
+     * 按条件分页获取表单数据
+     * @param query 查询条件
+     * @return 一页表单数据
+     */
+    FormDataPage getFormDataPage(FormDataQuery query);
+
+    /**
+     * 按关键词全文检索表单数据，结果按相关度排序
+     * @param keywords 以空格分隔的关键词，匹配工程名称、施工单位、工程地址和施工部位
+     * @param cursor 上一页返回的游标（可选，为空时返回第一页）
+     * @param limit 每页条数
+     * @return 一页表单数据和下一页的游标
+     * @throws IllegalArgumentException 如果关键词或游标无效
+     */
+    FormDataPage searchFormData(String keywords, String cursor, int limit);
+
+    /**
+     * 获取指定令牌之后新增、修改和删除的表单数据
+     * @param since 上次同步返回的令牌（可选，为空时从头开始同步全部数据）
+     * @param limit 最多返回的变更条数
+     * @return 变更的表单数据和下次同步的令牌
+     * @throws IllegalArgumentException 如果令牌无效
+     */
+    FormDataChanges getFormDataChanges(String since, int limit);
+
+    /**
+     * 获取当前的同步令牌，客户端加载完整列表前先获取，之后从该令牌开始增量同步
+     * @return 同步令牌
+     */
+    String getLatestChangeToken();
     
+    /**
+     * 按维度获取表单统计，统计由数据库增量维护，查询代价只与分组数有关
+     * @param dimension 统计维度
+     * @param from 分组下限（包含，仅按日期统计时有效）
+     * @param to 分组上限（包含，仅按日期统计时有效）
+     * @param limit 最多返回的分组数
+     * @return 各分组的统计
+     */
+    List<FormStats> getFormStats(FormStatsDimension dimension, LocalDate from, LocalDate to, int limit);
+
     /**
      * 根据ID获取表单数据
      * @param id 表单数据ID
@@ -33,21 +90,65 @@ public interface FormDataService {
     Optional<FormData> getFormDataById(Long id);
     
     /**
-     * 保存表单数据
-     * @param formData 表单数据
-     * @return 保存后的表单数据
+     * 修改表单数据，只更新传入的字段，版本号加一
+     * @param id 表单数据ID
+     * @param changes 要修改的字段和新值，值为null时将字段置空
+     * @param expectedVersions 期望的当前版本号，当前版本是其中之一才修改，为空时不检查版本
+     * @return 修改后的表单数据，数据不存在时为空
+     * @throws IllegalArgumentException 包含不可修改的字段
+     * @throws FormDataVersionConflictException 当前版本不是期望的版本之一
      */
-    FormData saveFormData(FormData formData);
+    Optional<FormData> updateFormData(Long id, Map<String, String> changes, Collection<Long> expectedVersions);
     
     /**
      * 删除表单数据
      * @param id 表单数据ID
+     * @param expectedVersions 期望的当前版本号，当前版本是其中之一才删除，为空时不检查版本
+     * @return 是否删除了数据，数据不存在时返回false
+     * @throws FormDataVersionConflictException 当前版本不是期望的版本之一
+     */
+    boolean deleteFormData(Long id, Collection<Long> expectedVersions);
+
+    /**
+     * 批量修改选中的表单数据，各自的版本号加一
+     * @param selection 选择条件，至少需要ID或一个筛选条件
+     * @param changes 要修改的字段和新值，值为null时将字段置空
+     * @return 修改的条数
+     * @throws IllegalArgumentException 没有选择条件、没有要修改的字段或包含不可修改的字段
+     */
+    int bulkUpdateFormData(FormDataSelection selection, Map<String, String> changes);
+
+    /**
+     * 批量删除选中的表单数据
+     * @param selection 选择条件，至少需要ID或一个筛选条件
+     * @return 删除的条数
+     * @throws IllegalArgumentException 没有选择条件
+     */
+    int bulkDeleteFormData(FormDataSelection selection);
+
+    /**
+     * 重新识别选中的表单，使用原图片创建重新识别任务，识别完成后更新原表单
+     * 没有已完成的识别任务（如不是经识别入库的数据）和已在重新识别中的表单会跳过
+     * @param selection 选择条件，至少需要ID或一个筛选条件
+     * @param ocrType OCR识别器类型，为空时沿用原任务的识别器
+     * @return 创建的任务数
+     * @throws IllegalArgumentException 没有选择条件或识别器类型不存在
      */
-    void deleteFormData(Long id);
+    int reprocessFormData(FormDataSelection selection, String ocrType);
     
     /**
-     * 导出表单数据为Excel
-     * @return Excel文件的字节数组
+     * 生成本次导出的水位令牌，导出只包含变更序号不大于该水位的数据
+     * @return 导出水位令牌
+     */
+    FormDataExportToken newExportToken();
+
+    /**
+     * 按条件导出表单数据，边读取边写入输出流
+     * @param filter 导出条件
+     * @param exporter 导出格式
+     * @param outputStream 输出流
+     * @throws IOException 如果写入失败
      */
-    byte[] exportToExcel();
+    void exportFormData(FormDataExportFilter filter, FormDataExporter exporter, OutputStream outputStream)
+            throws IOException;
 }
\ No newline at end of file
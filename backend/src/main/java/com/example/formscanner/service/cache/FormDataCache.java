@@ -0,0 +1,83 @@
+package com.example.formscanner.service.cache;
+
+import com.example.formscanner.model.FormData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * 单条表单数据的本地缓存
+ * 按估算的内存占用限制总大小，超出时淘汰最近最少使用的数据，写入后超过有效期自动失效。
+ * 修改和删除提交后使对应数据失效；正在加载的数据被失效时，加载结果不会留在缓存中。
+ * 多节点部署时其他节点的修改不会使本节点的缓存失效，过期数据最多保留一个有效期。
+ * 缓存的对象不直接交给调用方，每次返回副本，避免调用方修改缓存内容
+ */
+@Component
+public class FormDataCache {
+    // 每个缓存条目的固定开销估算（字节）：对象头、引用、时间和数值字段
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final Cache<Long, FormData> cache;
+
+    public FormDataCache(MeterRegistry meterRegistry,
+                         @Value("${form.scanner.cache.form-data.max-size:16MB}") DataSize maxSize,
+                         @Value("${form.scanner.cache.form-data.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Long id, FormData formData) -> estimateSize(formData))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // 命中、未命中、淘汰次数和条目数：cache.gets、cache.evictions、cache.size等，标签cache=formData
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "formData");
+    }
+
+    /**
+     * 读取表单数据，未命中时通过加载函数查询并放入缓存，不存在的数据不缓存
+     * @param id 表单数据ID
+     * @param loader 加载函数
+     * @return 表单数据的副本
+     */
+    public Optional<FormData> get(Long id, Function<Long, FormData> loader) {
+        return Optional.ofNullable(cache.get(id, loader)).map(formData -> formData.toBuilder().build());
+    }
+
+    /**
+     * 使表单数据失效，应在修改或删除提交之后调用
+     * @param id 表单数据ID
+     */
+    public void invalidate(Long id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * 使全部表单数据失效，用于按条件批量修改或删除之后
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static int estimateSize(FormData formData) {
+        int size = ENTRY_OVERHEAD;
+        for (String value : new String[] {
+                formData.getLogId(), formData.getProjectName(), formData.getConstructionUnit(),
+                formData.getProjectAddress(), formData.getConstructionPart(), formData.getStrengthLevel(),
+                formData.getCurrentVolume(), formData.getStrengthGrade()}) {
+            if (value != null) {
+                // String对象头加上字符数据，中文按UTF-16每字符两字节
+                size += 40 + value.length() * 2;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.formscanner.service.document;
+
+import com.example.formscanner.exception.OcrJobPendingException;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.model.DocumentProgress;
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.OcrPriority;
+import com.example.formscanner.service.impl.FormDataServiceImpl;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 多页文档导入服务
+ * 将PDF或多页TIFF逐页渲染为图片，每页作为一张独立的表单并行识别。
+ * 渲染线程在进入下一页前需要获取许可，同一文档同时在内存和磁盘中的页面数不超过并行度
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DocumentIngestionService {
+    private final FormDataServiceImpl formDataService;
+
+    @Value("${form.scanner.upload-dir}")
+    private String uploadDir;
+
+    @Value("${form.scanner.default-ocr-type:tesseract}")
+    private String defaultOcrType;
+
+    // 同时识别的页面数
+    @Value("${form.scanner.document.page-parallelism:4}")
+    private int pageParallelism;
+
+    // 同时拆分的文档数
+    @Value("${form.scanner.document.max-concurrent-documents:2}")
+    private int maxConcurrentDocuments;
+
+    // PDF渲染分辨率
+    @Value("${form.scanner.document.render-dpi:200}")
+    private float renderDpi;
+
+    // 识别器繁忙时单页的最大重试次数
+    @Value("${form.scanner.document.max-page-retries:5}")
+    private int maxPageRetries;
+
+    // 内存中保留的已完成任务数
+    @Value("${form.scanner.document.retained-jobs:200}")
+    private int retainedJobs;
+
+    private final Map<String, DocumentProgress> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService documentExecutor;
+
+    private ExecutorService pageExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger documentCounter = new AtomicInteger();
+        documentExecutor = Executors.newFixedThreadPool(maxConcurrentDocuments, runnable -> {
+            Thread thread = new Thread(runnable, "document-splitter-" + documentCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger pageCounter = new AtomicInteger();
+        pageExecutor = Executors.newFixedThreadPool(pageParallelism * maxConcurrentDocuments, runnable -> {
+            Thread thread = new Thread(runnable, "document-page-" + pageCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        documentExecutor.shutdownNow();
+        pageExecutor.shutdownNow();
+    }
+
+    /**
+     * 判断上传文件是否为多页文档
+     * @param file 上传的文件
+     * @return 是否为PDF或TIFF
+     */
+    public boolean isMultiPageDocument(MultipartFile file) {
+        return MultiPageDocument.isSupported(file.getOriginalFilename());
+    }
+
+    /**
+     * 提交多页文档，异步拆分并识别
+     * @param file 上传的PDF或TIFF文件
+     * @param ocrType OCR识别器类型（可选）
+     * @return 文档识别进度
+     */
+    public DocumentProgress submit(MultipartFile file, String ocrType) {
+        String originalFilename = file.getOriginalFilename();
+        if (!MultiPageDocument.isSupported(originalFilename)) {
+            throw new IllegalArgumentException("仅支持PDF和TIFF格式的多页文档: " + originalFilename);
+        }
+
+        String id = UUID.randomUUID().toString();
+        String resolvedOcrType = ocrType != null && !ocrType.isEmpty() ? ocrType : defaultOcrType;
+        DocumentProgress progress = new DocumentProgress(id, originalFilename, resolvedOcrType);
+
+        Path documentPath;
+        try {
+            // 先将文档保存到磁盘，后续按页从文件中读取，不在内存中保留整个文档
+            Path documentDir = Paths.get(uploadDir, "documents");
+            Files.createDirectories(documentDir);
+            documentPath = documentDir.resolve(id + originalFilename.substring(originalFilename.lastIndexOf('.')));
+            try (InputStream inputStream = file.getInputStream()) {
+                Files.copy(inputStream, documentPath);
+            }
+        } catch (IOException e) {
+            log.error("保存多页文档时发生错误", e);
+            throw new RuntimeException("保存多页文档失败: " + e.getMessage(), e);
+        }
+
+        evictFinishedJobs();
+        jobs.put(id, progress);
+        documentExecutor.execute(() -> processDocument(documentPath, progress));
+        return progress;
+    }
+
+    /**
+     * 查询文档识别进度
+     * @param id 文档任务ID
+     * @return 文档识别进度
+     */
+    public Optional<DocumentProgress> getProgress(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void processDocument(Path documentPath, DocumentProgress progress) {
+        Path pageDir = documentPath.resolveSibling(progress.getId() + "_pages");
+        try (MultiPageDocument document = MultiPageDocument.open(documentPath, renderDpi)) {
+            int pageCount = document.getPageCount();
+            progress.start(pageCount);
+            log.info("开始识别多页文档: {}, 共 {} 页", progress.getFileName(), pageCount);
+            Files.createDirectories(pageDir);
+
+            Semaphore inFlightPages = new Semaphore(pageParallelism);
+            CountDownLatch remainingPages = new CountDownLatch(pageCount);
+            for (int pageIndex = 0; pageIndex < pageCount; pageIndex++) {
+                int pageNumber = pageIndex + 1;
+                inFlightPages.acquire();
+                Path pageFile;
+                try {
+                    pageFile = renderPage(document, pageIndex, pageDir);
+                } catch (IOException | RuntimeException e) {
+                    log.error("渲染第 {} 页失败: {}", pageNumber, progress.getFileName(), e);
+                    progress.pageFailed(pageNumber, "渲染失败: " + e.getMessage());
+                    inFlightPages.release();
+                    remainingPages.countDown();
+                    continue;
+                }
+
+                pageExecutor.execute(() -> {
+                    try {
+                        recognizePage(pageFile, pageNumber, progress);
+                    } finally {
+                        inFlightPages.release();
+                        remainingPages.countDown();
+                    }
+                });
+            }
+
+            remainingPages.await();
+            progress.finish();
+            log.info("多页文档识别完成: {}, 成功 {} 页, 失败 {} 页",
+                    progress.getFileName(), progress.getCompletedPages(), progress.getFailedPages());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.fail("识别被中断");
+        } catch (Exception e) {
+            log.error("处理多页文档时发生错误: {}", progress.getFileName(), e);
+            progress.fail(e.getMessage());
+        } finally {
+            // 各页图片已保存到图片存储中，原文档和渲染的页面不再保留
+            deleteQuietly(pageDir);
+            deleteQuietly(documentPath);
+        }
+    }
+
+    private Path renderPage(MultiPageDocument document, int pageIndex, Path pageDir) throws IOException {
+        BufferedImage image = document.renderPage(pageIndex);
+        Path pageFile = pageDir.resolve(String.format("page-%04d.png", pageIndex + 1));
+        if (!ImageIO.write(image, "png", pageFile.toFile())) {
+            throw new IOException("无法写入页面图像: " + pageFile);
+        }
+        image.flush();
+        return pageFile;
+    }
+
+    private void recognizePage(Path pageFile, int pageNumber, DocumentProgress progress) {
+        try {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    FormData formData = formDataService.processFormImage(pageFile, progress.getOcrType(), OcrPriority.BATCH);
+                    progress.pageCompleted(pageNumber, formData);
+                    return;
+                } catch (OcrJobPendingException e) {
+                    // 共享任务模式下页面已入队，结果可通过任务ID查询
+                    progress.pageQueued(pageNumber, e.getJob().getId());
+                    return;
+                } catch (OcrRejectedException e) {
+                    // 批量文档不需要快速失败，识别器繁忙时等待后重试
+                    if (attempt >= maxPageRetries) {
+                        throw e;
+                    }
+                    Thread.sleep(e.getRetryAfter().toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.pageFailed(pageNumber, "识别被中断");
+        } catch (Exception e) {
+            log.error("识别第 {} 页失败: {}", pageNumber, progress.getFileName(), e);
+            progress.pageFailed(pageNumber, e.getMessage());
+        } finally {
+            deleteQuietly(pageFile);
+        }
+    }
+
+    /**
+     * 清理较早完成的任务，避免进度记录无限增长
+     */
+    private void evictFinishedJobs() {
+        if (jobs.size() < retainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getFinishedAt() != null)
+                .sorted((a, b) -> a.getFinishedAt().compareTo(b.getFinishedAt()))
+                .limit(Math.max(1, jobs.size() - retainedJobs + 1))
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> stream = Files.list(path)) {
+                    stream.forEach(this::deleteQuietly);
+                }
+            }
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除临时文件失败: {}", path, e);
+        }
+    }
+}
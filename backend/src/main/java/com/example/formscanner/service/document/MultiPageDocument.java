@@ -0,0 +1,68 @@
+package com.example.formscanner.service.document;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * 多页文档
+ * 按页延迟渲染，任意时刻只有当前页的图像在内存中
+ */
+public interface MultiPageDocument extends AutoCloseable {
+    /**
+     * 获取总页数
+     *
+     * @return 总页数
+     */
+    int getPageCount();
+
+    /**
+     * 渲染指定页
+     *
+     * @param pageIndex 页码，从0开始
+     * @return 该页的图像
+     * @throws IOException 如果渲染失败
+     */
+    BufferedImage renderPage(int pageIndex) throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    /**
+     * 判断文件是否为支持的多页文档格式
+     *
+     * @param filename 文件名
+     * @return 是否支持
+     */
+    static boolean isSupported(String filename) {
+        String extension = extensionOf(filename);
+        return "pdf".equals(extension) || "tif".equals(extension) || "tiff".equals(extension);
+    }
+
+    /**
+     * 打开多页文档
+     *
+     * @param file 文档文件
+     * @param renderDpi PDF渲染分辨率
+     * @return 多页文档
+     * @throws IOException 如果文件无法打开
+     */
+    static MultiPageDocument open(Path file, float renderDpi) throws IOException {
+        String extension = extensionOf(file.getFileName().toString());
+        if ("pdf".equals(extension)) {
+            return new PdfDocument(file, renderDpi);
+        }
+        if ("tif".equals(extension) || "tiff".equals(extension)) {
+            return new TiffDocument(file);
+        }
+        throw new IOException("不支持的多页文档格式: " + file.getFileName());
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.formscanner.service.document;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * PDF文档
+ * 使用临时文件作为PDFBox的缓存，文件内容不整体读入内存，每次只渲染一页
+ */
+class PdfDocument implements MultiPageDocument {
+    private final PDDocument document;
+
+    private final PDFRenderer renderer;
+
+    private final float renderDpi;
+
+    PdfDocument(Path file, float renderDpi) throws IOException {
+        this.document = PDDocument.load(file.toFile(), MemoryUsageSetting.setupTempFileOnly());
+        this.renderer = new PDFRenderer(document);
+        this.renderDpi = renderDpi;
+    }
+
+    @Override
+    public int getPageCount() {
+        return document.getNumberOfPages();
+    }
+
+    @Override
+    public BufferedImage renderPage(int pageIndex) throws IOException {
+        // 识别只需要灰度图，内存占用为RGB的三分之一
+        return renderer.renderImageWithDPI(pageIndex, renderDpi, ImageType.GRAY);
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+}
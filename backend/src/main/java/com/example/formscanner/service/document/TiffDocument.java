@@ -0,0 +1,53 @@
+package com.example.formscanner.service.document;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * 多页TIFF文档
+ * 通过ImageReader按索引读取单页，不会解码其他页的像素数据
+ */
+class TiffDocument implements MultiPageDocument {
+    private final ImageInputStream inputStream;
+
+    private final ImageReader reader;
+
+    private final int pageCount;
+
+    TiffDocument(Path file) throws IOException {
+        this.inputStream = ImageIO.createImageInputStream(file.toFile());
+        if (inputStream == null) {
+            throw new IOException("无法读取TIFF文件: " + file);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(inputStream);
+        if (!readers.hasNext()) {
+            inputStream.close();
+            throw new IOException("找不到TIFF解码器: " + file);
+        }
+        this.reader = readers.next();
+        // 允许回退读取，页面可以按任意顺序访问；忽略元数据以减少内存占用
+        reader.setInput(inputStream, false, true);
+        this.pageCount = reader.getNumImages(true);
+    }
+
+    @Override
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    @Override
+    public BufferedImage renderPage(int pageIndex) throws IOException {
+        return reader.read(pageIndex);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.dispose();
+        inputStream.close();
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.formscanner.service.export;
+
+import com.example.formscanner.model.FormData;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 表单数据导出写入器
+ * 一次导出对应一个写入器，内存占用不随写入的行数增长
+ */
+public interface FormDataExportWriter extends Closeable {
+    /**
+     * 写入一行数据
+     *
+     * @param formData 表单数据
+     * @throws IOException 如果写入失败
+     */
+    void write(FormData formData) throws IOException;
+
+    /**
+     * 写入剩余的缓冲内容和文件尾，不关闭输出流
+     *
+     * @throws IOException 如果写入失败
+     */
+    void finish() throws IOException;
+
+    /**
+     * 释放写入器占用的资源（临时文件、堆外内存等），未调用finish时导出内容不完整
+     *
+     * @throws IOException 如果释放失败
+     */
+    @Override
+    void close() throws IOException;
+}
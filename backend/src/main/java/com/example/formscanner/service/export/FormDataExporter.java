@@ -0,0 +1,68 @@
+package com.example.formscanner.service.export;
+
+import com.example.formscanner.model.FormData;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 表单数据导出格式接口
+ * 每种导出格式一个实现，导出时为每次请求创建一个写入器，逐行写入输出流
+ */
+public interface FormDataExporter {
+    /**
+     * 表格类格式的表头
+     */
+    String[] HEADERS = {
+            "ID", "工程名称", "施工单位", "工程地址", "施工部位", "强度等级", "本车方量(m³)", "创建时间"
+    };
+
+    /**
+     * 获取导出格式名称，作为导出接口的format参数
+     *
+     * @return 导出格式名称
+     */
+    String getFormat();
+
+    /**
+     * 获取响应的内容类型
+     *
+     * @return 内容类型
+     */
+    String getContentType();
+
+    /**
+     * 获取导出文件的扩展名
+     *
+     * @return 文件扩展名（不含点）
+     */
+    String getFileExtension();
+
+    /**
+     * 创建写入器
+     *
+     * @param outputStream 输出流，由调用方关闭
+     * @return 写入器
+     * @throws IOException 如果写入失败
+     */
+    FormDataExportWriter open(OutputStream outputStream) throws IOException;
+
+    /**
+     * 按表头顺序取出一行的各列文本
+     *
+     * @param formData 表单数据
+     * @return 各列文本，空值为null
+     */
+    static String[] values(FormData formData) {
+        return new String[] {
+                formData.getId() != null ? String.valueOf(formData.getId()) : null,
+                formData.getProjectName(),
+                formData.getConstructionUnit(),
+                formData.getProjectAddress(),
+                formData.getConstructionPart(),
+                formData.getStrengthLevel(),
+                formData.getCurrentVolume(),
+                formData.getCreatedAt() != null ? formData.getCreatedAt().toString() : null
+        };
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.formscanner.service.export;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 导出格式工厂
+ * 负责管理和提供不同格式的导出实现
+ */
+@Slf4j
+@Component
+public class FormDataExporterFactory {
+    private final Map<String, FormDataExporter> exporterMap;
+
+    public FormDataExporterFactory(List<FormDataExporter> exporters) {
+        this.exporterMap = exporters.stream()
+                .collect(Collectors.toMap(FormDataExporter::getFormat, Function.identity()));
+        log.info("已加载 {} 种导出格式: {}", exporterMap.size(), String.join(", ", exporterMap.keySet()));
+    }
+
+    /**
+     * 获取指定格式的导出实现
+     * @param format 导出格式名称（不区分大小写）
+     * @return 导出实现，不支持的格式返回空
+     */
+    public Optional<FormDataExporter> getExporter(String format) {
+        return Optional.ofNullable(format).map(value -> exporterMap.get(value.toLowerCase()));
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.formscanner.service.export.impl;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.export.FormDataExportWriter;
+import com.example.formscanner.service.export.FormDataExporter;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Arrow IPC流格式导出，供pandas、DuckDB、Spark等分析工具直接按列读取
+ * 数据按固定行数分批写入，每批在堆外内存中按列组装后写出，内存占用只与批大小有关。
+ * 时间列为不带时区的微秒时间戳，与数据库中保存的本地时间一致
+ */
+@Component
+public class ArrowFormDataExporter implements FormDataExporter {
+    // 每批的行数
+    private static final int BATCH_SIZE = 4096;
+
+    private static final ArrowType TEXT = ArrowType.Utf8.INSTANCE;
+
+    private static final ArrowType TIMESTAMP = new ArrowType.Timestamp(TimeUnit.MICROSECOND, null);
+
+    private static final Schema SCHEMA = new Schema(List.of(
+            Field.notNullable("id", new ArrowType.Int(64, true)),
+            Field.nullable("logId", TEXT),
+            Field.nullable("projectName", TEXT),
+            Field.nullable("constructionUnit", TEXT),
+            Field.nullable("projectAddress", TEXT),
+            Field.nullable("constructionPart", TEXT),
+            Field.nullable("strengthLevel", TEXT),
+            Field.nullable("currentVolume", TEXT),
+            Field.nullable("createdAt", TIMESTAMP),
+            Field.nullable("updatedAt", TIMESTAMP),
+            Field.nullable("volume", new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE)),
+            Field.nullable("strengthGrade", TEXT)
+    ));
+
+    // 单次导出可使用的最大堆外内存
+    @Value("${form.scanner.export.arrow-memory-limit:64MB}")
+    private DataSize memoryLimit;
+
+    @Override
+    public String getFormat() {
+        return "arrow";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/vnd.apache.arrow.stream";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "arrows";
+    }
+
+    @Override
+    public FormDataExportWriter open(OutputStream outputStream) throws IOException {
+        BufferAllocator allocator = new RootAllocator(memoryLimit.toBytes());
+        VectorSchemaRoot root = null;
+        try {
+            root = VectorSchemaRoot.create(SCHEMA, allocator);
+            ArrowStreamWriter streamWriter = new ArrowStreamWriter(root, null, Channels.newChannel(outputStream));
+            streamWriter.start();
+            return new ArrowWriter(allocator, root, streamWriter);
+        } catch (IOException | RuntimeException e) {
+            if (root != null) {
+                root.close();
+            }
+            allocator.close();
+            throw e;
+        }
+    }
+
+    private static class ArrowWriter implements FormDataExportWriter {
+        private final BufferAllocator allocator;
+
+        private final VectorSchemaRoot root;
+
+        private final ArrowStreamWriter streamWriter;
+
+        private final BigIntVector idVector;
+
+        private final VarCharVector[] textVectors;
+
+        private final TimeStampMicroVector createdAtVector;
+
+        private final TimeStampMicroVector updatedAtVector;
+
+        private final Float8Vector volumeVector;
+
+        // 当前批中已写入的行数
+        private int count;
+
+        ArrowWriter(BufferAllocator allocator, VectorSchemaRoot root, ArrowStreamWriter streamWriter) {
+            this.allocator = allocator;
+            this.root = root;
+            this.streamWriter = streamWriter;
+            this.idVector = (BigIntVector) root.getVector("id");
+            this.textVectors = new VarCharVector[] {
+                    (VarCharVector) root.getVector("logId"),
+                    (VarCharVector) root.getVector("projectName"),
+                    (VarCharVector) root.getVector("constructionUnit"),
+                    (VarCharVector) root.getVector("projectAddress"),
+                    (VarCharVector) root.getVector("constructionPart"),
+                    (VarCharVector) root.getVector("strengthLevel"),
+                    (VarCharVector) root.getVector("currentVolume"),
+                    (VarCharVector) root.getVector("strengthGrade")
+            };
+            this.createdAtVector = (TimeStampMicroVector) root.getVector("createdAt");
+            this.updatedAtVector = (TimeStampMicroVector) root.getVector("updatedAt");
+            this.volumeVector = (Float8Vector) root.getVector("volume");
+        }
+
+        @Override
+        public void write(FormData formData) throws IOException {
+            if (count == 0) {
+                // 释放上一批的缓冲区并重新分配
+                root.allocateNew();
+            }
+            idVector.setSafe(count, formData.getId());
+            String[] texts = {
+                    formData.getLogId(),
+                    formData.getProjectName(),
+                    formData.getConstructionUnit(),
+                    formData.getProjectAddress(),
+                    formData.getConstructionPart(),
+                    formData.getStrengthLevel(),
+                    formData.getCurrentVolume(),
+                    formData.getStrengthGrade()
+            };
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i] == null) {
+                    textVectors[i].setNull(count);
+                } else {
+                    textVectors[i].setSafe(count, texts[i].getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            setTimestamp(createdAtVector, formData.getCreatedAt());
+            setTimestamp(updatedAtVector, formData.getUpdatedAt());
+            if (formData.getVolume() == null) {
+                volumeVector.setNull(count);
+            } else {
+                volumeVector.setSafe(count, formData.getVolume());
+            }
+            if (++count == BATCH_SIZE) {
+                writeBatch();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (count > 0) {
+                writeBatch();
+            }
+            // 写入流结束标记；不关闭写入器，避免关闭调用方的输出流
+            streamWriter.end();
+        }
+
+        @Override
+        public void close() {
+            root.close();
+            allocator.close();
+        }
+
+        private void setTimestamp(TimeStampMicroVector vector, LocalDateTime value) {
+            if (value == null) {
+                vector.setNull(count);
+            } else {
+                vector.setSafe(count, value.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + value.getNano() / 1_000);
+            }
+        }
+
+        private void writeBatch() throws IOException {
+            root.setRowCount(count);
+            streamWriter.writeBatch();
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.formscanner.service.export.impl;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.export.FormDataExportWriter;
+import com.example.formscanner.service.export.FormDataExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * CSV导出
+ * 按RFC 4180转义：包含逗号、双引号或换行的字段用双引号包围，字段内的双引号写成两个；
+ * 行以CRLF结尾。Excel只有在文件以BOM开头时才按UTF-8识别中文，默认写入BOM
+ */
+@Component
+public class CsvFormDataExporter implements FormDataExporter {
+    private static final char BOM = '\uFEFF';
+
+    // 是否在文件开头写入UTF-8 BOM
+    @Value("${form.scanner.export.csv-bom:true}")
+    private boolean writeBom;
+
+    @Override
+    public String getFormat() {
+        return "csv";
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/csv;charset=UTF-8";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "csv";
+    }
+
+    @Override
+    public FormDataExportWriter open(OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (writeBom) {
+            writer.write(BOM);
+        }
+        writeRecord(writer, HEADERS);
+        return new FormDataExportWriter() {
+            @Override
+            public void write(FormData formData) throws IOException {
+                writeRecord(writer, FormDataExporter.values(formData));
+            }
+
+            @Override
+            public void finish() throws IOException {
+                writer.flush();
+            }
+
+            @Override
+            public void close() {
+                // 输出流由调用方关闭，不持有其他资源
+            }
+        };
+    }
+
+    private static void writeRecord(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(writer, values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
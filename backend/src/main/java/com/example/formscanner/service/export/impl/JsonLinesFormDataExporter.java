@@ -0,0 +1,69 @@
+package com.example.formscanner.service.export.impl;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.export.FormDataExportWriter;
+import com.example.formscanner.service.export.FormDataExporter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON Lines导出
+ * 每行一个JSON对象，字段与表单接口返回的JSON一致，便于数据管道逐行读取
+ */
+@Component
+@RequiredArgsConstructor
+public class JsonLinesFormDataExporter implements FormDataExporter {
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public String getFormat() {
+        return "jsonl";
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-ndjson";
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "jsonl";
+    }
+
+    @Override
+    public FormDataExportWriter open(OutputStream outputStream) throws IOException {
+        SequenceWriter sequenceWriter = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .writeValues(outputStream);
+        return new FormDataExportWriter() {
+            private boolean empty = true;
+
+            @Override
+            public void write(FormData formData) throws IOException {
+                sequenceWriter.write(formData);
+                empty = false;
+            }
+
+            @Override
+            public void finish() throws IOException {
+                sequenceWriter.flush();
+                if (!empty) {
+                    // 最后一行同样以换行结尾
+                    outputStream.write('\n');
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                sequenceWriter.close();
+            }
+        };
+    }
+}
@@ -1,30 +1,70 @@
 package com.example.formscanner.service.impl;
 
+import com.example.formscanner.exception.ChangeTokenExpiredException;
+import com.example.formscanner.exception.FormDataVersionConflictException;
+import com.example.formscanner.exception.OcrJobLeaseLostException;
+import com.example.formscanner.exception.OcrJobPendingException;
+import com.example.formscanner.exception.OcrRejectedException;
 import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataChange;
+import com.example.formscanner.model.FormDataChangeToken;
+import com.example.formscanner.model.FormDataChanges;
+import com.example.formscanner.model.FormDataCursor;
+import com.example.formscanner.model.FormDataExportFilter;
+import com.example.formscanner.model.FormDataExportToken;
+import com.example.formscanner.model.FormDataPage;
+import com.example.formscanner.model.FormDataPatch;
+import com.example.formscanner.model.FormDataQuery;
+import com.example.formscanner.model.FormDataSearch;
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.FormRawOcr;
+import com.example.formscanner.model.FormStats;
+import com.example.formscanner.model.FormStatsDimension;
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.model.OcrPriority;
 import com.example.formscanner.mapper.FormDataMapper;
+import com.example.formscanner.mapper.FormRawOcrMapper;
+import com.example.formscanner.mapper.FormStatsMapper;
 import com.example.formscanner.service.FormDataService;
+import com.example.formscanner.service.cache.FormDataCache;
+import com.example.formscanner.service.export.FormDataExportWriter;
+import com.example.formscanner.service.export.FormDataExporter;
+import com.example.formscanner.service.job.OcrJobService;
+import com.example.formscanner.service.persistence.GroupCommitWriter;
+import com.example.formscanner.service.storage.ImageStore;
+import com.example.formscanner.util.DeflateUtil;
+import com.example.formscanner.util.FormValueParser;
+import com.example.formscanner.service.ocr.OcrBulkhead;
+import com.example.formscanner.service.ocr.OcrExecutionService;
+import com.example.formscanner.service.ocr.OcrMetrics;
 import com.example.formscanner.service.ocr.OcrRecognizer;
 import com.example.formscanner.service.ocr.OcrRecognizerFactory;
+import com.example.formscanner.service.ocr.OcrTimeline;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 /**
  * 表单数据服务实现类
@@ -34,16 +74,47 @@ import java.util.UUID;
 @Service
 @RequiredArgsConstructor
 public class FormDataServiceImpl implements FormDataService {
+    // 全文检索的最大关键词数
+    private static final int MAX_SEARCH_TERMS = 10;
+
+    // 可以通过接口修改的字段，同时也是UPDATE语句中的列名
+    private static final Set<String> EDITABLE_FIELDS = Set.of(
+            "projectName", "constructionUnit", "projectAddress",
+            "constructionPart", "strengthLevel", "currentVolume");
+
     private final FormDataMapper formDataMapper;
 
+    private final FormStatsMapper formStatsMapper;
+
+    private final FormRawOcrMapper formRawOcrMapper;
+
     private final OcrRecognizerFactory ocrRecognizerFactory;
-    
-    @Value("${form.scanner.upload-dir}")
-    private String uploadDir;
+
+    private final OcrBulkhead ocrBulkhead;
+
+    private final OcrExecutionService ocrExecutionService;
+
+    private final OcrJobService ocrJobService;
+
+    private final GroupCommitWriter groupCommitWriter;
+
+    private final FormDataCache formDataCache;
+
+    private final ImageStore imageStore;
+
+    private final OcrMetrics ocrMetrics;
     
     // 默认OCR识别器类型
     @Value("${form.scanner.default-ocr-type:tesseract}")
     private String defaultOcrType;
+
+    // 共享任务模式下同步上传等待任务完成的最长时间
+    @Value("${form.scanner.jobs.await-timeout:60s}")
+    private Duration awaitTimeout;
+
+    // 全文检索可翻页的最大偏移量，相关度排序只能按偏移量翻页，深度翻页应改用筛选条件
+    @Value("${form.scanner.search.max-offset:1000}")
+    private int maxSearchOffset;
     
     /**
      * 处理上传的表单图片
@@ -62,147 +133,627 @@ public class FormDataServiceImpl implements FormDataService {
      * @return 处理后的表单数据
      */
     public FormData processFormImage(MultipartFile file, String ocrType) {
+        return processFormImage(file.getOriginalFilename(), file, ocrType, OcrPriority.INTERACTIVE, false);
+    }
+
+    /**
+     * 处理本地的表单图片文件（如热文件夹中的扫描件），与上传图片使用相同的识别流程。
+     * 同一图片已有未失败的识别任务时不再重复识别，进程在识别过程中崩溃后重启，
+     * 收件目录中的文件再次导入时沿用已恢复的任务
+     * @param imageFile 图片文件
+     * @param ocrType OCR识别器类型
+     * @param priority 优先级类别
+     * @return 处理后的表单数据
+     * @throws OcrJobPendingException 如果同一图片的任务仍在排队或处理中
+     */
+    public FormData processFormImage(Path imageFile, String ocrType, OcrPriority priority) {
+        return processFormImage(imageFile.getFileName().toString(), new FileSystemResource(imageFile), ocrType, priority,
+                true);
+    }
+
+    /**
+     * 表单图片识别流程：保存图片、OCR识别、提取字段并入库
+     * @param originalFilename 原始文件名
+     * @param source 图片内容
+     * @param ocrType OCR识别器类型
+     * @param priority 优先级类别
+     * @param reuseExisting 同一图片已有未失败的任务时是否沿用该任务
+     * @return 处理后的表单数据
+     */
+    private FormData processFormImage(String originalFilename, InputStreamSource source, String ocrType,
+                                      OcrPriority priority, boolean reuseExisting) {
+        if (ocrJobService.isSharedMode()) {
+            return processSharedFormImage(originalFilename, source, ocrType, priority, reuseExisting);
+        }
+        OcrJob job = null;
         try {
-            // 保存上传的图片
-            String imagePath = saveImage(file);
-            
-            // 使用指定的OCR识别器识别图片内容
             OcrRecognizer recognizer = ocrRecognizerFactory.getRecognizer(ocrType);
-            log.info("使用OCR识别器: {}", recognizer.getRecognizerType());
-            String recognizedText = recognizer.recognizeText(new File(imagePath));
-            log.info("识别到的文本内容: {}\n", recognizedText);
+            String recognizedText;
+            // 申请识别器隔离舱许可，队列已满时快速拒绝，避免在保存图片后才失败
+            try (OcrBulkhead.Permit permit = ocrBulkhead.acquire(recognizer.getRecognizerType(), priority)) {
+                // 保存上传的图片
+                ImageStore.StoredImage image = saveImage(originalFilename, source);
+                if (reuseExisting) {
+                    Optional<FormData> existing = findExistingFormData(image);
+                    if (existing.isPresent()) {
+                        return existing.get();
+                    }
+                }
 
-            FormData formData = recognizer.getFormData(recognizedText);
-            formData.setCreatedAt(LocalDateTime.now());
-            formData.setUpdatedAt(LocalDateTime.now());
-            formDataMapper.insert(formData);
-            return formData;
+                // 识别前先记录任务，进程在识别过程中崩溃时，重启后可继续处理该图片
+                job = ocrJobService.start(image, originalFilename, recognizer.getRecognizerType(), priority);
+
+                // 使用指定的OCR识别器识别图片内容
+                log.info("使用OCR识别器: {}", recognizer.getRecognizerType());
+                recognizedText = ocrExecutionService.recognize(recognizer, image.path().toFile());
+                log.debug("识别到的文本长度: {}", recognizedText.length());
+            }
+
+            return saveRecognizedFormData(recognizer, recognizedText, job);
+        } catch (OcrRejectedException e) {
+            log.warn("OCR识别请求被拒绝: {}", e.getMessage());
+            throw e;
+        } catch (OcrJobPendingException e) {
+            log.info("同一图片的识别任务 {} 仍在处理中，不再重复识别", e.getJob().getId());
+            throw e;
         } catch (Exception e) {
             log.error("处理表单图片时发生错误", e);
+            // 同步上传已向调用方返回错误，任务不再由后台重试
+            if (job != null) {
+                ocrJobService.abandon(job, e.getMessage());
+            }
             throw new RuntimeException("处理表单图片失败: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 共享任务模式下的识别流程：图片保存后写入共享任务表，由任意节点领取识别，当前请求等待任务结束。
+     * 识别负载按各节点的空闲处理线程分摊，不再集中在接收上传的节点上
+     * @param originalFilename 原始文件名
+     * @param source 图片内容
+     * @param ocrType OCR识别器类型
+     * @param priority 优先级类别
+     * @param reuseExisting 同一图片已有未失败的任务时是否沿用该任务
+     * @return 处理后的表单数据
+     * @throws OcrRejectedException 如果该优先级类别的待处理任务已达到上限
+     * @throws OcrJobPendingException 如果等待超时，任务仍在队列中
+     */
+    private FormData processSharedFormImage(String originalFilename, InputStreamSource source, String ocrType,
+                                            OcrPriority priority, boolean reuseExisting) {
+        // 队列已满时在保存图片前快速拒绝
+        ocrJobService.checkQueueDepth(priority);
+        OcrJob job;
+        try {
+            ImageStore.StoredImage image = saveImage(originalFilename, source);
+            if (reuseExisting) {
+                Optional<FormData> existing = findExistingFormData(image);
+                if (existing.isPresent()) {
+                    return existing.get();
+                }
+            }
+            String resolvedOcrType = ocrType != null && !ocrType.isEmpty() ? ocrType : defaultOcrType;
+            job = ocrJobService.enqueue(image, originalFilename, resolvedOcrType, priority);
+        } catch (IOException e) {
+            log.error("保存表单图片时发生错误", e);
+            throw new RuntimeException("保存表单图片失败: " + e.getMessage(), e);
+        }
+
+        OcrJob finished;
+        long awaitStart = System.nanoTime();
+        try {
+            finished = ocrJobService.awaitFinished(job.getId(), awaitTimeout).orElseThrow(() -> new OcrJobPendingException(job));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OcrJobPendingException(job);
+        }
+        // 合并处理节点记录的各阶段耗时，等待时间的其余部分记为排队
+        long processed = OcrTimeline.mergeStages(finished.getStageNanos());
+        OcrTimeline.record(OcrTimeline.Stage.QUEUE, Math.max(0, System.nanoTime() - awaitStart - processed));
+        if (OcrJob.STATE_FAILED.equals(finished.getState())) {
+            throw new RuntimeException("处理表单图片失败: " + finished.getLastError());
+        }
+        return formDataMapper.selectById(finished.getFormDataId());
+    }
+
+    /**
+     * 查找同一图片最近一次未失败的识别任务的结果
+     * @param image 已保存的图片
+     * @return 任务已完成时返回其表单；没有任务或表单已删除时返回空，需要重新识别
+     * @throws OcrJobPendingException 如果该任务仍在排队或处理中
+     */
+    private Optional<FormData> findExistingFormData(ImageStore.StoredImage image) {
+        Optional<OcrJob> existing = ocrJobService.findLatestByImage(image.hash());
+        if (existing.isEmpty()) {
+            return Optional.empty();
+        }
+        OcrJob job = existing.get();
+        if (!OcrJob.STATE_DONE.equals(job.getState())) {
+            throw new OcrJobPendingException(job);
+        }
+        return Optional.ofNullable(formDataMapper.selectById(job.getFormDataId()));
+    }
+
+    /**
+     * 保存上传的表单图片并以批量优先级加入识别队列，由后台任务异步识别
+     * @param file 上传的图片文件
+     * @param ocrType OCR识别器类型
+     * @return 识别任务
+     */
+    public OcrJob submitFormImage(MultipartFile file, String ocrType) {
+        try {
+            ImageStore.StoredImage image = saveImage(file.getOriginalFilename(), file);
+            String resolvedOcrType = ocrType != null && !ocrType.isEmpty() ? ocrType : defaultOcrType;
+            return ocrJobService.enqueue(image, file.getOriginalFilename(), resolvedOcrType, OcrPriority.BATCH);
+        } catch (IOException e) {
+            log.error("保存表单图片时发生错误", e);
+            throw new RuntimeException("保存表单图片失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 处理队列中的识别任务，图片已在入队时保存
+     * @param job 识别任务
+     * @return 处理后的表单数据
+     * @throws IOException 如果识别失败
+     * @throws OcrJobLeaseLostException 如果任务租约已失效，已被其他处理者接手
+     */
+    public FormData processJob(OcrJob job) throws IOException {
+        OcrRecognizer recognizer = ocrRecognizerFactory.getRecognizer(job.getOcrType());
+        String recognizedText;
+        try (OcrBulkhead.Permit permit = ocrBulkhead.acquire(recognizer.getRecognizerType(), job.getPriority())) {
+            log.info("处理识别任务: {}, 使用OCR识别器: {}", job.getId(), recognizer.getRecognizerType());
+            recognizedText = ocrExecutionService.recognize(recognizer, new File(job.getImagePath()));
+        }
+        return saveRecognizedFormData(recognizer, recognizedText, job);
+    }
+
+    /**
+     * 保存上传的图片到图片存储，并记录耗时
+     */
+    private ImageStore.StoredImage saveImage(String originalFilename, InputStreamSource source) throws IOException {
+        long start = System.nanoTime();
+        ImageStore.StoredImage image = imageStore.save(originalFilename, source);
+        ocrMetrics.recordSave(System.nanoTime() - start);
+        return image;
+    }
+
+    /**
+     * 从识别文本中提取表单字段并入库，表单插入与任务完成经写入队列在同一事务中提交，
+     * 任务租约已失效（已被其他处理者接手）时回滚，避免重复入库。
+     * 重新识别任务创建时已关联表单，识别结果覆盖原表单的识别字段。
+     * 识别器的原始输出压缩后与表单在同一事务中保存，之后改进提取规则时可以重新提取
+     * @param recognizer OCR识别器
+     * @param recognizedText 识别到的文本
+     * @param job 识别任务
+     * @return 入库后的表单数据
+     */
+    private FormData saveRecognizedFormData(OcrRecognizer recognizer, String recognizedText, OcrJob job) {
+        try {
+            FormData saved = doSaveRecognizedFormData(recognizer, recognizedText, job);
+            ocrMetrics.countForm(recognizer.getRecognizerType(), OcrMetrics.OUTCOME_SUCCESS);
+            return saved;
+        } catch (RuntimeException e) {
+            ocrMetrics.countForm(recognizer.getRecognizerType(), OcrMetrics.OUTCOME_FAILURE);
+            throw e;
+        }
+    }
+
+    private FormData doSaveRecognizedFormData(OcrRecognizer recognizer, String recognizedText, OcrJob job) {
+        long extractStart = System.nanoTime();
+        FormData formData = recognizer.getFormData(recognizedText);
+        formData.setCreatedAt(LocalDateTime.now());
+        formData.setUpdatedAt(LocalDateTime.now());
+        formData.setVersion(0L);
+        formData.setImageHash(job.getImageHash());
+        parseFormValues(formData);
+        ocrMetrics.recordExtract(recognizer.getRecognizerType(), System.nanoTime() - extractStart);
+        // 入库在写线程上进行，各阶段耗时在当前线程上取出，随任务完成一起保存
+        job.setStageNanos(OcrTimeline.encodeStages());
+        // 在调用线程上压缩，不占用写线程
+        FormRawOcr raw = FormRawOcr.builder()
+                .ocrType(recognizer.getRecognizerType())
+                .encoding(DeflateUtil.ENCODING)
+                .rawSize(recognizedText.getBytes(StandardCharsets.UTF_8).length)
+                .content(DeflateUtil.compress(recognizedText))
+                .recognizedAt(formData.getCreatedAt())
+                .build();
+        if (job.getFormDataId() != null) {
+            return saveReprocessedFormData(formData, raw, job);
+        }
+        long persistStart = System.nanoTime();
+        FormData saved = groupCommitWriter.execute(() -> {
+            formDataMapper.insert(formData);
+            raw.setFormDataId(formData.getId());
+            raw.setExtractedVersion(formData.getVersion());
+            formRawOcrMapper.upsert(raw);
+            if (!ocrJobService.complete(job, formData.getId())) {
+                throw new OcrJobLeaseLostException(job.getId());
+            }
+            return formData;
+        });
+        ocrMetrics.recordPersist("insert", System.nanoTime() - persistStart);
+        return saved;
+    }
     
+    private FormData saveReprocessedFormData(FormData recognized, FormRawOcr raw, OcrJob job) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("projectName", recognized.getProjectName());
+        fields.put("constructionUnit", recognized.getConstructionUnit());
+        fields.put("projectAddress", recognized.getProjectAddress());
+        fields.put("constructionPart", recognized.getConstructionPart());
+        fields.put("strengthLevel", recognized.getStrengthLevel());
+        fields.put("currentVolume", recognized.getCurrentVolume());
+        fields.put("volume", recognized.getVolume());
+        fields.put("strengthGrade", recognized.getStrengthGrade());
+        FormDataPatch patch = FormDataPatch.builder()
+                .id(job.getFormDataId())
+                .fields(fields)
+                .updatedAt(recognized.getUpdatedAt())
+                .build();
+        long persistStart = System.nanoTime();
+        FormData updated = groupCommitWriter.execute(() -> {
+            FormData result = formDataMapper.patch(patch);
+            if (result != null) {
+                raw.setFormDataId(result.getId());
+                raw.setExtractedVersion(result.getVersion());
+                formRawOcrMapper.upsert(raw);
+            }
+            if (!ocrJobService.complete(job, job.getFormDataId())) {
+                throw new OcrJobLeaseLostException(job.getId());
+            }
+            return result;
+        });
+        ocrMetrics.recordPersist("update", System.nanoTime() - persistStart);
+        formDataCache.invalidate(job.getFormDataId());
+        if (updated == null) {
+            // 表单在重新识别期间已被删除
+            log.warn("重新识别任务 {} 的表单 {} 已不存在", job.getId(), job.getFormDataId());
+            recognized.setId(job.getFormDataId());
+            return recognized;
+        }
+        return updated;
+    }
+
+    /**
+     * 由识别到的方量和强度等级文本解析出数值方量和规范的强度等级
+     * @param formData 表单数据
+     */
+    private static void parseFormValues(FormData formData) {
+        formData.setVolume(FormValueParser.parseVolume(formData.getCurrentVolume()));
+        formData.setStrengthGrade(FormValueParser.parseStrengthGrade(formData.getStrengthLevel()));
+    }
+
+    /**
+     * 按维度获取表单统计
+     * @param dimension 统计维度
+     * @param from 分组下限（包含，仅按日期统计时有效）
+     * @param to 分组上限（包含，仅按日期统计时有效）
+     * @param limit 最多返回的分组数
+     * @return 各分组的统计
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<FormStats> getFormStats(FormStatsDimension dimension, LocalDate from, LocalDate to, int limit) {
+        return formStatsMapper.selectByDimension(dimension.getKey(),
+                from != null ? from.toString() : null, to != null ? to.toString() : null, limit);
+    }
+
     /**
      * 获取所有表单数据
      * @return 表单数据列表
      */
     @Override
+    @Transactional(readOnly = true)
     public List<FormData> getAllFormData() {
         return formDataMapper.selectAll();
     }
     
     /**
-     * 根据ID获取表单数据
+     * 按条件分页获取表单数据，多查询一条用于判断是否还有下一页
+     * @param query 查询条件
+     * @return 一页表单数据
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FormDataPage getFormDataPage(FormDataQuery query) {
+        int limit = query.getLimit();
+        query.setLimit(limit + 1);
+        List<FormData> items = formDataMapper.selectPage(query);
+        if (items.size() <= limit) {
+            return new FormDataPage(items, null);
+        }
+        items = items.subList(0, limit);
+        return new FormDataPage(items, FormDataCursor.after(items.get(limit - 1)).encode());
+    }
+
+    /**
+     * 按关键词全文检索表单数据，结果按相关度排序
+     * 不少于3个字符的关键词使用trigram全文索引，两个字符的字母数字关键词使用二元分词索引；
+     * 单个字符或含标点的短关键词在候选结果上按LIKE过滤，只有这类关键词时需要扫描整个索引
+     *
+     * @param keywords 以空格分隔的关键词
+     * @param cursor 上一页返回的游标，即已返回的条数
+     * @param limit 每页条数
+     * @return 一页表单数据和下一页的游标
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FormDataPage searchFormData(String keywords, String cursor, int limit) {
+        String[] terms = keywords == null ? new String[0] : keywords.trim().split("\\s+");
+        if (terms.length == 0 || terms[0].isEmpty()) {
+            throw new IllegalArgumentException("检索关键词不能为空");
+        }
+        if (terms.length > MAX_SEARCH_TERMS) {
+            throw new IllegalArgumentException("检索关键词不能超过 " + MAX_SEARCH_TERMS + " 个");
+        }
+        int offset = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                offset = Integer.parseInt(cursor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无效的游标: " + cursor, e);
+            }
+            if (offset < 0 || offset > maxSearchOffset) {
+                throw new IllegalArgumentException("无效的游标: " + cursor);
+            }
+        }
+
+        FormDataSearch search = FormDataSearch.of(terms, limit + 1, offset);
+        List<FormData> items = formDataMapper.search(search);
+        int nextOffset = offset + limit;
+        if (items.size() <= limit || nextOffset > maxSearchOffset) {
+            return new FormDataPage(items.size() <= limit ? items : items.subList(0, limit), null);
+        }
+        return new FormDataPage(items.subList(0, limit), String.valueOf(nextOffset));
+    }
+
+    /**
+     * 获取指定令牌之后的变更
+     * 变更序号在写事务中分配，所有写操作经同一个写连接串行提交，
+     * 读到序号N时序号小于N的变更都已提交，按序号同步不会遗漏
+     *
+     * @param since 上次同步返回的令牌
+     * @param limit 最多返回的变更条数
+     * @return 变更的表单数据和下次同步的令牌
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FormDataChanges getFormDataChanges(String since, int limit) {
+        FormDataChangeToken token = since == null || since.isEmpty()
+                ? FormDataChangeToken.INITIAL : FormDataChangeToken.decode(since);
+        if (token.seq() > 0) {
+            // 从头同步不需要墓碑；令牌早于清理水位时，其间被清理的删除已无法告知客户端
+            long horizon = formDataMapper.selectChangeHorizon();
+            if (token.seq() < horizon) {
+                throw new ChangeTokenExpiredException(token.seq(), horizon);
+            }
+        }
+        // 多查一条判断是否还有更多变更
+        List<FormDataChange> changes = formDataMapper.selectChanges(token.seq(), limit + 1);
+        boolean hasMore = changes.size() > limit;
+        if (hasMore) {
+            changes = changes.subList(0, limit);
+        }
+
+        List<FormData> items = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        for (FormDataChange change : changes) {
+            // 读取变更日志与表单数据在同一快照中，未删除的表单一定能关联到数据
+            if (Boolean.TRUE.equals(change.getDeleted()) || change.getFormData() == null) {
+                deletedIds.add(change.getFormId());
+            } else {
+                items.add(change.getFormData());
+            }
+        }
+        FormDataChangeToken next = changes.isEmpty()
+                ? token : new FormDataChangeToken(changes.get(changes.size() - 1).getSeq());
+        return new FormDataChanges(items, deletedIds, next.encode(), hasMore);
+    }
+
+    /**
+     * 获取当前的同步令牌
+     * @return 同步令牌
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public String getLatestChangeToken() {
+        return new FormDataChangeToken(formDataMapper.selectLatestChangeSeq()).encode();
+    }
+
+    /**
+     * 根据ID获取表单数据，优先读取缓存，缓存命中时不访问数据库
      *
      * @param id 表单数据ID
      * @return 表单数据
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<FormData> getFormDataById(Long id) {
-        FormData formData = formDataMapper.selectById(id);
-        return Optional.ofNullable(formData);
+        return formDataCache.get(id, formDataMapper::selectById);
     }
     
     /**
-     * 保存表单数据
-     * @param formData 表单数据
-     * @return 保存后的表单数据
+     * 修改表单数据，只更新传入的字段
+     * 更新、版本号递增和读取更新后的数据在同一条UPDATE ... RETURNING语句中完成，
+     * 带版本号时版本条件也在同一条语句中判断，不会覆盖其他人在读取之后的修改
+     * @param id 表单数据ID
+     * @param changes 要修改的字段和新值，值为null时将字段置空
+     * @param expectedVersions 期望的当前版本号，当前版本是其中之一才修改，为空时不检查版本
+     * @return 修改后的表单数据，数据不存在时为空
      */
     @Override
-    public FormData saveFormData(FormData formData) {
-        formData.setUpdatedAt(LocalDateTime.now());
-        if (formData.getCreatedAt() == null) {
-            formData.setCreatedAt(LocalDateTime.now());
+    public Optional<FormData> updateFormData(Long id, Map<String, String> changes, Collection<Long> expectedVersions) {
+        Map<String, Object> fields = toColumnValues(changes);
+        if (changes.isEmpty()) {
+            // 没有要修改的字段时不递增版本号，只检查版本
+            Optional<FormData> current = getFormDataById(id);
+            current.ifPresent(formData -> checkVersion(formData, expectedVersions));
+            return current;
         }
-        formDataMapper.update(formData);
-        return formData;
+
+        FormDataPatch patch = FormDataPatch.builder()
+                .id(id)
+                .fields(fields)
+                .expectedVersions(expectedVersions)
+                .updatedAt(LocalDateTime.now())
+                .build();
+
+        FormData updated = groupCommitWriter.execute(() -> {
+            FormData result = formDataMapper.patch(patch);
+            if (result == null && expectedVersions != null) {
+                // 没有更新到数据时区分数据不存在和版本不一致
+                Optional.ofNullable(formDataMapper.selectById(id))
+                        .ifPresent(current -> checkVersion(current, expectedVersions));
+            }
+            return result;
+        });
+        formDataCache.invalidate(id);
+        return Optional.ofNullable(updated);
     }
     
     /**
      * 删除表单数据
      * @param id 表单数据ID
+     * @param expectedVersions 期望的当前版本号，当前版本是其中之一才删除，为空时不检查版本
+     * @return 是否删除了数据，数据不存在时返回false
      */
     @Override
-    public void deleteFormData(Long id) {
-        formDataMapper.deleteById(id);
+    public boolean deleteFormData(Long id, Collection<Long> expectedVersions) {
+        boolean deleted = groupCommitWriter.execute(() -> {
+            if (formDataMapper.deleteById(id, expectedVersions) > 0) {
+                return true;
+            }
+            if (expectedVersions != null) {
+                Optional.ofNullable(formDataMapper.selectById(id))
+                        .ifPresent(current -> checkVersion(current, expectedVersions));
+            }
+            return false;
+        });
+        formDataCache.invalidate(id);
+        return deleted;
     }
-    
+
     /**
-     * 导出表单数据为Excel
-     * @return Excel文件的字节数组
+     * 批量修改选中的表单数据，单条UPDATE语句在一个事务中完成
+     * @param selection 选择条件
+     * @param changes 要修改的字段和新值，值为null时将字段置空
+     * @return 修改的条数
      */
     @Override
-    public byte[] exportToExcel() {
-        List<FormData> formDataList = formDataMapper.selectAll();
-        
-        try (Workbook workbook = new XSSFWorkbook(); 
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            
-            Sheet sheet = workbook.createSheet("表单数据");
-            
-            // 创建表头
-            Row headerRow = sheet.createRow(0);
-            headerRow.createCell(0).setCellValue("ID");
-            headerRow.createCell(1).setCellValue("工程名称");
-            headerRow.createCell(2).setCellValue("施工单位");
-            headerRow.createCell(3).setCellValue("工程地址");
-            headerRow.createCell(4).setCellValue("施工部位");
-            headerRow.createCell(5).setCellValue("强度等级");
-            headerRow.createCell(6).setCellValue("本车方量(m³)");
-            headerRow.createCell(8).setCellValue("创建时间");
-            
-            // 填充数据
-            int rowNum = 1;
-            for (FormData formData : formDataList) {
-                Row row = sheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(formData.getId());
-                row.createCell(1).setCellValue(formData.getProjectName());
-                row.createCell(2).setCellValue(formData.getConstructionUnit());
-                row.createCell(3).setCellValue(formData.getProjectAddress());
-                row.createCell(4).setCellValue(formData.getConstructionPart());
-                row.createCell(5).setCellValue(formData.getStrengthLevel());
-                row.createCell(6).setCellValue(formData.getCurrentVolume());
-                row.createCell(8).setCellValue(formData.getCreatedAt().toString());
-            }
-            
-            // 自动调整列宽
-            for (int i = 0; i < 9; i++) {
-                sheet.autoSizeColumn(i);
+    public int bulkUpdateFormData(FormDataSelection selection, Map<String, String> changes) {
+        checkSelection(selection);
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("没有要修改的字段");
+        }
+        Map<String, Object> fields = toColumnValues(changes);
+        LocalDateTime updatedAt = LocalDateTime.now();
+        int updated = groupCommitWriter.execute(() -> formDataMapper.patchSelected(selection, fields, updatedAt));
+        formDataCache.invalidateAll();
+        log.info("批量修改表单数据 {} 条，字段: {}", updated, changes.keySet());
+        return updated;
+    }
+
+    /**
+     * 批量删除选中的表单数据，单条DELETE语句在一个事务中完成
+     * @param selection 选择条件
+     * @return 删除的条数
+     */
+    @Override
+    public int bulkDeleteFormData(FormDataSelection selection) {
+        checkSelection(selection);
+        int deleted = groupCommitWriter.execute(() -> formDataMapper.deleteSelected(selection));
+        formDataCache.invalidateAll();
+        log.info("批量删除表单数据 {} 条", deleted);
+        return deleted;
+    }
+
+    /**
+     * 为选中的表单批量创建重新识别任务，单条INSERT ... SELECT语句完成，
+     * 任务以重新识别优先级排队，识别完成后更新原表单
+     * @param selection 选择条件
+     * @param ocrType OCR识别器类型，为空时沿用原任务的识别器
+     * @return 创建的任务数
+     */
+    @Override
+    public int reprocessFormData(FormDataSelection selection, String ocrType) {
+        checkSelection(selection);
+        if (ocrType != null && !getAvailableOcrTypes().contains(ocrType)) {
+            throw new IllegalArgumentException("不支持的OCR识别器类型: " + ocrType);
+        }
+        int queued = groupCommitWriter.execute(() -> ocrJobService.enqueueReprocess(selection, ocrType));
+        log.info("已创建 {} 个重新识别任务", queued);
+        return queued;
+    }
+
+    /**
+     * 检查修改的字段，并加上由原始文本解析出的方量和强度等级
+     * @param changes 要修改的字段和新值
+     * @return 要更新的列和新值
+     * @throws IllegalArgumentException 包含不可修改的字段
+     */
+    private static Map<String, Object> toColumnValues(Map<String, String> changes) {
+        for (String field : changes.keySet()) {
+            if (!EDITABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("字段不可修改: " + field);
             }
-            
-            workbook.write(outputStream);
-            return outputStream.toByteArray();
-            
-        } catch (IOException e) {
-            log.error("导出Excel时发生错误", e);
-            throw new RuntimeException("导出Excel失败: " + e.getMessage(), e);
+        }
+        Map<String, Object> fields = new LinkedHashMap<>(changes);
+        FormValueParser.addDerivedValues(fields);
+        return fields;
+    }
+
+    private static void checkSelection(FormDataSelection selection) {
+        if (selection.isEmpty()) {
+            throw new IllegalArgumentException("批量操作需要指定ID或筛选条件");
+        }
+    }
+
+    /**
+     * 检查表单数据的当前版本
+     * @param formData 当前的表单数据
+     * @param expectedVersions 期望的版本号，为空时不检查
+     * @throws FormDataVersionConflictException 当前版本不是期望的版本之一
+     */
+    private static void checkVersion(FormData formData, Collection<Long> expectedVersions) {
+        if (expectedVersions != null && !expectedVersions.contains(formData.getVersion())) {
+            throw new FormDataVersionConflictException(formData.getId(), formData.getVersion());
         }
     }
     
     /**
-     * 保存上传的图片
-     * @param file 上传的图片文件
-     * @return 保存后的图片路径
-     * @throws IOException 如果保存失败
-     */
-    private String saveImage(MultipartFile file) throws IOException {
-        // 创建上传目录（如果不存在）
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-        
-        // 生成唯一文件名
-        String originalFilename = file.getOriginalFilename();
-        String fileExtension = originalFilename != null ? originalFilename.substring(originalFilename.lastIndexOf(".")) : ".jpg";
-        String filename = UUID.randomUUID() + fileExtension;
-        
-        // 保存文件
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath);
-        
-        return filePath.toString();
+     * 生成本次导出的水位令牌，即当前已提交的最大变更序号
+     * @return 导出水位令牌
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public FormDataExportToken newExportToken() {
+        return new FormDataExportToken(formDataMapper.selectLatestChangeSeq());
+    }
+
+    /**
+     * 按条件导出表单数据，边读取边写入输出流
+     * 通过游标逐行读取并交给写入器，内存占用与数据量无关
+     * @param filter 导出条件
+     * @param exporter 导出格式
+     * @param outputStream 输出流
+     * @throws IOException 如果写入失败
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportFormData(FormDataExportFilter filter, FormDataExporter exporter, OutputStream outputStream)
+            throws IOException {
+        long start = System.nanoTime();
+        int rows = 0;
+        try (Cursor<FormData> cursor = formDataMapper.scanForExport(filter);
+             FormDataExportWriter writer = exporter.open(outputStream)) {
+            for (FormData formData : cursor) {
+                writer.write(formData);
+                rows++;
+            }
+            writer.finish();
+        }
+        log.info("已导出表单数据 {} 行，格式: {}，耗时 {} ms", rows, exporter.getFormat(),
+                (System.nanoTime() - start) / 1_000_000);
     }
     
     /**
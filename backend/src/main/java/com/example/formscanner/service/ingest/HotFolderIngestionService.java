@@ -0,0 +1,334 @@
+package com.example.formscanner.service.ingest;
+
+import com.example.formscanner.config.HotFolderProperties;
+import com.example.formscanner.exception.OcrJobPendingException;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.OcrPriority;
+import com.example.formscanner.service.impl.FormDataServiceImpl;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热文件夹导入服务
+ * 使用WatchService监听收件目录，文件写入稳定后送入与上传相同的识别流程，
+ * 处理成功的文件移动到done目录，失败的移动到failed目录
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "form.scanner.hot-folder", name = "enabled", havingValue = "true")
+public class HotFolderIngestionService {
+    private static final DateTimeFormatter ARCHIVE_PREFIX = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private final HotFolderProperties properties;
+
+    private final FormDataServiceImpl formDataService;
+
+    @Value("${form.scanner.default-ocr-type:tesseract}")
+    private String defaultOcrType;
+
+    // 等待写入稳定的候选文件
+    private final Map<Path, Candidate> candidates = new ConcurrentHashMap<>();
+
+    // 正在处理的文件
+    private final Set<Path> inFlight = ConcurrentHashMap.newKeySet();
+
+    private Path inboxDir;
+
+    private Path doneDir;
+
+    private Path failedDir;
+
+    private HotFolderJournal journal;
+
+    private WatchService watchService;
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService workers;
+
+    private volatile long lastRescanNanos;
+
+    @PostConstruct
+    public void start() throws IOException {
+        inboxDir = Paths.get(properties.getInboxDir()).toAbsolutePath().normalize();
+        doneDir = Paths.get(properties.getDoneDir()).toAbsolutePath().normalize();
+        failedDir = Paths.get(properties.getFailedDir()).toAbsolutePath().normalize();
+        Path journalFile = Paths.get(properties.getJournalFile()).toAbsolutePath().normalize();
+        Files.createDirectories(inboxDir);
+        Files.createDirectories(doneDir);
+        Files.createDirectories(failedDir);
+        Files.createDirectories(journalFile.getParent());
+
+        journal = HotFolderJournal.open(journalFile);
+        recoverFromJournal();
+
+        watchService = inboxDir.getFileSystem().newWatchService();
+        inboxDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        AtomicInteger workerCounter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(properties.getParallelism(), runnable -> {
+            Thread thread = new Thread(runnable, "hot-folder-worker-" + workerCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-folder-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Thread watchThread = new Thread(this::watchLoop, "hot-folder-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        long tickMillis = Math.max(200L, properties.getSettleTime().toMillis() / 2);
+        scheduler.scheduleWithFixedDelay(this::tick, 0L, tickMillis, TimeUnit.MILLISECONDS);
+        log.info("热文件夹导入已启动，收件目录: {}, 并发数: {}", inboxDir, properties.getParallelism());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        scheduler.shutdownNow();
+        workers.shutdown();
+        watchService.close();
+        try {
+            workers.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * 启动时根据检查点日志处理收件目录中的存量文件：
+     * 已识别完成但未来得及移动的文件直接归档，其余文件重新排队
+     */
+    private void recoverFromJournal() throws IOException {
+        Set<String> retainedKeys = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(inboxDir)) {
+            for (Path file : stream) {
+                if (!isAcceptable(file)) {
+                    continue;
+                }
+                String key = fileKey(file, Files.readAttributes(file, BasicFileAttributes.class));
+                HotFolderJournal.Status status = journal.lookup(key);
+                if (status == HotFolderJournal.Status.DONE) {
+                    log.info("文件已处理过，直接归档: {}", file.getFileName());
+                    archive(file, doneDir);
+                } else if (status == HotFolderJournal.Status.FAILED) {
+                    archive(file, failedDir);
+                } else {
+                    candidates.put(file, Candidate.unknown());
+                }
+            }
+        }
+
+        // 归档失败的文件保留其记录，下次启动时重试归档
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(inboxDir)) {
+            for (Path file : stream) {
+                if (isAcceptable(file)) {
+                    retainedKeys.add(fileKey(file, Files.readAttributes(file, BasicFileAttributes.class)));
+                }
+            }
+        }
+        journal.compact(retainedKeys);
+        lastRescanNanos = System.nanoTime();
+    }
+
+    private void watchLoop() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件溢出时触发一次全量扫描
+                        lastRescanNanos = 0L;
+                        continue;
+                    }
+                    Path file = inboxDir.resolve((Path) event.context());
+                    if (isAcceptable(file)) {
+                        // 文件有变化，重新开始计算稳定时间
+                        candidates.put(file, Candidate.unknown());
+                    }
+                }
+                if (!key.reset()) {
+                    log.error("收件目录不再可访问，停止监听: {}", inboxDir);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.info("热文件夹监听已停止");
+        }
+    }
+
+    /**
+     * 定期检查候选文件：大小和修改时间在稳定期内不再变化才提交处理，
+     * 避免读取扫描仪尚未写完的文件
+     */
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            if (now - lastRescanNanos >= properties.getRescanInterval().toNanos()) {
+                rescan();
+                lastRescanNanos = now;
+            }
+
+            for (Map.Entry<Path, Candidate> entry : candidates.entrySet()) {
+                Path file = entry.getKey();
+                if (inFlight.contains(file)) {
+                    continue;
+                }
+
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    candidates.remove(file);
+                    continue;
+                }
+
+                Candidate candidate = entry.getValue();
+                long size = attributes.size();
+                long modified = attributes.lastModifiedTime().toMillis();
+                if (size != candidate.size() || modified != candidate.modifiedMillis()) {
+                    candidates.put(file, new Candidate(size, modified, now));
+                    continue;
+                }
+
+                boolean settled = now - candidate.observedNanos() >= properties.getSettleTime().toNanos();
+                if (settled && size > 0 && inFlight.size() < properties.getParallelism() && inFlight.add(file)) {
+                    String key = fileKey(file, attributes);
+                    workers.execute(() -> process(file, key));
+                }
+            }
+        } catch (Exception e) {
+            log.error("检查热文件夹时发生错误", e);
+        }
+    }
+
+    private void rescan() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(inboxDir)) {
+            for (Path file : stream) {
+                if (isAcceptable(file)) {
+                    candidates.putIfAbsent(file, Candidate.unknown());
+                }
+            }
+        }
+    }
+
+    private void process(Path file, String key) {
+        try {
+            String ocrType = properties.getOcrType() != null ? properties.getOcrType() : defaultOcrType;
+            FormData formData = formDataService.processFormImage(file, ocrType, OcrPriority.BATCH);
+            journal.record(HotFolderJournal.Status.DONE, key, "formId=" + formData.getId());
+            archive(file, doneDir);
+            candidates.remove(file);
+            log.info("热文件夹文件处理完成: {}, 表单ID: {}", file.getFileName(), formData.getId());
+        } catch (OcrJobPendingException e) {
+            // 任务已持久化到任务表（共享模式下等待超时，或同一图片已有处理中的任务），由后台继续处理，文件可以归档
+            try {
+                journal.record(HotFolderJournal.Status.DONE, key, "jobId=" + e.getJob().getId());
+                archive(file, doneDir);
+                candidates.remove(file);
+                log.info("热文件夹文件已加入识别队列: {}, 任务ID: {}", file.getFileName(), e.getJob().getId());
+            } catch (IOException ioException) {
+                log.error("归档文件时发生错误: {}", file.getFileName(), ioException);
+            }
+        } catch (OcrRejectedException e) {
+            // 识别器繁忙，保留在收件目录中，稳定期过后重试
+            log.warn("识别器繁忙，稍后重试: {}", file.getFileName());
+            candidates.put(file, Candidate.unknown());
+        } catch (Exception e) {
+            log.error("热文件夹文件处理失败: {}", file.getFileName(), e);
+            try {
+                journal.record(HotFolderJournal.Status.FAILED, key, String.valueOf(e.getMessage()));
+                archive(file, failedDir);
+                candidates.remove(file);
+            } catch (IOException ioException) {
+                log.error("归档失败文件时发生错误: {}", file.getFileName(), ioException);
+            }
+        } finally {
+            inFlight.remove(file);
+        }
+    }
+
+    /**
+     * 将文件移动到归档目录，同名文件存在时加时间前缀
+     */
+    private void archive(Path file, Path targetDir) throws IOException {
+        Path target = targetDir.resolve(file.getFileName());
+        if (Files.exists(target)) {
+            target = targetDir.resolve(LocalDateTime.now().format(ARCHIVE_PREFIX) + "_" + file.getFileName());
+        }
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // 归档目录与收件目录不在同一文件系统上
+            Files.move(file, target);
+        }
+    }
+
+    private boolean isAcceptable(Path file) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || !Files.isRegularFile(file)) {
+            return false;
+        }
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && properties.getExtensions().contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 文件标识：文件名 + 大小 + 修改时间，同名文件被覆盖后会被视为新文件
+     */
+    private static String fileKey(Path file, BasicFileAttributes attributes) {
+        return file.getFileName() + "|" + attributes.size() + "|" + attributes.lastModifiedTime().toMillis();
+    }
+
+    /**
+     * 候选文件最近一次观察到的状态
+     * @param size 文件大小
+     * @param modifiedMillis 修改时间
+     * @param observedNanos 观察到该状态的时间
+     */
+    private record Candidate(long size, long modifiedMillis, long observedNanos) {
+        static Candidate unknown() {
+            return new Candidate(-1L, -1L, System.nanoTime());
+        }
+    }
+}
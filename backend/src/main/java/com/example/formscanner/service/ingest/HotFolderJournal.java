@@ -0,0 +1,138 @@
+package com.example.formscanner.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 热文件夹检查点日志
+ * 每处理完一个文件追加一行"状态\t文件标识\t说明"并落盘，
+ * 进程在识别入库后、移动文件前崩溃时，重启后可据此直接归档而不重复识别
+ */
+@Slf4j
+class HotFolderJournal implements AutoCloseable {
+    enum Status {
+        DONE, FAILED
+    }
+
+    private final Path journalFile;
+
+    private final Map<String, Status> entries = new HashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+
+    private HotFolderJournal(Path journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    /**
+     * 打开检查点日志，读取已有的记录
+     * @param journalFile 日志文件路径
+     * @return 检查点日志
+     * @throws IOException 如果读取失败
+     */
+    static HotFolderJournal open(Path journalFile) throws IOException {
+        HotFolderJournal journal = new HotFolderJournal(journalFile);
+        if (Files.exists(journalFile)) {
+            List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+            for (String line : lines) {
+                String[] parts = line.split("\t", 3);
+                // 忽略崩溃时写了一半的行
+                if (parts.length < 2) {
+                    continue;
+                }
+                try {
+                    journal.entries.put(parts[1], Status.valueOf(parts[0]));
+                } catch (IllegalArgumentException e) {
+                    log.warn("忽略无法解析的检查点记录: {}", line);
+                }
+            }
+        }
+        journal.channel = FileChannel.open(journalFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return journal;
+    }
+
+    /**
+     * 查询文件的处理状态
+     * @param key 文件标识
+     * @return 处理状态，未处理过返回null
+     */
+    Status lookup(String key) {
+        lock.lock();
+        try {
+            return entries.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录文件的处理结果并落盘
+     * @param status 处理状态
+     * @param key 文件标识
+     * @param detail 说明
+     * @throws IOException 如果写入失败
+     */
+    void record(Status status, String key, String detail) throws IOException {
+        String line = status + "\t" + key + "\t" + detail.replaceAll("[\\r\\n\\t]", " ") + "\n";
+        lock.lock();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            entries.put(key, status);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 压缩日志，只保留仍在收件目录中的文件的记录
+     * @param retainedKeys 需要保留的文件标识
+     * @throws IOException 如果写入失败
+     */
+    void compact(Set<String> retainedKeys) throws IOException {
+        lock.lock();
+        try {
+            entries.keySet().retainAll(retainedKeys);
+            StringBuilder content = new StringBuilder();
+            entries.forEach((key, status) -> content.append(status).append('\t').append(key).append("\t-\n"));
+
+            Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+            Files.writeString(tempFile, content, StandardCharsets.UTF_8);
+            channel.close();
+            Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel = FileChannel.open(journalFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.example.formscanner.service.job;
+
+import com.example.formscanner.config.JobQueueProperties;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.mapper.OcrJobMapper;
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.model.OcrPriority;
+import com.example.formscanner.service.storage.ImageStore;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * OCR识别任务服务
+ * 维护持久化的任务记录：入队、领取、完成、失败和重启恢复
+ */
+@Slf4j
+@Service
+public class OcrJobService {
+    private final OcrJobMapper ocrJobMapper;
+
+    private final JobQueueProperties properties;
+
+    // 当前节点ID，作为任务租约的持有者
+    @Getter
+    private final String nodeId;
+
+    // 本节点正在处理的任务ID，心跳时为这些任务续约
+    private final Set<Long> heldJobIds = ConcurrentHashMap.newKeySet();
+
+    // 等待中的同步上传：任务ID -> 状态变化信号，本节点领取、完成或退回任务时唤醒等待者重新查询
+    private final ConcurrentMap<Long, CompletableFuture<Void>> jobSignals = new ConcurrentHashMap<>();
+
+    // 查询任务状态使用只读连接池，不占用写连接
+    private final TransactionTemplate readTransaction;
+
+    public OcrJobService(OcrJobMapper ocrJobMapper, JobQueueProperties properties,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${server.port:8080}") int serverPort) {
+        this.ocrJobMapper = ocrJobMapper;
+        this.properties = properties;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.nodeId = properties.getNodeId() != null && !properties.getNodeId().isEmpty()
+                ? properties.getNodeId() : defaultNodeId(serverPort);
+        log.info("识别任务节点ID: {}", nodeId);
+    }
+
+    /**
+     * 记录一个由当前线程立即处理的任务，任务创建时即由当前节点持有租约
+     * @param image 已保存的图片
+     * @param originalFilename 原始文件名
+     * @param ocrType OCR识别器类型
+     * @param priority 优先级类别
+     * @return 识别任务
+     */
+    public OcrJob start(ImageStore.StoredImage image, String originalFilename, String ocrType, OcrPriority priority) {
+        long now = System.currentTimeMillis();
+        OcrJob job = newJob(image, originalFilename, ocrType, priority);
+        job.setState(OcrJob.STATE_RUNNING);
+        job.setAttempts(1);
+        job.setLeaseOwner(nodeId);
+        job.setLeaseToken(UUID.randomUUID().toString());
+        job.setLeaseUntil(now + properties.getLeaseDuration().toMillis());
+        ocrJobMapper.insert(job);
+        heldJobIds.add(job.getId());
+        return job;
+    }
+
+    /**
+     * 检查指定优先级类别的待处理任务数，队列已满时拒绝，避免突发上传在队列中堆积到等待超时
+     * @param priority 优先级类别
+     * @throws OcrRejectedException 如果待处理任务数已达到上限
+     */
+    public void checkQueueDepth(OcrPriority priority) {
+        Integer pending = readTransaction.execute(status -> ocrJobMapper.countPending(priority));
+        if (pending != null && pending >= properties.getMaxPending()) {
+            throw new OcrRejectedException(null, properties.getRetryAfter(),
+                    "识别任务队列已满（" + priority + "类别待处理 " + pending + " 个），请稍后重试");
+        }
+    }
+
+    /**
+     * 将任务加入队列，由后台处理线程异步处理
+     * @param image 已保存的图片
+     * @param originalFilename 原始文件名
+     * @param ocrType OCR识别器类型
+     * @param priority 优先级类别
+     * @return 识别任务
+     */
+    public OcrJob enqueue(ImageStore.StoredImage image, String originalFilename, String ocrType, OcrPriority priority) {
+        OcrJob job = newJob(image, originalFilename, ocrType, priority);
+        job.setState(OcrJob.STATE_PENDING);
+        job.setAttempts(0);
+        ocrJobMapper.insert(job);
+        return job;
+    }
+
+    /**
+     * 为选中的表单批量创建重新识别任务，由后台处理线程识别后更新原表单
+     * @param selection 表单选择条件
+     * @param ocrType OCR识别器类型，为空时沿用原任务的识别器
+     * @return 创建的任务数
+     */
+    public int enqueueReprocess(FormDataSelection selection, String ocrType) {
+        return ocrJobMapper.insertReprocessJobs(selection, ocrType, OcrPriority.REPROCESS,
+                properties.getMaxAttempts(), LocalDateTime.now());
+    }
+
+    /**
+     * 批量领取任务
+     * @param limit 最多领取的任务数
+     * @return 领取到的任务
+     */
+    public List<OcrJob> claim(int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        long now = System.currentTimeMillis();
+        ocrJobMapper.failExhausted(now, LocalDateTime.now());
+
+        String token = UUID.randomUUID().toString();
+        int claimed = ocrJobMapper.claimBatch(nodeId, token, now, now + properties.getLeaseDuration().toMillis(),
+                limit, LocalDateTime.now());
+        if (claimed == 0) {
+            return Collections.emptyList();
+        }
+        List<OcrJob> jobs = ocrJobMapper.selectByLeaseToken(token);
+        jobs.forEach(job -> {
+            heldJobIds.add(job.getId());
+            signal(job.getId());
+        });
+        return jobs;
+    }
+
+    /**
+     * 心跳：为本节点正在处理的任务续约，节点宕机后租约自然过期，任务由其他节点接手
+     * @return 续约成功的任务数
+     */
+    public int heartbeat() {
+        if (heldJobIds.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = List.copyOf(heldJobIds);
+        long leaseUntil = System.currentTimeMillis() + properties.getLeaseDuration().toMillis();
+        int renewed = ocrJobMapper.renewLeases(nodeId, ids, leaseUntil);
+        if (renewed < ids.size()) {
+            log.warn("部分任务续约失败，可能已被其他节点接手: 续约 {} / {}", renewed, ids.size());
+        }
+        return renewed;
+    }
+
+    /**
+     * 等待任务处理结束（完成或失败）
+     * 任务由本节点领取后，等待本节点完成或退回时的唤醒；任务仍在队列中或由其他节点处理时，
+     * 按查询间隔从只读连接池查询任务状态
+     * @param jobId 任务ID
+     * @param timeout 最长等待时间
+     * @return 处理结束的任务，超时返回空
+     * @throws InterruptedException 如果等待被中断
+     */
+    public Optional<OcrJob> awaitFinished(Long jobId, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (true) {
+                // 先登记信号再查询，查询之后发生的状态变化不会被错过
+                CompletableFuture<Void> signal = jobSignals.computeIfAbsent(jobId, id -> new CompletableFuture<>());
+                OcrJob job = readTransaction.execute(status -> ocrJobMapper.selectById(jobId));
+                if (job != null && (OcrJob.STATE_DONE.equals(job.getState()) || OcrJob.STATE_FAILED.equals(job.getState()))) {
+                    return Optional.of(job);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return Optional.empty();
+                }
+                // 本节点持有租约时完成后必然唤醒，只需防止租约丢失后被其他节点接手，按租约时长兜底查询
+                boolean local = job != null && nodeId.equals(job.getLeaseOwner()) && heldJobIds.contains(jobId);
+                long wait = (local ? properties.getLeaseDuration() : properties.getAwaitPollInterval()).toNanos();
+                try {
+                    signal.get(Math.min(wait, remaining), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException | ExecutionException e) {
+                    // 超时后重新查询
+                }
+            }
+        } finally {
+            jobSignals.remove(jobId);
+        }
+    }
+
+    /**
+     * 唤醒等待该任务的同步上传，等待者重新查询任务状态
+     */
+    private void signal(Long jobId) {
+        CompletableFuture<Void> signal = jobSignals.remove(jobId);
+        if (signal != null) {
+            signal.complete(null);
+        }
+    }
+
+    /**
+     * 任务不再由本节点处理：停止续约并唤醒等待者。
+     * 在事务中（如批量提交的写入任务）调用时推迟到事务结束后执行，
+     * 否则等待者被唤醒时读到的仍是提交前的状态，只能按查询间隔再次查询
+     */
+    private void finish(Long jobId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            heldJobIds.remove(jobId);
+            signal(jobId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                heldJobIds.remove(jobId);
+                signal(jobId);
+            }
+        });
+    }
+
+    /**
+     * 是否为多节点共享任务模式
+     * @return 是否为共享模式
+     */
+    public boolean isSharedMode() {
+        return properties.getMode() == JobQueueProperties.Mode.SHARED;
+    }
+
+    /**
+     * 标记任务完成
+     * @param job 识别任务
+     * @param formDataId 识别入库后的表单ID
+     * @return 是否仍持有租约并成功标记
+     */
+    public boolean complete(OcrJob job, Long formDataId) {
+        boolean updated = ocrJobMapper.markDone(job.getId(), job.getLeaseToken(), formDataId, job.getStageNanos(),
+                LocalDateTime.now()) > 0;
+        finish(job.getId());
+        if (!updated) {
+            log.warn("任务 {} 的租约已失效，完成状态未写入", job.getId());
+        }
+        return updated;
+    }
+
+    /**
+     * 任务处理失败，未达到最大尝试次数时退回队列等待重试
+     * @param job 识别任务
+     * @param error 错误信息
+     */
+    public void fail(OcrJob job, String error) {
+        ocrJobMapper.markFailed(job.getId(), job.getLeaseToken(), error, LocalDateTime.now());
+        finish(job.getId());
+    }
+
+    /**
+     * 任务处理失败且不再重试（如同步上传已向用户返回错误）
+     * @param job 识别任务
+     * @param error 错误信息
+     */
+    public void abandon(OcrJob job, String error) {
+        ocrJobMapper.markAbandoned(job.getId(), job.getLeaseToken(), error, LocalDateTime.now());
+        finish(job.getId());
+    }
+
+    /**
+     * 退回任务且不计入尝试次数
+     * @param job 识别任务
+     */
+    public void release(OcrJob job) {
+        ocrJobMapper.release(job.getId(), job.getLeaseToken(), LocalDateTime.now());
+        finish(job.getId());
+    }
+
+    /**
+     * 节点启动时退回上次运行遗留的处理中任务
+     * @return 退回的任务数
+     */
+    public int recoverOwnJobs() {
+        return ocrJobMapper.releaseByOwner(nodeId, LocalDateTime.now());
+    }
+
+    /**
+     * 查询同一图片最近一次未失败的任务
+     * @param imageHash 图片摘要
+     * @return 识别任务
+     */
+    public Optional<OcrJob> findLatestByImage(String imageHash) {
+        return Optional.ofNullable(readTransaction.execute(status -> ocrJobMapper.selectLatestByImageHash(imageHash)));
+    }
+
+    /**
+     * 根据ID查询任务
+     * @param id 任务ID
+     * @return 识别任务
+     */
+    @Transactional(readOnly = true)
+    public Optional<OcrJob> getJob(Long id) {
+        return Optional.ofNullable(ocrJobMapper.selectById(id));
+    }
+
+    private OcrJob newJob(ImageStore.StoredImage image, String originalFilename, String ocrType, OcrPriority priority) {
+        LocalDateTime now = LocalDateTime.now();
+        return OcrJob.builder()
+                .imagePath(image.path().toString())
+                .imageHash(image.hash())
+                .originalFilename(originalFilename)
+                .ocrType(ocrType)
+                .priority(priority)
+                .maxAttempts(properties.getMaxAttempts())
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+
+    private static String defaultNodeId(int serverPort) {
+        try {
+            return InetAddress.getLocalHost().getHostName() + ":" + serverPort;
+        } catch (UnknownHostException e) {
+            return "localhost:" + serverPort;
+        }
+    }
+}
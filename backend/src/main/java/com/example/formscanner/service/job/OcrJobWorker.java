@@ -0,0 +1,149 @@
+package com.example.formscanner.service.job;
+
+import com.example.formscanner.config.JobQueueProperties;
+import com.example.formscanner.exception.OcrJobLeaseLostException;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.service.impl.FormDataServiceImpl;
+import com.example.formscanner.service.ocr.OcrTimeline;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCR识别任务后台处理器
+ * 启动时先退回本节点上次运行遗留的任务，然后定期按空闲线程数批量领取任务并处理，
+ * 并按心跳间隔为处理中的任务续约。多个节点共享同一任务表时，空闲的节点领取更多任务，
+ * 宕机节点的任务在租约过期后由其他节点接手
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OcrJobWorker {
+    private final OcrJobService ocrJobService;
+
+    private final FormDataServiceImpl formDataService;
+
+    private final JobQueueProperties properties;
+
+    private final AtomicInteger schedulerCounter = new AtomicInteger();
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService workers;
+
+    // 空闲的处理线程数，领取的任务数不超过该值
+    private Semaphore idleWorkers;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int recovered = ocrJobService.recoverOwnJobs();
+        if (recovered > 0) {
+            log.info("已退回上次运行中未完成的识别任务: {} 个", recovered);
+        }
+
+        scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "ocr-job-scheduler-" + schedulerCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 同步上传的任务也由本节点持有租约，心跳不依赖后台处理线程是否开启
+        long heartbeatMillis = properties.getHeartbeatInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        if (!properties.isWorkerEnabled()) {
+            log.info("后台识别任务处理已关闭");
+            return;
+        }
+
+        idleWorkers = new Semaphore(properties.getWorkerThreads());
+        AtomicInteger workerCounter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(properties.getWorkerThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "ocr-job-worker-" + workerCounter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, 0L, properties.getPollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        log.info("后台识别任务处理已启动，模式: {}, 线程数: {}", properties.getMode(), properties.getWorkerThreads());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 按空闲线程数批量领取任务
+     */
+    private void poll() {
+        try {
+            int idle = idleWorkers.availablePermits();
+            if (idle == 0) {
+                return;
+            }
+            List<OcrJob> jobs = ocrJobService.claim(Math.min(idle, properties.getClaimBatchSize()));
+            for (OcrJob job : jobs) {
+                idleWorkers.acquire();
+                workers.execute(() -> {
+                    try {
+                        process(job);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("领取识别任务时发生错误", e);
+        }
+    }
+
+    /**
+     * 为处理中的任务续约
+     */
+    private void heartbeat() {
+        try {
+            ocrJobService.heartbeat();
+        } catch (Exception e) {
+            log.error("识别任务续约时发生错误", e);
+        }
+    }
+
+    private void process(OcrJob job) {
+        // 记录各阶段耗时并随任务保存，等待该任务的同步上传据此返回Server-Timing
+        OcrTimeline.begin();
+        try {
+            FormData formData = formDataService.processJob(job);
+            log.info("识别任务 {} 处理完成，表单ID: {}", job.getId(), formData.getId());
+        } catch (OcrRejectedException e) {
+            // 识别器繁忙，退回队列且不计入尝试次数
+            ocrJobService.release(job);
+        } catch (OcrJobLeaseLostException e) {
+            // 只有租约失效才不处理任务，其他异常都按处理失败退回队列或标记失败
+            log.warn("识别任务 {} 已被其他处理者接手: {}", job.getId(), e.getMessage());
+        } catch (Exception e) {
+            log.error("识别任务 {} 第 {} 次处理失败", job.getId(), job.getAttempts(), e);
+            ocrJobService.fail(job, e.getMessage());
+        } finally {
+            OcrTimeline.end();
+        }
+    }
+}
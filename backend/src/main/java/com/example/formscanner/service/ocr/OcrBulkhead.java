@@ -0,0 +1,329 @@
+package com.example.formscanner.service.ocr;
+
+import com.example.formscanner.config.OcrBulkheadProperties;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.model.OcrPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * OCR识别器隔离舱
+ * 为每种识别器维护独立的并发许可和有界等待队列，
+ * 避免某个识别器（如百度接口卡顿）占满所有Web线程。
+ * 识别器繁忙时按优先级类别加权公平排队（WFQ）：每个等待者按所属类别的权重计算虚拟完成时间，
+ * 释放的许可总是交给虚拟完成时间最小的等待者。交互式上传不会排在成千上万张批量图片之后，
+ * 批量任务也不会被完全饿死，只是在繁忙时按权重比例获得许可
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OcrBulkhead {
+    private final OcrBulkheadProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Compartment> compartments = new ConcurrentHashMap<>();
+
+    /**
+     * 以交互式优先级为指定识别器申请执行许可，许可在关闭时释放
+     * @param recognizerType 识别器类型
+     * @return 执行许可
+     * @throws OcrRejectedException 如果等待队列已满或等待超时
+     */
+    public Permit acquire(String recognizerType) {
+        return acquire(recognizerType, OcrPriority.INTERACTIVE);
+    }
+
+    /**
+     * 为指定识别器申请执行许可，许可在关闭时释放
+     * @param recognizerType 识别器类型
+     * @param priority 优先级类别
+     * @return 执行许可
+     * @throws OcrRejectedException 如果该类别的等待队列已满或等待超时
+     */
+    public Permit acquire(String recognizerType, OcrPriority priority) {
+        Compartment compartment = compartments.computeIfAbsent(recognizerType, this::createCompartment);
+        return compartment.acquire(priority);
+    }
+
+    private Compartment createCompartment(String recognizerType) {
+        OcrBulkheadProperties.Limit limit = properties.getLimit(recognizerType);
+        log.info("初始化识别器隔离舱: {}, 并发上限: {}, 队列容量: {}, 最长等待: {}",
+                recognizerType, limit.getMaxConcurrent(), limit.getQueueCapacity(), limit.getMaxWait());
+        return new Compartment(recognizerType, limit);
+    }
+
+    /**
+     * 执行许可，使用try-with-resources释放
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * 单个识别器的隔离舱
+     */
+    private class Compartment {
+        private final String recognizerType;
+
+        private final OcrBulkheadProperties.Limit limit;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Map<OcrPriority, ClassQueue> queues = new EnumMap<>(OcrPriority.class);
+
+        // 空闲的并发许可数
+        private volatile int availablePermits;
+
+        // 虚拟时间，等于最近一次获得许可的等待者的虚拟完成时间
+        private double virtualTime;
+
+        Compartment(String recognizerType, OcrBulkheadProperties.Limit limit) {
+            this.recognizerType = recognizerType;
+            this.limit = limit;
+            this.availablePermits = limit.getMaxConcurrent();
+
+            Gauge.builder("ocr.bulkhead.available.permits", this, compartment -> compartment.availablePermits)
+                    .description("识别器隔离舱当前可用的并发许可数")
+                    .tag("recognizer", recognizerType)
+                    .register(meterRegistry);
+            Gauge.builder("ocr.bulkhead.max.permits", limit, l -> l.getMaxConcurrent())
+                    .description("识别器隔离舱的并发许可上限")
+                    .tag("recognizer", recognizerType)
+                    .register(meterRegistry);
+            for (OcrPriority priority : OcrPriority.values()) {
+                queues.put(priority, new ClassQueue(priority, properties.getPriorityClass(priority)));
+            }
+        }
+
+        Permit acquire(OcrPriority priority) {
+            ClassQueue queue = queues.get(priority);
+            long startNanos = System.nanoTime();
+            lock.lock();
+            try {
+                // 有空闲许可且没有人排队时直接执行，不进入等待队列
+                if (availablePermits > 0 && !hasWaiters()) {
+                    availablePermits--;
+                    return queue.granted(startNanos);
+                }
+
+                // 该类别的等待队列已满，快速拒绝
+                if (queue.waiters.size() >= queue.capacity) {
+                    queue.queueFullRejections.increment();
+                    throw new OcrRejectedException(recognizerType, limit.getRetryAfter(),
+                            "OCR识别器 " + recognizerType + " 繁忙，等待队列已满");
+                }
+
+                // 虚拟完成时间：从当前虚拟时间与本类别上一个等待者的完成时间中较晚者开始，权重越大增量越小
+                double start = Math.max(virtualTime, queue.lastFinishTag);
+                queue.lastFinishTag = start + 1.0 / queue.weight;
+                Waiter waiter = new Waiter(virtualTime, start, queue.lastFinishTag, lock.newCondition());
+                queue.waiters.addLast(waiter);
+                queue.queued.incrementAndGet();
+
+                long remainingNanos = queue.maxWait.toNanos();
+                try {
+                    while (!waiter.granted && remainingNanos > 0L) {
+                        remainingNanos = waiter.condition.awaitNanos(remainingNanos);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                if (!waiter.granted) {
+                    queue.abandon(waiter);
+                    queue.queued.decrementAndGet();
+                    queue.waitTimeoutRejections.increment();
+                    throw new OcrRejectedException(recognizerType, limit.getRetryAfter(),
+                            "OCR识别器 " + recognizerType + " 繁忙，等待超时");
+                }
+                return queue.granted(startNanos);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 释放许可：交给虚拟完成时间最小的等待者，没有等待者时归还
+         */
+        private void release() {
+            lock.lock();
+            try {
+                ClassQueue next = null;
+                for (ClassQueue queue : queues.values()) {
+                    Waiter head = queue.waiters.peekFirst();
+                    if (head != null && (next == null || head.finishTag < next.waiters.peekFirst().finishTag)) {
+                        next = queue;
+                    }
+                }
+                if (next == null) {
+                    availablePermits++;
+                    return;
+                }
+
+                Waiter waiter = next.waiters.pollFirst();
+                next.queued.decrementAndGet();
+                virtualTime = waiter.finishTag;
+                waiter.granted = true;
+                waiter.condition.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean hasWaiters() {
+            for (ClassQueue queue : queues.values()) {
+                if (!queue.waiters.isEmpty()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 单个优先级类别的等待队列，类别内先进先出
+         */
+        private class ClassQueue {
+            private final int weight;
+
+            private final int capacity;
+
+            private final Duration maxWait;
+
+            private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+            private final AtomicInteger queued = new AtomicInteger();
+
+            // 本类别最后一个等待者的虚拟完成时间
+            private double lastFinishTag;
+
+            private final Timer waitTimer;
+
+            private final Counter queueFullRejections;
+
+            private final Counter waitTimeoutRejections;
+
+            ClassQueue(OcrPriority priority, OcrBulkheadProperties.PriorityClass priorityClass) {
+                this.weight = Math.max(1, priorityClass.getWeight());
+                this.capacity = priorityClass.getQueueCapacity() != null
+                        ? priorityClass.getQueueCapacity() : limit.getQueueCapacity();
+                this.maxWait = priorityClass.getMaxWait() != null ? priorityClass.getMaxWait() : limit.getMaxWait();
+
+                String priorityTag = priority.name().toLowerCase(Locale.ROOT);
+                Gauge.builder("ocr.bulkhead.queued", queued, AtomicInteger::get)
+                        .description("识别器隔离舱中正在排队的请求数")
+                        .tag("recognizer", recognizerType)
+                        .tag("priority", priorityTag)
+                        .register(meterRegistry);
+                this.waitTimer = Timer.builder("ocr.bulkhead.wait")
+                        .description("获得识别许可前的排队时间")
+                        .tag("recognizer", recognizerType)
+                        .tag("priority", priorityTag)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(meterRegistry);
+                this.queueFullRejections = Counter.builder("ocr.bulkhead.rejected")
+                        .description("识别器隔离舱拒绝的请求数")
+                        .tag("recognizer", recognizerType)
+                        .tag("priority", priorityTag)
+                        .tag("reason", "queue_full")
+                        .register(meterRegistry);
+                this.waitTimeoutRejections = Counter.builder("ocr.bulkhead.rejected")
+                        .description("识别器隔离舱拒绝的请求数")
+                        .tag("recognizer", recognizerType)
+                        .tag("priority", priorityTag)
+                        .tag("reason", "wait_timeout")
+                        .register(meterRegistry);
+            }
+
+            /**
+             * 移除超时或被中断的等待者，并撤回它占用的虚拟完成时间：
+             * 后面的等待者依次前移，类别的最后完成时间回退到新的队尾，
+             * 否则连续超时后该类别的完成时间远超虚拟时间，在调度中一直排在其他类别之后
+             */
+            void abandon(Waiter abandoned) {
+                // 被移除者之后的第一个等待者从被移除者的开始时间（即其前一个等待者的完成时间）起算
+                double previousFinish = abandoned.startTag;
+                boolean after = false;
+                Iterator<Waiter> iterator = waiters.iterator();
+                while (iterator.hasNext()) {
+                    Waiter waiter = iterator.next();
+                    if (waiter == abandoned) {
+                        iterator.remove();
+                        after = true;
+                        continue;
+                    }
+                    if (after) {
+                        waiter.startTag = Math.max(waiter.arrivalTime, previousFinish);
+                        waiter.finishTag = waiter.startTag + 1.0 / weight;
+                        previousFinish = waiter.finishTag;
+                    }
+                }
+                Waiter tail = waiters.peekLast();
+                lastFinishTag = tail != null ? tail.finishTag : abandoned.startTag;
+            }
+
+            Permit granted(long startNanos) {
+                waitTimer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+                return new CompartmentPermit();
+            }
+        }
+
+        /**
+         * 隔离舱发放的许可，只释放一次，重复关闭（如嵌套的try-with-resources）不会多归还许可
+         */
+        private class CompartmentPermit implements Permit {
+            private final AtomicBoolean released = new AtomicBoolean();
+
+            @Override
+            public void close() {
+                if (released.compareAndSet(false, true)) {
+                    release();
+                }
+            }
+        }
+    }
+
+    /**
+     * 等待许可的请求
+     */
+    private static class Waiter {
+        // 到达时的虚拟时间
+        private final double arrivalTime;
+
+        // 虚拟开始时间和完成时间，同类别中前面的等待者放弃时前移
+        private double startTag;
+
+        private double finishTag;
+
+        private final Condition condition;
+
+        private boolean granted;
+
+        Waiter(double arrivalTime, double startTag, double finishTag, Condition condition) {
+            this.arrivalTime = arrivalTime;
+            this.startTag = startTag;
+            this.finishTag = finishTag;
+            this.condition = condition;
+        }
+    }
+}
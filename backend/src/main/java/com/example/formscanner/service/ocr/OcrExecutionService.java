@@ -0,0 +1,95 @@
+package com.example.formscanner.service.ocr;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * OCR识别执行服务
+ * CPU密集型识别始终在与CPU核数相同的固定平台线程池上执行，调用线程等待结果；
+ * 远程识别直接在调用线程上阻塞等待。虚拟线程模式下Web请求本身运行在虚拟线程上
+ * （spring.threads.virtual.enabled），不需要再转交到其他执行器，避免一次线程切换
+ */
+@Slf4j
+@Component
+public class OcrExecutionService {
+    // 本地识别执行器，固定为CPU核数大小的平台线程池
+    private final ExecutorService cpuOcrExecutor;
+
+    private final OcrMetrics ocrMetrics;
+
+    public OcrExecutionService(@Value("${form.scanner.virtual-threads:false}") boolean virtualThreads,
+                               OcrMetrics ocrMetrics) {
+        this.ocrMetrics = ocrMetrics;
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.cpuOcrExecutor = Executors.newFixedThreadPool(cores, runnable -> {
+            Thread thread = new Thread(runnable, "ocr-cpu-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("OCR识别执行模式: {}，本地识别线程数: {}", virtualThreads ? "虚拟线程" : "平台线程", cores);
+    }
+
+    /**
+     * 使用指定识别器识别图片
+     * @param recognizer OCR识别器
+     * @param imageFile 图片文件
+     * @return 识别到的文本
+     * @throws IOException 如果识别失败
+     */
+    public String recognize(OcrRecognizer recognizer, File imageFile) throws IOException {
+        // 远程识别：直接在当前线程阻塞，转交到其他线程并等待并不能释放当前线程
+        if (!recognizer.isCpuBound()) {
+            return recognizeTimed(recognizer, imageFile);
+        }
+
+        Future<String> future = cpuOcrExecutor.submit(OcrTimeline.propagate(() -> recognizeTimed(recognizer, imageFile)));
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("OCR识别被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("OCR识别失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * 在执行线程上识别并记录耗时，不包括在执行器中排队的时间
+     */
+    private String recognizeTimed(OcrRecognizer recognizer, File imageFile) throws IOException {
+        long start = System.nanoTime();
+        String outcome = OcrMetrics.OUTCOME_FAILURE;
+        try {
+            String text = recognizer.recognizeText(imageFile);
+            outcome = OcrMetrics.OUTCOME_SUCCESS;
+            return text;
+        } finally {
+            ocrMetrics.recordRecognize(recognizer.getRecognizerType(), outcome, System.nanoTime() - start);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        cpuOcrExecutor.shutdown();
+    }
+}
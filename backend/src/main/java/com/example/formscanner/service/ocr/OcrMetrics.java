@@ -0,0 +1,147 @@
+package com.example.formscanner.service.ocr;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OCR识别流程的监控指标
+ * 按阶段记录耗时：保存图片、图像预处理（按步骤）、识别（按识别器）、字段提取、入库，
+ * 以及百度OCR的HTTP请求（包括获取Access Token）。直方图由management.metrics.distribution配置。
+ * 各阶段耗时同时计入当前请求的OcrTimeline（如果已开始记录）。
+ * 计时器和计数器按标签值缓存，每次记录只查一次缓存，不再经过注册表的查找和标签对象的构造
+ */
+@Component
+public class OcrMetrics {
+    public static final String OUTCOME_SUCCESS = "success";
+
+    public static final String OUTCOME_FAILURE = "failure";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer saveTimer;
+
+    // 按标签值缓存的计时器和计数器，键为各标签值按声明顺序组成的列表
+    private final ConcurrentMap<List<String>, Timer> preprocessTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<String>, Timer> recognizeTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> extractTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> persistTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<String>, Timer> baiduHttpTimers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<String>, Counter> formCounters = new ConcurrentHashMap<>();
+
+    public OcrMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.saveTimer = Timer.builder("ocr.image.save")
+                .description("保存上传图片的耗时，包括计算摘要和登记")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录保存图片的耗时
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordSave(long nanos) {
+        OcrTimeline.record(OcrTimeline.Stage.SAVE, nanos);
+        saveTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录图像预处理中一个步骤的耗时
+     * @param recognizer 识别器类型
+     * @param step 预处理步骤
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordPreprocess(String recognizer, String step, long nanos) {
+        OcrTimeline.record(OcrTimeline.Stage.PREPROCESS, nanos);
+        preprocessTimers.computeIfAbsent(List.of(recognizer, step), key -> Timer.builder("ocr.preprocess")
+                        .description("识别前图像预处理各步骤的耗时")
+                        .tag("recognizer", recognizer)
+                        .tag("step", step)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录识别器识别一张图片的耗时，包括识别器内部的预处理和远程请求
+     * @param recognizer 识别器类型
+     * @param outcome 结果：success或failure
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordRecognize(String recognizer, String outcome, long nanos) {
+        OcrTimeline.record(OcrTimeline.Stage.RECOGNIZE, nanos);
+        recognizeTimers.computeIfAbsent(List.of(recognizer, outcome), key -> Timer.builder("ocr.recognize")
+                        .description("识别器识别一张图片的耗时")
+                        .tag("recognizer", recognizer)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录从识别结果中提取表单字段的耗时
+     * @param recognizer 识别器类型
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordExtract(String recognizer, long nanos) {
+        OcrTimeline.record(OcrTimeline.Stage.EXTRACT, nanos);
+        extractTimers.computeIfAbsent(recognizer, key -> Timer.builder("ocr.extract")
+                        .description("从识别结果中提取表单字段的耗时")
+                        .tag("recognizer", recognizer)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录识别结果入库的耗时，包括在写入队列中等待的时间
+     * @param operation 操作：insert新增表单，update重新识别后更新表单
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordPersist(String operation, long nanos) {
+        OcrTimeline.record(OcrTimeline.Stage.PERSIST, nanos);
+        persistTimers.computeIfAbsent(operation, key -> Timer.builder("ocr.persist")
+                        .description("识别结果入库的耗时")
+                        .tag("operation", operation)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录百度OCR的HTTP请求耗时
+     * @param operation 请求：token获取Access Token，recognise识别
+     * @param status HTTP状态码，网络错误时为IO_ERROR
+     * @param nanos 耗时（纳秒）
+     */
+    public void recordBaiduHttp(String operation, String status, long nanos) {
+        baiduHttpTimers.computeIfAbsent(List.of(operation, status), key -> Timer.builder("ocr.baidu.http")
+                        .description("百度OCR接口的HTTP请求耗时")
+                        .tag("operation", operation)
+                        .tag("status", status)
+                        .register(meterRegistry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一张表单图片的识别结果
+     * @param recognizer 识别器类型
+     * @param outcome 结果：success识别并入库，failure识别或入库失败
+     */
+    public void countForm(String recognizer, String outcome) {
+        formCounters.computeIfAbsent(List.of(recognizer, outcome), key -> Counter.builder("ocr.forms")
+                        .description("识别的表单图片数")
+                        .tag("recognizer", recognizer)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+}
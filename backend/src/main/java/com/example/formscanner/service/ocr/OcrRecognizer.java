@@ -33,4 +33,14 @@ public interface OcrRecognizer {
      * @return 插入数据库后的表单数据
      */
     FormData getFormData(String recognizedText);
+
+    /**
+     * 是否为CPU密集型识别器（如本地Tesseract），
+     * CPU密集型识别器在固定大小的本地线程池上执行，其余视为远程I/O密集型识别器
+     *
+     * @return 是否为CPU密集型
+     */
+    default boolean isCpuBound() {
+        return false;
+    }
 }
\ No newline at end of file
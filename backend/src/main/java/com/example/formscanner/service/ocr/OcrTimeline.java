@@ -0,0 +1,198 @@
+package com.example.formscanner.service.ocr;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 单次识别请求的耗时记录
+ * 由请求线程开始并绑定到当前线程，OcrMetrics记录各阶段耗时时同时累加到当前线程的记录中；
+ * 识别在执行器线程上进行时由OcrExecutionService把记录传递过去；
+ * 共享任务模式下识别在处理节点上进行，各阶段耗时随任务保存，由等待任务的请求合并到自己的记录中。
+ * 未开始记录时各阶段只多一次ThreadLocal读取，不分配对象
+ */
+public final class OcrTimeline {
+    /**
+     * 识别流程的阶段，名称用作Server-Timing的指标名
+     */
+    public enum Stage {
+        SAVE("save"),
+        // 共享任务模式下等待任务结束的时间中未计入其他阶段的部分：排队、处理节点入库和唤醒等待
+        QUEUE("queue"),
+        PREPROCESS("preprocess"),
+        RECOGNIZE("recognize"),
+        EXTRACT("extract"),
+        PERSIST("persist");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        private static Stage byMetricName(String metricName) {
+            for (Stage stage : values()) {
+                if (stage.metricName.equals(metricName)) {
+                    return stage;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final ThreadLocal<OcrTimeline> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+
+    // 识别超时时执行器线程可能仍在写入，用原子数组保证读取到完整的值
+    private final AtomicLongArray durations = new AtomicLongArray(Stage.values().length);
+
+    private OcrTimeline() {
+    }
+
+    /**
+     * 开始记录并绑定到当前线程，请求结束时必须调用end
+     * @return 新的耗时记录
+     */
+    public static OcrTimeline begin() {
+        OcrTimeline timeline = new OcrTimeline();
+        CURRENT.set(timeline);
+        return timeline;
+    }
+
+    /**
+     * 解除当前线程绑定的记录
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * 累加当前线程的记录中某个阶段的耗时，未开始记录时忽略
+     * @param stage 阶段
+     * @param nanos 耗时（纳秒）
+     */
+    public static void record(Stage stage, long nanos) {
+        OcrTimeline timeline = CURRENT.get();
+        if (timeline != null) {
+            timeline.durations.addAndGet(stage.ordinal(), nanos);
+        }
+    }
+
+    /**
+     * 包装在其他线程上执行的任务，使任务中记录的耗时计入当前线程的记录
+     * @param task 任务
+     * @return 包装后的任务，未开始记录时为原任务
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        OcrTimeline timeline = CURRENT.get();
+        if (timeline == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(timeline);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    /**
+     * 当前线程的记录中各阶段的原始耗时，随识别任务保存，供等待任务的请求合并
+     * @return 格式为"阶段名=纳秒"并以逗号分隔，识别耗时包含预处理；未开始记录或没有耗时时为空
+     */
+    public static String encodeStages() {
+        OcrTimeline timeline = CURRENT.get();
+        if (timeline == null) {
+            return null;
+        }
+        StringBuilder encoded = new StringBuilder();
+        for (Stage stage : Stage.values()) {
+            long nanos = timeline.durations.get(stage.ordinal());
+            if (nanos > 0) {
+                if (!encoded.isEmpty()) {
+                    encoded.append(',');
+                }
+                encoded.append(stage.metricName).append('=').append(nanos);
+            }
+        }
+        return encoded.isEmpty() ? null : encoded.toString();
+    }
+
+    /**
+     * 将处理节点保存的各阶段耗时累加到当前线程的记录中，未开始记录时忽略。
+     * 无法识别的阶段和格式错误的部分跳过
+     * @param encoded encodeStages返回的字符串，可以为空
+     * @return 合并的各阶段耗时之和（纳秒），预处理已包含在识别中不重复计算
+     */
+    public static long mergeStages(String encoded) {
+        OcrTimeline timeline = CURRENT.get();
+        if (timeline == null || encoded == null || encoded.isEmpty()) {
+            return 0;
+        }
+        long total = 0;
+        for (String part : encoded.split(",")) {
+            int separator = part.indexOf('=');
+            Stage stage = separator > 0 ? Stage.byMetricName(part.substring(0, separator)) : null;
+            if (stage == null) {
+                continue;
+            }
+            long nanos;
+            try {
+                nanos = Long.parseLong(part.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            timeline.durations.addAndGet(stage.ordinal(), nanos);
+            if (stage != Stage.PREPROCESS) {
+                total += nanos;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 各阶段的耗时（毫秒）和请求总耗时（total），只包含有记录的阶段。
+     * 识别耗时不含预处理，各阶段之和加上排队等未计入的时间即为总耗时
+     * @return 阶段名到耗时的映射，按流程顺序排列
+     */
+    public Map<String, Double> toMillis() {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        long preprocess = durations.get(Stage.PREPROCESS.ordinal());
+        for (Stage stage : Stage.values()) {
+            long nanos = durations.get(stage.ordinal());
+            if (stage == Stage.RECOGNIZE && nanos > 0) {
+                nanos = Math.max(0, nanos - preprocess);
+            }
+            if (nanos > 0) {
+                millis.put(stage.metricName, toMillis(nanos));
+            }
+        }
+        millis.put("total", toMillis(System.nanoTime() - startNanos));
+        return millis;
+    }
+
+    /**
+     * 按Server-Timing响应头的格式输出，如save;dur=12.5, recognize;dur=830.1, total;dur=870.3
+     * @param millis toMillis返回的各阶段耗时
+     * @return 响应头的值
+     */
+    public static String toServerTiming(Map<String, Double> millis) {
+        StringBuilder header = new StringBuilder();
+        for (Map.Entry<String, Double> entry : millis.entrySet()) {
+            if (!header.isEmpty()) {
+                header.append(", ");
+            }
+            header.append(entry.getKey()).append(";dur=").append(String.format(Locale.ROOT, "%.1f", entry.getValue()));
+        }
+        return header.toString();
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.formscanner.service.ocr.impl.baidu;
 
 import com.example.formscanner.auth.BaiduOcrAuth;
 import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.ocr.OcrMetrics;
 import com.example.formscanner.service.ocr.OcrRecognizer;
 import com.example.formscanner.util.baidu.Base64Util;
 import com.example.formscanner.util.baidu.FileUtil;
@@ -28,13 +29,19 @@ public abstract class AbstractBaiduOcrRecognizer implements OcrRecognizer {
     @Resource
     private BaiduOcrAuth baiduOcrAuth;
 
+    @Resource
+    private OcrMetrics ocrMetrics;
+
     protected abstract String getUrl();
 
     protected abstract Map<String, String> getBodyParams();
 
     @Override
     public String recognizeText(File imageFile) throws IOException {
+        // 读取图片并进行Base64编码，记为预处理步骤
+        long encodeStart = System.nanoTime();
         FormBody body = buildFormBody(imageFile);
+        ocrMetrics.recordPreprocess(getRecognizerType(), "encode", System.nanoTime() - encodeStart);
 
         Request request = new Request.Builder()
                 .url(getUrl() + baiduOcrAuth.getAccessToken())
@@ -43,8 +50,13 @@ public abstract class AbstractBaiduOcrRecognizer implements OcrRecognizer {
                 .addHeader("Accept", "application/json")
                 .build();
 
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
         try (Response response = okHttpClient.newCall(request).execute()){
+            status = String.valueOf(response.code());
             return response.body().string();
+        } finally {
+            ocrMetrics.recordBaiduHttp("recognise", status, System.nanoTime() - start);
         }
     }
 
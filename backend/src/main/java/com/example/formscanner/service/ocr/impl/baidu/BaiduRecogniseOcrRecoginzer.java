@@ -55,7 +55,7 @@ public class BaiduRecogniseOcrRecoginzer extends AbstractBaiduOcrRecognizer {
 
         Map<String, String> responseMap =
                 response.getData().getRet().stream().collect(Collectors.toMap(RetItem::getWordName, RetItem::getWord));
-        log.info("Log id: {}. responseMap: {}", response.getLogId(), responseMap);
+        log.debug("Log id: {}. responseMap: {}", response.getLogId(), responseMap);
 
         responseMap.forEach((key, value) -> {
             Field fieldValue;
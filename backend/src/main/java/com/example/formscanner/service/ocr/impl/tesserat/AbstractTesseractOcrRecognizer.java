@@ -2,6 +2,7 @@ package com.example.formscanner.service.ocr.impl.tesserat;
 
 import com.example.formscanner.mapper.FormDataMapper;
 import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.ocr.OcrMetrics;
 import com.example.formscanner.service.ocr.OcrRecognizer;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -28,6 +30,9 @@ public abstract class AbstractTesseractOcrRecognizer implements OcrRecognizer {
     @Resource
     private FormDataMapper formDataMapper;
 
+    @Resource
+    private OcrMetrics ocrMetrics;
+
     @Value("${form.scanner.tesseract.data-path:./tessdata}")
     private String tesseractDataPath;
 
@@ -36,8 +41,31 @@ public abstract class AbstractTesseractOcrRecognizer implements OcrRecognizer {
 
     protected abstract void setTessVariable(ITesseract tesseract);
 
+    /**
+     * 预处理图像
+     * @param imageFile 原始图像文件
+     * @return 预处理后的临时图像文件，识别后由调用方删除
+     * @throws IOException 如果处理失败
+     */
     protected abstract File preprocessImage(File imageFile) throws IOException;
 
+    /**
+     * 记录预处理步骤的耗时
+     * @param step 步骤名称
+     * @param startNanos 步骤的开始时间（System.nanoTime）
+     * @return 当前时间，作为下一步骤的开始时间
+     */
+    protected long stepCompleted(String step, long startNanos) {
+        long now = System.nanoTime();
+        ocrMetrics.recordPreprocess(getRecognizerType(), step, now - startNanos);
+        return now;
+    }
+
+    @Override
+    public boolean isCpuBound() {
+        return true;
+    }
+
     @Override
     public String recognizeText(File imageFile) throws IOException {
         ITesseract tesseract = new Tesseract();
@@ -46,13 +74,15 @@ public abstract class AbstractTesseractOcrRecognizer implements OcrRecognizer {
 
         this.setTessVariable(tesseract);
 
+        // 对图像进行预处理后再识别
+        File preprocessedImage = preprocessImage(imageFile);
         try {
-            // 对图像进行预处理后再识别
-            File preprocessedImage = preprocessImage(imageFile);
             return tesseract.doOCR(preprocessedImage);
         } catch (TesseractException e) {
             log.error("{} OCR识别失败", getRecognizerType(), e);
             return "";
+        } finally {
+            Files.deleteIfExists(preprocessedImage.toPath());
         }
     }
 
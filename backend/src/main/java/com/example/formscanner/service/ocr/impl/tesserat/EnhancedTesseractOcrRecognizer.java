@@ -55,10 +55,12 @@ public class EnhancedTesseractOcrRecognizer  extends AbstractTesseractOcrRecogni
     @Override
     protected File preprocessImage(File imageFile) throws IOException {
         // 读取原始图像
+        long stepStart = System.nanoTime();
         BufferedImage originalImage = ImageIO.read(imageFile);
         if (originalImage == null) {
             throw new IOException("无法读取图像文件: " + imageFile.getAbsolutePath());
         }
+        stepStart = stepCompleted("read", stepStart);
         
         // 获取图像尺寸
         int width = originalImage.getWidth();
@@ -69,6 +71,7 @@ public class EnhancedTesseractOcrRecognizer  extends AbstractTesseractOcrRecogni
         Graphics g = grayImage.getGraphics();
         g.drawImage(originalImage, 0, 0, null);
         g.dispose();
+        stepStart = stepCompleted("grayscale", stepStart);
         
         // 2. 应用高斯模糊以减少噪点
         float[] blurKernel = {
@@ -78,6 +81,7 @@ public class EnhancedTesseractOcrRecognizer  extends AbstractTesseractOcrRecogni
         };
         ConvolveOp blurOp = new ConvolveOp(new Kernel(3, 3, blurKernel), ConvolveOp.EDGE_NO_OP, null);
         BufferedImage blurredImage = blurOp.filter(grayImage, null);
+        stepStart = stepCompleted("blur", stepStart);
         
         // 3. 应用锐化滤镜以增强边缘
         float[] sharpenKernel = {
@@ -87,6 +91,7 @@ public class EnhancedTesseractOcrRecognizer  extends AbstractTesseractOcrRecogni
         };
         ConvolveOp sharpenOp = new ConvolveOp(new Kernel(3, 3, sharpenKernel), ConvolveOp.EDGE_NO_OP, null);
         BufferedImage sharpenedImage = sharpenOp.filter(blurredImage, null);
+        stepStart = stepCompleted("sharpen", stepStart);
         
         // 4. 自适应二值化处理 - 使用积分图像(Integral Image)优化性能
         BufferedImage binaryImage = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
@@ -143,6 +148,7 @@ public class EnhancedTesseractOcrRecognizer  extends AbstractTesseractOcrRecogni
                 binaryImage.setRGB(x, y, Color.WHITE.getRGB());
             }
         });
+        stepStart = stepCompleted("binarize", stepStart);
         
         
         // 5. 应用形态学操作（闭运算）以连接断开的文本
@@ -150,12 +156,12 @@ public class EnhancedTesseractOcrRecognizer  extends AbstractTesseractOcrRecogni
         Graphics2D g2d = morphImage.createGraphics();
         g2d.drawImage(binaryImage, 0, 0, null);
         g2d.dispose();
+        stepStart = stepCompleted("morphology", stepStart);
         
-        // 保存预处理后的图像
-        String originalPath = imageFile.getAbsolutePath();
-        String preprocessedPath = originalPath.substring(0, originalPath.lastIndexOf(".")) + "_enhanced.png";
-        File preprocessedFile = new File(preprocessedPath);
+        // 预处理后的图像保存为临时文件，识别后删除，不与原图放在一起
+        File preprocessedFile = File.createTempFile("ocr-enhanced-", ".png");
         ImageIO.write(morphImage, "png", preprocessedFile);
+        stepCompleted("write", stepStart);
         
         return preprocessedFile;
     }
@@ -52,10 +52,12 @@ public class TesseractOcrRecognizer extends AbstractTesseractOcrRecognizer {
     @Override
     protected File preprocessImage(File imageFile) throws IOException {
         // 读取原始图像
+        long stepStart = System.nanoTime();
         BufferedImage originalImage = ImageIO.read(imageFile);
         if (originalImage == null) {
             throw new IOException("无法读取图像文件: " + imageFile.getAbsolutePath());
         }
+        stepStart = stepCompleted("read", stepStart);
         
         // 获取图像尺寸
         int width = originalImage.getWidth();
@@ -100,12 +102,12 @@ public class TesseractOcrRecognizer extends AbstractTesseractOcrRecognizer {
                 processedImage.setRGB(x, y, newRgb);
             }
         }
+        stepStart = stepCompleted("binarize", stepStart);
         
-        // 保存预处理后的图像
-        String originalPath = imageFile.getAbsolutePath();
-        String preprocessedPath = originalPath.substring(0, originalPath.lastIndexOf(".")) + "_preprocessed.png";
-        File preprocessedFile = new File(preprocessedPath);
+        // 预处理后的图像保存为临时文件，识别后删除，不与原图放在一起
+        File preprocessedFile = File.createTempFile("ocr-preprocessed-", ".png");
         ImageIO.write(processedImage, "png", preprocessedFile);
+        stepCompleted("write", stepStart);
         
         return preprocessedFile;
     }
@@ -0,0 +1,176 @@
+package com.example.formscanner.service.persistence;
+
+import com.example.formscanner.config.SqliteProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 合并提交的写入队列
+ * 写操作由调用线程放入队列，专用写线程每次取出一批在同一个事务中执行，一次提交完成多个写操作。
+ * 每个写操作在独立的保存点中执行，单个写操作失败只回滚它自己，不影响同批次的其他写操作。
+ * 调用线程等待所在批次提交后返回，对调用方而言仍是同步写入
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GroupCommitWriter {
+    private final PlatformTransactionManager transactionManager;
+
+    private final SqliteProperties properties;
+
+    private BlockingQueue<WriteTask<?>> queue;
+
+    private TransactionTemplate batchTransaction;
+
+    private TransactionTemplate itemTransaction;
+
+    private Thread writerThread;
+
+    private volatile boolean running = true;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(properties.getWriteQueue().getCapacity());
+        batchTransaction = new TransactionTemplate(transactionManager);
+        itemTransaction = new TransactionTemplate(transactionManager);
+        itemTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+
+        writerThread = new Thread(this::writeLoop, "sqlite-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(10_000L);
+    }
+
+    /**
+     * 执行写操作，等待所在批次提交后返回
+     * @param work 写操作
+     * @param <T> 返回值类型
+     * @return 写操作的返回值
+     */
+    public <T> T execute(Supplier<T> work) {
+        // 已在事务中（如写线程自身或外层事务）时直接执行，避免等待自己持有的写连接
+        if (TransactionSynchronizationManager.isActualTransactionActive() || Thread.currentThread() == writerThread) {
+            return work.get();
+        }
+
+        WriteTask<T> task = new WriteTask<>(work);
+        try {
+            queue.put(task);
+            return task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待写入被中断", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * 执行没有返回值的写操作
+     * @param work 写操作
+     */
+    public void execute(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void writeLoop() {
+        List<WriteTask<?>> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                if (queue.isEmpty()) {
+                    break;
+                }
+                continue;
+            }
+            // 取出等待中的其他写操作，与第一个写操作一起提交
+            queue.drainTo(batch, properties.getWriteQueue().getBatchSize() - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<WriteTask<?>> batch) {
+        try {
+            batchTransaction.executeWithoutResult(status -> {
+                for (WriteTask<?> task : batch) {
+                    task.run(itemTransaction);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("合并提交 {} 个写操作失败", batch.size(), e);
+            batch.forEach(task -> task.future.completeExceptionally(e));
+            return;
+        }
+
+        if (batch.size() > 1) {
+            log.debug("合并提交 {} 个写操作", batch.size());
+        }
+        batch.forEach(WriteTask::complete);
+    }
+
+    /**
+     * 队列中的写操作
+     */
+    private static class WriteTask<T> {
+        private final Supplier<T> work;
+
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private T result;
+
+        private RuntimeException error;
+
+        WriteTask(Supplier<T> work) {
+            this.work = work;
+        }
+
+        /**
+         * 在保存点中执行写操作，失败时只回滚到保存点
+         */
+        void run(TransactionTemplate itemTransaction) {
+            try {
+                result = itemTransaction.execute(status -> work.get());
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.formscanner.service.reextract;
+
+import com.example.formscanner.mapper.FormDataMapper;
+import com.example.formscanner.mapper.FormRawOcrMapper;
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataPatch;
+import com.example.formscanner.model.FormDataSelection;
+import com.example.formscanner.model.FormRawOcr;
+import com.example.formscanner.model.ReextractionProgress;
+import com.example.formscanner.service.cache.FormDataCache;
+import com.example.formscanner.service.ocr.OcrRecognizer;
+import com.example.formscanner.service.ocr.OcrRecognizerFactory;
+import com.example.formscanner.service.persistence.GroupCommitWriter;
+import com.example.formscanner.util.DeflateUtil;
+import com.example.formscanner.util.FormValueParser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 重新提取服务
+ * 从保存的识别原始输出中按当前的提取规则重新提取表单字段，不再调用OCR识别。
+ * 按表单ID分批读取，每批在多个线程上并行解压和提取，只有提取结果与当前内容不同的表单
+ * 才会在一个事务中按版本号条件更新；识别后被手工修改过的表单会跳过，不会覆盖人工修正
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FormReextractionService {
+    // 由提取规则得到的字段
+    private static final Map<String, Function<FormData, String>> EXTRACTED_FIELDS = Map.of(
+            "projectName", FormData::getProjectName,
+            "constructionUnit", FormData::getConstructionUnit,
+            "projectAddress", FormData::getProjectAddress,
+            "constructionPart", FormData::getConstructionPart,
+            "strengthLevel", FormData::getStrengthLevel,
+            "currentVolume", FormData::getCurrentVolume);
+
+    private final FormRawOcrMapper formRawOcrMapper;
+
+    private final FormDataMapper formDataMapper;
+
+    private final OcrRecognizerFactory ocrRecognizerFactory;
+
+    private final GroupCommitWriter groupCommitWriter;
+
+    private final FormDataCache formDataCache;
+
+    private final PlatformTransactionManager transactionManager;
+
+    // 并行提取的线程数，为0时使用CPU核数
+    @Value("${form.scanner.reextract.parallelism:0}")
+    private int parallelism;
+
+    // 每批读取和提交的表单数
+    @Value("${form.scanner.reextract.batch-size:1000}")
+    private int batchSize;
+
+    // 内存中保留的已完成任务数
+    @Value("${form.scanner.reextract.retained-jobs:50}")
+    private int retainedJobs;
+
+    private final Map<String, ReextractionProgress> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService coordinator;
+
+    private ExecutorService extractExecutor;
+
+    private TransactionTemplate readTransaction;
+
+    @PostConstruct
+    public void init() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        // 任务依次执行，同一时间只有一个任务在读写数据库
+        coordinator = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reextract-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger counter = new AtomicInteger();
+        extractExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "reextract-worker-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdownNow();
+        extractExecutor.shutdownNow();
+    }
+
+    /**
+     * 提交重新提取任务，异步执行
+     * @param selection 表单选择条件，没有条件时处理全部保存了原始输出的表单
+     * @return 任务进度
+     */
+    public ReextractionProgress submit(FormDataSelection selection) {
+        evictFinishedJobs();
+        ReextractionProgress progress = new ReextractionProgress(UUID.randomUUID().toString());
+        jobs.put(progress.getId(), progress);
+        coordinator.execute(() -> run(selection, progress));
+        return progress;
+    }
+
+    /**
+     * 查询重新提取进度
+     * @param id 任务ID
+     * @return 任务进度
+     */
+    public Optional<ReextractionProgress> getProgress(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    private void run(FormDataSelection selection, ReextractionProgress progress) {
+        progress.start();
+        log.info("开始重新提取表单字段: {}", progress.getId());
+        // 每个任务开始时解析一次识别器，避免逐条查找
+        Map<String, OcrRecognizer> recognizers = new HashMap<>();
+        for (String type : ocrRecognizerFactory.getAvailableRecognizerTypes()) {
+            recognizers.put(type, ocrRecognizerFactory.getRecognizer(type));
+        }
+        try {
+            long afterId = 0;
+            while (true) {
+                long after = afterId;
+                List<FormRawOcr> batch = readTransaction.execute(
+                        status -> formRawOcrMapper.selectForReextraction(selection, after, batchSize));
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                processBatch(batch, recognizers, progress);
+                afterId = batch.get(batch.size() - 1).getFormDataId();
+            }
+            progress.finish();
+            log.info("重新提取完成: {}, 读取 {} 条，更新 {} 条，失败 {} 条，{} 条/秒", progress.getId(),
+                    progress.getScanned(), progress.getUpdated(), progress.getFailed(),
+                    Math.round(progress.getFormsPerSecond()));
+        } catch (RuntimeException e) {
+            log.error("重新提取失败: {}", progress.getId(), e);
+            progress.fail(e.getMessage());
+        }
+    }
+
+    private void processBatch(List<FormRawOcr> batch, Map<String, OcrRecognizer> recognizers,
+                              ReextractionProgress progress) {
+        // 按线程数切分，各线程独立解压和提取
+        int chunkSize = Math.max(1, (batch.size() + parallelism - 1) / parallelism);
+        List<CompletableFuture<List<FormDataPatch>>> futures = new ArrayList<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (int from = 0; from < batch.size(); from += chunkSize) {
+            List<FormRawOcr> chunk = batch.subList(from, Math.min(batch.size(), from + chunkSize));
+            futures.add(CompletableFuture.supplyAsync(() -> extract(chunk, recognizers, failed), extractExecutor));
+        }
+        List<FormDataPatch> patches = new ArrayList<>();
+        futures.forEach(future -> patches.addAll(future.join()));
+
+        int updated = 0;
+        if (!patches.isEmpty()) {
+            updated = groupCommitWriter.execute(() -> {
+                int count = 0;
+                for (FormDataPatch patch : patches) {
+                    FormData result = formDataMapper.patch(patch);
+                    // 读取之后被修改的表单版本号已变化，不更新
+                    if (result != null) {
+                        formRawOcrMapper.updateExtractedVersion(result.getId(), result.getVersion());
+                        count++;
+                    }
+                }
+                return count;
+            });
+            patches.forEach(patch -> formDataCache.invalidate(patch.getId()));
+        }
+        progress.batchCompleted(batch.size(), updated, failed.get());
+    }
+
+    private List<FormDataPatch> extract(List<FormRawOcr> chunk, Map<String, OcrRecognizer> recognizers,
+                                        AtomicInteger failed) {
+        List<FormDataPatch> patches = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (FormRawOcr raw : chunk) {
+            OcrRecognizer recognizer = recognizers.get(raw.getOcrType());
+            if (recognizer == null || !DeflateUtil.ENCODING.equals(raw.getEncoding())) {
+                failed.incrementAndGet();
+                continue;
+            }
+            FormData extracted;
+            try {
+                extracted = recognizer.getFormData(DeflateUtil.decompress(raw.getContent(), raw.getRawSize()));
+            } catch (RuntimeException e) {
+                log.debug("表单 {} 的原始输出无法提取: {}", raw.getFormDataId(), e.getMessage());
+                failed.incrementAndGet();
+                continue;
+            }
+
+            // 只更新与当前内容不同的字段
+            Map<String, Object> fields = new LinkedHashMap<>();
+            EXTRACTED_FIELDS.forEach((field, getter) -> {
+                String value = getter.apply(extracted);
+                if (!Objects.equals(value, getter.apply(raw.getFormData()))) {
+                    fields.put(field, value);
+                }
+            });
+            if (fields.isEmpty()) {
+                continue;
+            }
+            FormValueParser.addDerivedValues(fields);
+            patches.add(FormDataPatch.builder()
+                    .id(raw.getFormDataId())
+                    .fields(fields)
+                    .expectedVersions(List.of(raw.getExtractedVersion()))
+                    .updatedAt(now)
+                    .build());
+        }
+        return patches;
+    }
+
+    private void evictFinishedJobs() {
+        if (jobs.size() < retainedJobs) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(job -> job.getFinishedAt() != null)
+                .sorted((a, b) -> a.getFinishedAt().compareTo(b.getFinishedAt()))
+                .limit(Math.max(1, jobs.size() - retainedJobs + 1))
+                .forEach(job -> jobs.remove(job.getId()));
+    }
+}
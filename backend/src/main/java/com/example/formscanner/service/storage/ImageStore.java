@@ -0,0 +1,395 @@
+package com.example.formscanner.service.storage;
+
+import com.example.formscanner.mapper.ImageBlobMapper;
+import com.example.formscanner.model.ImageBlob;
+import com.example.formscanner.service.persistence.GroupCommitWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 图片存储
+ * 图片按内容的SHA-256摘要命名，保存在objects目录下按摘要前两级分片的子目录中（如objects/ab/cd/abcd...jpg），
+ * 单个目录中的文件数不会随图片总数无限增长，相同内容的图片只保存一份。
+ * 上传内容先写入临时文件，边写边计算摘要，完成后原子移动到最终位置，不会留下写了一半的图片。
+ * 每张图片在image_blob表中登记，后台定期回收既没有表单引用、也没有未完成的识别任务引用，
+ * 且在保留期限内没有被再次保存的图片，连同其缩略图一起删除。
+ * 多个节点可能共享上传目录，保存与回收之间不加进程内的锁，只以删除记录时的回收条件为准：
+ * 回收先将文件移到临时目录再删除记录，记录没有删除时移回原位；保存在写入文件后重新检查记录和文件。
+ * 缩略图按尺寸保存在thumbnails目录下，与原图使用相同的分片方式
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageStore {
+    // 保存时图片被并发回收后的最多尝试次数
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    // 临时文件超过该时间仍未移走，说明写入过程中进程已退出
+    private static final Duration STALE_TEMP_FILE_AGE = Duration.ofHours(1);
+
+    private static final Pattern EXTENSION_PATTERN = Pattern.compile("[a-z0-9]{1,10}");
+
+    private static final String DEFAULT_EXTENSION = "jpg";
+
+    private final ImageBlobMapper imageBlobMapper;
+
+    private final GroupCommitWriter groupCommitWriter;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${form.scanner.upload-dir}")
+    private String uploadDir;
+
+    // 不再被引用的图片的保留期限
+    @Value("${form.scanner.image-store.orphan-retention:7d}")
+    private Duration orphanRetention;
+
+    // 回收间隔，为0时不回收
+    @Value("${form.scanner.image-store.gc-interval:1h}")
+    private Duration gcInterval;
+
+    // 每批检查的图片数
+    @Value("${form.scanner.image-store.gc-batch-size:500}")
+    private int gcBatchSize;
+
+    // 可生成的缩略图尺寸（长边像素数）
+    @Getter
+    @Value("${form.scanner.image-store.thumbnail-sizes:160,480}")
+    private List<Integer> thumbnailSizes;
+
+    private Path objectsDir;
+
+    private Path thumbnailsDir;
+
+    private Path tempDir;
+
+    private ScheduledExecutorService scheduler;
+
+    private TransactionTemplate readTransaction;
+
+    @PostConstruct
+    public void init() throws IOException {
+        // 使用绝对路径记录到任务表中，共享目录的其他节点也能找到图片
+        Path root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        objectsDir = root.resolve("objects");
+        thumbnailsDir = root.resolve("thumbnails");
+        tempDir = root.resolve("tmp");
+        Files.createDirectories(objectsDir);
+        Files.createDirectories(tempDir);
+        readTransaction = new TransactionTemplate(transactionManager);
+        readTransaction.setReadOnly(true);
+
+        if (gcInterval.isZero() || gcInterval.isNegative()) {
+            log.info("图片回收已关闭");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-store-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = gcInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::runGarbageCollection, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 保存图片，内容相同的图片已存在时不再重复写入
+     * @param originalFilename 原始文件名，用于确定扩展名
+     * @param source 图片内容
+     * @return 保存后的图片
+     * @throws IOException 如果保存失败
+     */
+    public StoredImage save(String originalFilename, InputStreamSource source) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            Optional<StoredImage> stored = trySave(originalFilename, source);
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            if (attempt >= MAX_SAVE_ATTEMPTS) {
+                throw new IOException("图片保存过程中被回收，已尝试 " + attempt + " 次");
+            }
+            log.warn("图片保存过程中被回收，重新保存: {}", originalFilename);
+        }
+    }
+
+    /**
+     * 保存一次图片
+     * @return 保存后的图片，保存过程中被其他节点回收时为空
+     */
+    private Optional<StoredImage> trySave(String originalFilename, InputStreamSource source) throws IOException {
+        Path tempFile = createTempFile();
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream inputStream = new DigestInputStream(source.getInputStream(), digest)) {
+                size = Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            LocalDateTime now = LocalDateTime.now();
+            ImageBlob candidate = ImageBlob.builder()
+                    .hash(hash)
+                    .extension(extensionOf(originalFilename))
+                    .size(size)
+                    .createdAt(now)
+                    .lastUsedAt(now)
+                    .build();
+
+            // 先登记再写入文件：登记刷新了最近使用时间，之后回收时的删除条件不再成立
+            ImageBlob blob = groupCommitWriter.execute(() -> imageBlobMapper.touch(candidate));
+            Path target = resolve(blob);
+            if (!Files.exists(target)) {
+                moveIntoPlace(tempFile, target);
+            }
+            // 登记之前已被回收删除记录的图片，文件可能在写入后才被移走；记录和文件都在才算保存完成
+            if (find(hash).isEmpty() || !Files.exists(target)) {
+                return Optional.empty();
+            }
+            return Optional.of(new StoredImage(hash, target));
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 查找图片文件
+     * @param hash 图片摘要
+     * @return 图片记录，不存在时为空
+     */
+    public Optional<ImageBlob> find(String hash) {
+        return Optional.ofNullable(readTransaction.execute(status -> imageBlobMapper.selectByHash(hash)));
+    }
+
+    /**
+     * 图片文件的路径
+     * @param blob 图片记录
+     * @return 文件路径
+     */
+    public Path resolve(ImageBlob blob) {
+        return shard(objectsDir, blob.getHash()).resolve(blob.getHash() + "." + blob.getExtension());
+    }
+
+    /**
+     * 缩略图文件的路径，缩略图统一为JPEG格式
+     * @param hash 原图摘要
+     * @param size 缩略图尺寸
+     * @return 文件路径
+     */
+    public Path resolveThumbnail(String hash, int size) {
+        return shard(thumbnailsDir.resolve(String.valueOf(size)), hash).resolve(hash + ".jpg");
+    }
+
+    /**
+     * 在存储目录中创建临时文件，写完后通过{@link #moveIntoPlace}移动到最终位置
+     * @return 临时文件
+     * @throws IOException 如果创建失败
+     */
+    public Path createTempFile() throws IOException {
+        return Files.createTempFile(tempDir, "upload-", ".tmp");
+    }
+
+    /**
+     * 将写完的临时文件原子移动到最终位置，已存在时覆盖
+     * @param tempFile 临时文件
+     * @param target 最终位置
+     * @throws IOException 如果移动失败
+     */
+    public void moveIntoPlace(Path tempFile, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * 回收不再被引用且超过保留期限的图片，并清理遗留的临时文件
+     * @return 回收的图片数
+     */
+    public int collectGarbage() {
+        long start = System.currentTimeMillis();
+        LocalDateTime usedBefore = LocalDateTime.now().minus(orphanRetention);
+        int collected = 0;
+        long freedBytes = 0;
+        ImageBlob after = null;
+        while (true) {
+            ImageBlob cursor = after;
+            List<ImageBlob> candidates = readTransaction.execute(
+                    status -> imageBlobMapper.selectCollectable(usedBefore, cursor, gcBatchSize));
+            for (ImageBlob blob : candidates) {
+                if (delete(blob, usedBefore)) {
+                    collected++;
+                    freedBytes += blob.getSize();
+                }
+            }
+            if (candidates.size() < gcBatchSize) {
+                break;
+            }
+            // 从本批最后一张之后继续，文件移动失败而没有回收的图片本轮不再查询，下次回收时重试
+            after = candidates.get(candidates.size() - 1);
+        }
+        int staleTempFiles = deleteStaleTempFiles();
+        if (collected > 0 || staleTempFiles > 0) {
+            log.info("已回收图片 {} 张（{} 字节），清理临时文件 {} 个，耗时 {} ms",
+                    collected, freedBytes, staleTempFiles, System.currentTimeMillis() - start);
+        }
+        return collected;
+    }
+
+    private void runGarbageCollection() {
+        try {
+            collectGarbage();
+        } catch (Exception e) {
+            log.error("回收图片时发生错误", e);
+        }
+    }
+
+    /**
+     * 回收一张图片：先将文件移到临时目录，再在仍满足回收条件时删除记录
+     * 记录删除后原位置已没有文件，不会留下没有记录的图片；记录没有删除（已被再次保存或引用）时将文件移回。
+     * 移到临时目录的文件删除失败时由临时文件清理删除
+     * @return 是否回收了该图片
+     */
+    private boolean delete(ImageBlob blob, LocalDateTime usedBefore) {
+        Path target = resolve(blob);
+        Path aside = tempDir.resolve("gc-" + target.getFileName() + "-" + UUID.randomUUID());
+        boolean movedAside;
+        try {
+            Files.move(target, aside, StandardCopyOption.ATOMIC_MOVE);
+            movedAside = true;
+        } catch (NoSuchFileException e) {
+            movedAside = false;
+        } catch (IOException e) {
+            log.warn("移动待回收的图片文件失败，下次回收时重试: {}", target, e);
+            return false;
+        }
+
+        if (movedAside) {
+            try {
+                // 移动保留了原来的修改时间，刷新后其他节点清理临时文件时不会删除
+                Files.setLastModifiedTime(aside, FileTime.from(Instant.now()));
+            } catch (IOException e) {
+                log.warn("刷新待回收图片文件的修改时间失败: {}", aside, e);
+            }
+        }
+
+        int deleted;
+        try {
+            deleted = groupCommitWriter.execute(() -> imageBlobMapper.deleteIfCollectable(blob.getHash(), usedBefore));
+        } catch (RuntimeException e) {
+            restore(aside, target, movedAside);
+            throw e;
+        }
+        if (deleted == 0) {
+            restore(aside, target, movedAside);
+            return false;
+        }
+        try {
+            Files.deleteIfExists(aside);
+            for (int size : thumbnailSizes) {
+                Files.deleteIfExists(resolveThumbnail(blob.getHash(), size));
+            }
+        } catch (IOException e) {
+            log.warn("删除图片文件失败: {}", target, e);
+        }
+        return true;
+    }
+
+    /**
+     * 将没有回收的图片文件移回原位置，内容相同，期间重新保存写入的文件被覆盖也没有影响
+     */
+    private void restore(Path aside, Path target, boolean movedAside) {
+        if (!movedAside) {
+            return;
+        }
+        try {
+            moveIntoPlace(aside, target);
+        } catch (IOException e) {
+            log.error("图片文件移回原位置失败: {} -> {}", aside, target, e);
+        }
+    }
+
+    private int deleteStaleTempFiles() {
+        Instant staleBefore = Instant.now().minus(STALE_TEMP_FILE_AGE);
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDir)) {
+            for (Path file : files) {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(staleBefore) && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("清理临时文件失败: {}", tempDir, e);
+        }
+        return deleted;
+    }
+
+    private static Path shard(Path dir, String hash) {
+        return dir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4));
+    }
+
+    private static String extensionOf(String originalFilename) {
+        if (originalFilename == null || !originalFilename.contains(".")) {
+            return DEFAULT_EXTENSION;
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return EXTENSION_PATTERN.matcher(extension).matches() ? extension : DEFAULT_EXTENSION;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 保存后的图片
+     * @param hash 内容的SHA-256摘要
+     * @param path 文件路径
+     */
+    public record StoredImage(String hash, Path path) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.formscanner.service.storage;
+
+import com.example.formscanner.model.ImageBlob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * 缩略图服务
+ * 缩略图在第一次请求时生成并保存在图片存储中，之后直接读取文件。
+ * 大图解码时按行列间隔采样，只解码缩略图所需的约两倍分辨率，不必把整张扫描件读入内存
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ThumbnailService {
+    private final ImageStore imageStore;
+
+    // 缩略图的JPEG压缩质量（0~1）
+    @Value("${form.scanner.image-store.thumbnail-quality:0.8}")
+    private float quality;
+
+    /**
+     * 获取缩略图文件，不存在时生成
+     * @param blob 原图
+     * @param size 缩略图尺寸（长边像素数），必须是配置的尺寸之一
+     * @return 缩略图文件，原图无法解码时为空
+     * @throws IllegalArgumentException 如果尺寸不在配置的尺寸中
+     * @throws NoSuchFileException 如果原图文件不存在（如已被回收）
+     * @throws IOException 如果读写文件失败
+     */
+    public Optional<Path> getThumbnail(ImageBlob blob, int size) throws IOException {
+        if (!imageStore.getThumbnailSizes().contains(size)) {
+            throw new IllegalArgumentException("不支持的缩略图尺寸: " + size + "，可选: " + imageStore.getThumbnailSizes());
+        }
+        Path thumbnail = imageStore.resolveThumbnail(blob.getHash(), size);
+        if (Files.exists(thumbnail)) {
+            return Optional.of(thumbnail);
+        }
+
+        long start = System.currentTimeMillis();
+        BufferedImage image = readSubsampled(imageStore.resolve(blob), size);
+        if (image == null) {
+            return Optional.empty();
+        }
+        BufferedImage scaled = scale(image, size);
+        // 同一缩略图被同时请求时各自生成，后移入的文件覆盖先移入的，内容相同
+        Path tempFile = imageStore.createTempFile();
+        try {
+            writeJpeg(scaled, tempFile);
+            imageStore.moveIntoPlace(tempFile, thumbnail);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+        log.debug("已生成缩略图: {}, 尺寸 {}，耗时 {} ms", blob.getHash(), size, System.currentTimeMillis() - start);
+        return Optional.of(thumbnail);
+    }
+
+    /**
+     * 解码图片，解码后的长边不小于缩略图尺寸的两倍
+     * @return 解码后的图像，不是可识别的图片格式时为null
+     * @throws NoSuchFileException 如果文件不存在
+     */
+    private static BufferedImage readSubsampled(Path file, int size) throws IOException {
+        ImageInputStream opened = ImageIO.createImageInputStream(file.toFile());
+        if (opened == null) {
+            // 文件无法打开时ImageIO返回null而不抛出异常，区分文件不存在和其他读取错误
+            if (Files.notExists(file)) {
+                throw new NoSuchFileException(file.toString());
+            }
+            throw new IOException("无法读取图片文件: " + file);
+        }
+        try (ImageInputStream input = opened) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longSide = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, longSide / (size * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } catch (IOException e) {
+                log.warn("无法解码图片: {}", file, e);
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 按比例缩小到长边不超过指定尺寸（不放大），透明部分填充白色
+     */
+    private static BufferedImage scale(BufferedImage image, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.formscanner.service.sync;
+
+import com.example.formscanner.mapper.FormDataMapper;
+import com.example.formscanner.service.persistence.GroupCommitWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 变更日志的墓碑清理
+ * 删除的表单在变更日志中保留墓碑，供增量同步的客户端得知删除；墓碑超过保留期限后由后台分批删除。
+ * 每批先将清理水位推进到本批最大的变更序号，再删除水位之前的墓碑，两步在同一个写事务中完成。
+ * 令牌早于清理水位的客户端可能错过了被清理的删除，同步时返回410，需要重新全量同步
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FormChangeCompactor {
+    private final FormDataMapper formDataMapper;
+
+    private final GroupCommitWriter groupCommitWriter;
+
+    // 墓碑的保留期限，客户端超过该时间没有同步则需要重新全量同步
+    @Value("${form.scanner.changes.tombstone-retention:30d}")
+    private Duration tombstoneRetention;
+
+    // 清理间隔，为0时不清理
+    @Value("${form.scanner.changes.compaction-interval:1h}")
+    private Duration compactionInterval;
+
+    // 每批清理的墓碑数
+    @Value("${form.scanner.changes.compaction-batch-size:1000}")
+    private int compactionBatchSize;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        if (compactionInterval.isZero() || compactionInterval.isNegative()) {
+            log.info("变更日志墓碑清理已关闭");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "form-change-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = compactionInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::runCompaction, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 删除超过保留期限的墓碑
+     * @return 删除的墓碑数
+     */
+    public int compact() {
+        long start = System.currentTimeMillis();
+        long changedBefore = Instant.now().minus(tombstoneRetention).getEpochSecond();
+        int purged = 0;
+        while (true) {
+            int deleted = groupCommitWriter.execute(() -> {
+                if (formDataMapper.advanceChangeHorizon(changedBefore, compactionBatchSize) == 0) {
+                    return 0;
+                }
+                return formDataMapper.deleteCompactedTombstones();
+            });
+            purged += deleted;
+            if (deleted < compactionBatchSize) {
+                break;
+            }
+        }
+        if (purged > 0) {
+            log.info("已清理变更日志墓碑 {} 条，耗时 {} ms", purged, System.currentTimeMillis() - start);
+        }
+        return purged;
+    }
+
+    private void runCompaction() {
+        try {
+            compact();
+        } catch (Exception e) {
+            log.error("清理变更日志墓碑时发生错误", e);
+        }
+    }
+}
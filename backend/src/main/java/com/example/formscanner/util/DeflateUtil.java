@@ -0,0 +1,72 @@
+package com.example.formscanner.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 文本的deflate压缩工具
+ * 识别结果中的JSON和文本重复度高，压缩后通常只有原来的五分之一左右
+ */
+public final class DeflateUtil {
+    // 压缩方式名称，与压缩内容一起保存
+    public static final String ENCODING = "deflate";
+
+    private DeflateUtil() {
+    }
+
+    /**
+     * 压缩文本
+     * @param text 文本
+     * @return UTF-8编码后压缩的字节
+     */
+    public static byte[] compress(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压文本
+     * @param content 压缩的字节
+     * @param rawSize 压缩前的字节数
+     * @return 文本
+     * @throws IllegalArgumentException 如果内容已损坏
+     */
+    public static String decompress(byte[] content, int rawSize) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(content);
+            byte[] output = new byte[rawSize];
+            int length = 0;
+            while (length < rawSize && !inflater.finished()) {
+                int inflated = inflater.inflate(output, length, rawSize - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawSize) {
+                throw new IllegalArgumentException("压缩内容长度不符: " + length + " / " + rawSize);
+            }
+            return new String(output, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("压缩内容已损坏: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
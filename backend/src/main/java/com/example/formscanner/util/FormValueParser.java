@@ -0,0 +1,79 @@
+package com.example.formscanner.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 表单字段规范化工具
+ * 识别结果中的方量和强度等级是自由文本（可能带单位、全角字符、空格），入库时解析为可计算的值
+ */
+public final class FormValueParser {
+    // 第一个数字，允许小数点或逗号作为小数分隔符
+    private static final Pattern NUMBER = Pattern.compile("(\\d+(?:[.,]\\d+)?)");
+
+    // 混凝土强度等级，如C30、C 30、c30P6
+    private static final Pattern STRENGTH_GRADE = Pattern.compile("C(\\d{2,3})");
+
+    // 单车方量的合理上限（m³），超出视为识别错误
+    private static final double MAX_VOLUME = 100;
+
+    private FormValueParser() {
+    }
+
+    /**
+     * 要更新的列中包含本车方量或强度等级时，补充由其解析出的方量和规范强度等级
+     * @param fields 要更新的列和新值
+     */
+    public static void addDerivedValues(Map<String, Object> fields) {
+        if (fields.containsKey("currentVolume")) {
+            fields.put("volume", parseVolume((String) fields.get("currentVolume")));
+        }
+        if (fields.containsKey("strengthLevel")) {
+            fields.put("strengthGrade", parseStrengthGrade((String) fields.get("strengthLevel")));
+        }
+    }
+
+    /**
+     * 解析本车方量，如"12.5"、"12.5m³"、"１２．５方"
+     * @param text 识别到的方量文本
+     * @return 方量（m³），无法解析或超出合理范围时返回null
+     */
+    public static Double parseVolume(String text) {
+        if (text == null) {
+            return null;
+        }
+        Matcher matcher = NUMBER.matcher(normalize(text));
+        if (!matcher.find()) {
+            return null;
+        }
+        double volume = Double.parseDouble(matcher.group(1).replace(',', '.'));
+        return volume > 0 && volume <= MAX_VOLUME ? volume : null;
+    }
+
+    /**
+     * 解析强度等级为规范写法，如"c 30"、"Ｃ30P6"、"砼C30"均规范为"C30"
+     * @param text 识别到的强度等级文本
+     * @return 规范的强度等级，无法解析时返回null
+     */
+    public static String parseStrengthGrade(String text) {
+        if (text == null) {
+            return null;
+        }
+        Matcher matcher = STRENGTH_GRADE.matcher(normalize(text).toUpperCase(Locale.ROOT));
+        if (!matcher.find()) {
+            return null;
+        }
+        int grade = Integer.parseInt(matcher.group(1));
+        return grade >= 10 && grade <= 100 ? "C" + grade : null;
+    }
+
+    /**
+     * 全角字符转半角并去掉空白
+     */
+    private static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).replaceAll("\\s+", "").replace('。', '.');
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.formscanner.util;
+
+import org.sqlite.Function;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 全文检索的二元分词
+ * trigram索引只能匹配不少于3个字符的关键词，而"钢筋"、"楼层"这类两个字符的中文关键词很常见。
+ * 文本中连续的字母和数字按相邻的两个字符拆成二元组，以空格分隔写入二元分词索引，
+ * 由unicode61分词后每个二元组是一个词，两个字符的关键词即可按词匹配
+ */
+public final class SearchBigrams {
+    // 在写连接上注册的SQL函数名，触发器调用该函数生成索引内容
+    public static final String FUNCTION_NAME = "bigrams";
+
+    private SearchBigrams() {
+    }
+
+    /**
+     * 将文本拆分为以空格分隔的二元组，标点和空白处断开
+     * @param text 文本
+     * @return 二元组，例如"钢筋混凝土"为"钢筋 筋混 混凝 凝土"
+     */
+    public static String bigrams(String text) {
+        StringBuilder builder = new StringBuilder(text.length() * 3);
+        int previous = -1;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (!Character.isLetterOrDigit(codePoint)) {
+                previous = -1;
+                continue;
+            }
+            if (previous >= 0) {
+                if (!builder.isEmpty()) {
+                    builder.append(' ');
+                }
+                builder.appendCodePoint(previous).appendCodePoint(codePoint);
+            }
+            previous = codePoint;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 关键词能否使用二元分词索引：恰好两个字符且都是字母或数字
+     * @param term 关键词
+     * @return 是否可以使用二元分词索引
+     */
+    public static boolean isIndexable(String term) {
+        if (term.codePointCount(0, term.length()) != 2) {
+            return false;
+        }
+        return term.codePoints().allMatch(Character::isLetterOrDigit);
+    }
+
+    /**
+     * 在连接上注册bigrams(text)函数，写入表单的触发器通过该函数维护二元分词索引
+     * @param connection SQLite连接
+     * @throws SQLException 如果注册失败
+     */
+    public static void register(Connection connection) throws SQLException {
+        Function.create(connection, FUNCTION_NAME, new Function() {
+            @Override
+            protected void xFunc() throws SQLException {
+                String text = value_text(0);
+                if (text == null) {
+                    result();
+                } else {
+                    result(bigrams(text));
+                }
+            }
+        }, 1, Function.FLAG_DETERMINISTIC);
+    }
+}
@@ -1,3 +1,5 @@
+-- 语句以 ;; 分隔（spring.sql.init.separator），触发器内部的语句仍以 ; 结尾
+
 -- 创建表单数据表
 CREATE TABLE IF NOT EXISTS form_data (
     id INTEGER PRIMARY KEY AUTOINCREMENT,
@@ -9,5 +11,253 @@ CREATE TABLE IF NOT EXISTS form_data (
     strengthLevel TEXT,
     currentVolume TEXT,
     created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    -- 由本车方量解析出的数值（m³）和规范的强度等级（如C30），无法解析时为空
+    volume REAL,
+    strengthGrade TEXT,
+    -- 版本号，每次修改加一
+    version INTEGER NOT NULL DEFAULT 0,
+    -- 表单图片的SHA-256摘要（image_blob.hash）
+    image_hash TEXT
+);;
+
+-- 表单列表按创建时间倒序分页，过滤条件使用各自的组合索引，翻页代价与表大小无关
+CREATE INDEX IF NOT EXISTS idx_form_data_created ON form_data (created_at, id);;
+
+CREATE INDEX IF NOT EXISTS idx_form_data_project ON form_data (projectName, created_at, id);;
+
+CREATE INDEX IF NOT EXISTS idx_form_data_unit ON form_data (constructionUnit, created_at, id);;
+
+CREATE INDEX IF NOT EXISTS idx_form_data_strength ON form_data (strengthLevel, created_at, id);;
+
+-- 增量导出改为按变更日志的序号读取，不再需要按修改时间的索引
+DROP INDEX IF EXISTS idx_form_data_updated;;
+
+-- 图片回收时检查图片是否仍被表单引用
+CREATE INDEX IF NOT EXISTS idx_form_data_image ON form_data (image_hash);;
+
+-- 表单全文检索：外部内容表，只保存索引，内容从form_data读取。
+-- trigram分词按连续三个字符建索引，适合没有空格分词的中文，支持任意位置的部分匹配
+CREATE VIRTUAL TABLE IF NOT EXISTS form_data_fts USING fts5(
+    projectName,
+    constructionUnit,
+    projectAddress,
+    constructionPart,
+    content = 'form_data',
+    content_rowid = 'id',
+    tokenize = 'trigram'
+);;
+
+-- 触发器保持全文索引与form_data同步
+CREATE TRIGGER IF NOT EXISTS form_data_fts_insert AFTER INSERT ON form_data BEGIN
+    INSERT INTO form_data_fts (rowid, projectName, constructionUnit, projectAddress, constructionPart)
+    VALUES (new.id, new.projectName, new.constructionUnit, new.projectAddress, new.constructionPart);
+END;;
+
+CREATE TRIGGER IF NOT EXISTS form_data_fts_delete AFTER DELETE ON form_data BEGIN
+    INSERT INTO form_data_fts (form_data_fts, rowid, projectName, constructionUnit, projectAddress, constructionPart)
+    VALUES ('delete', old.id, old.projectName, old.constructionUnit, old.projectAddress, old.constructionPart);
+END;;
+
+CREATE TRIGGER IF NOT EXISTS form_data_fts_update
+AFTER UPDATE OF projectName, constructionUnit, projectAddress, constructionPart ON form_data BEGIN
+    INSERT INTO form_data_fts (form_data_fts, rowid, projectName, constructionUnit, projectAddress, constructionPart)
+    VALUES ('delete', old.id, old.projectName, old.constructionUnit, old.projectAddress, old.constructionPart);
+    INSERT INTO form_data_fts (rowid, projectName, constructionUnit, projectAddress, constructionPart)
+    VALUES (new.id, new.projectName, new.constructionUnit, new.projectAddress, new.constructionPart);
+END;;
+
+-- 两个字符的关键词无法使用trigram索引，另建二元分词索引：bigrams()函数（由应用在写连接上注册）
+-- 将连续的字母和数字拆成相邻两个字符的二元组，以空格分隔，unicode61分词后每个二元组是一个词。
+-- 无内容表只保存索引，删除时按rowid删除
+CREATE VIRTUAL TABLE IF NOT EXISTS form_data_bigram USING fts5(
+    projectName,
+    constructionUnit,
+    projectAddress,
+    constructionPart,
+    content = '',
+    contentless_delete = 1,
+    tokenize = 'unicode61'
+);;
+
+CREATE TRIGGER IF NOT EXISTS form_data_bigram_insert AFTER INSERT ON form_data BEGIN
+    INSERT INTO form_data_bigram (rowid, projectName, constructionUnit, projectAddress, constructionPart)
+    VALUES (new.id, bigrams(new.projectName), bigrams(new.constructionUnit),
+            bigrams(new.projectAddress), bigrams(new.constructionPart));
+END;;
+
+CREATE TRIGGER IF NOT EXISTS form_data_bigram_delete AFTER DELETE ON form_data BEGIN
+    DELETE FROM form_data_bigram WHERE rowid = old.id;
+END;;
+
+CREATE TRIGGER IF NOT EXISTS form_data_bigram_update
+AFTER UPDATE OF projectName, constructionUnit, projectAddress, constructionPart ON form_data BEGIN
+    DELETE FROM form_data_bigram WHERE rowid = old.id;
+    INSERT INTO form_data_bigram (rowid, projectName, constructionUnit, projectAddress, constructionPart)
+    VALUES (new.id, bigrams(new.projectName), bigrams(new.constructionUnit),
+            bigrams(new.projectAddress), bigrams(new.constructionPart));
+END;;
+
+-- 表单统计：按工程（project）、施工单位（unit）、创建日期（day）分组的单数和方量合计，
+-- 由触发器随form_data增量维护，统计查询只读取分组数。分组值为空时记为空字符串
+CREATE TABLE IF NOT EXISTS form_stats (
+    dimension TEXT NOT NULL,
+    group_key TEXT NOT NULL,
+    form_count INTEGER NOT NULL DEFAULT 0,
+    -- 方量可解析的单数
+    volume_count INTEGER NOT NULL DEFAULT 0,
+    total_volume REAL NOT NULL DEFAULT 0,
+    PRIMARY KEY (dimension, group_key)
+) WITHOUT ROWID;;
+
+CREATE TRIGGER IF NOT EXISTS form_stats_insert AFTER INSERT ON form_data BEGIN
+    INSERT INTO form_stats (dimension, group_key, form_count, volume_count, total_volume)
+    VALUES ('project', COALESCE(new.projectName, ''), 1, new.volume IS NOT NULL, COALESCE(new.volume, 0)),
+           ('unit', COALESCE(new.constructionUnit, ''), 1, new.volume IS NOT NULL, COALESCE(new.volume, 0)),
+           ('day', COALESCE(substr(new.created_at, 1, 10), ''), 1, new.volume IS NOT NULL, COALESCE(new.volume, 0))
+    ON CONFLICT (dimension, group_key) DO UPDATE SET
+        form_count = form_count + excluded.form_count,
+        volume_count = volume_count + excluded.volume_count,
+        total_volume = total_volume + excluded.total_volume;
+END;;
+
+CREATE TRIGGER IF NOT EXISTS form_stats_delete AFTER DELETE ON form_data BEGIN
+    UPDATE form_stats SET
+        form_count = form_count - 1,
+        volume_count = volume_count - (old.volume IS NOT NULL),
+        total_volume = total_volume - COALESCE(old.volume, 0)
+    WHERE (dimension = 'project' AND group_key = COALESCE(old.projectName, ''))
+       OR (dimension = 'unit' AND group_key = COALESCE(old.constructionUnit, ''))
+       OR (dimension = 'day' AND group_key = COALESCE(substr(old.created_at, 1, 10), ''));
+    DELETE FROM form_stats WHERE form_count <= 0
+        AND ((dimension = 'project' AND group_key = COALESCE(old.projectName, ''))
+          OR (dimension = 'unit' AND group_key = COALESCE(old.constructionUnit, ''))
+          OR (dimension = 'day' AND group_key = COALESCE(substr(old.created_at, 1, 10), '')));
+END;;
+
+-- 修改时先从旧分组中减去，再加到新分组
+CREATE TRIGGER IF NOT EXISTS form_stats_update
+AFTER UPDATE OF projectName, constructionUnit, created_at, volume ON form_data BEGIN
+    UPDATE form_stats SET
+        form_count = form_count - 1,
+        volume_count = volume_count - (old.volume IS NOT NULL),
+        total_volume = total_volume - COALESCE(old.volume, 0)
+    WHERE (dimension = 'project' AND group_key = COALESCE(old.projectName, ''))
+       OR (dimension = 'unit' AND group_key = COALESCE(old.constructionUnit, ''))
+       OR (dimension = 'day' AND group_key = COALESCE(substr(old.created_at, 1, 10), ''));
+    DELETE FROM form_stats WHERE form_count <= 0
+        AND ((dimension = 'project' AND group_key = COALESCE(old.projectName, ''))
+          OR (dimension = 'unit' AND group_key = COALESCE(old.constructionUnit, ''))
+          OR (dimension = 'day' AND group_key = COALESCE(substr(old.created_at, 1, 10), '')));
+    INSERT INTO form_stats (dimension, group_key, form_count, volume_count, total_volume)
+    VALUES ('project', COALESCE(new.projectName, ''), 1, new.volume IS NOT NULL, COALESCE(new.volume, 0)),
+           ('unit', COALESCE(new.constructionUnit, ''), 1, new.volume IS NOT NULL, COALESCE(new.volume, 0)),
+           ('day', COALESCE(substr(new.created_at, 1, 10), ''), 1, new.volume IS NOT NULL, COALESCE(new.volume, 0))
+    ON CONFLICT (dimension, group_key) DO UPDATE SET
+        form_count = form_count + excluded.form_count,
+        volume_count = volume_count + excluded.volume_count,
+        total_volume = total_volume + excluded.total_volume;
+END;;
+
+-- 表单变更日志：每条表单只保留最近一次变更，seq单调递增且不会重复使用，
+-- 删除后保留墓碑（deleted = 1），客户端按seq增量同步。REPLACE先删除同一表单的旧记录再以新的seq插入。
+-- changed_at为变更时间（Unix秒），超过保留期限的墓碑由后台清理
+CREATE TABLE IF NOT EXISTS form_change (
+    seq INTEGER PRIMARY KEY AUTOINCREMENT,
+    form_id INTEGER NOT NULL UNIQUE,
+    deleted INTEGER NOT NULL DEFAULT 0,
+    changed_at INTEGER
+);;
+
+-- 已清理的墓碑中最大的变更序号，令牌早于该序号的客户端可能错过删除，需要重新全量同步
+CREATE TABLE IF NOT EXISTS form_change_compaction (
+    id INTEGER PRIMARY KEY CHECK (id = 1),
+    purged_seq INTEGER NOT NULL
+);;
+
+-- 触发器随变更日志的列一起升级，每次启动时重建
+DROP TRIGGER IF EXISTS form_change_insert;;
+DROP TRIGGER IF EXISTS form_change_update;;
+DROP TRIGGER IF EXISTS form_change_delete;;
+
+CREATE TRIGGER form_change_insert AFTER INSERT ON form_data BEGIN
+    INSERT OR REPLACE INTO form_change (form_id, deleted, changed_at)
+    VALUES (new.id, 0, CAST(strftime('%s', 'now') AS INTEGER));
+END;;
+
+CREATE TRIGGER form_change_update AFTER UPDATE ON form_data BEGIN
+    INSERT OR REPLACE INTO form_change (form_id, deleted, changed_at)
+    VALUES (new.id, 0, CAST(strftime('%s', 'now') AS INTEGER));
+END;;
+
+CREATE TRIGGER form_change_delete AFTER DELETE ON form_data BEGIN
+    INSERT OR REPLACE INTO form_change (form_id, deleted, changed_at)
+    VALUES (old.id, 1, CAST(strftime('%s', 'now') AS INTEGER));
+END;;
+
+-- 识别器的原始输出（Tesseract文本或百度OCR返回的JSON，含文字位置），按encoding压缩保存。
+-- 改进字段提取规则后可以从原始输出重新提取，不必再次识别。
+-- extracted_version为最近一次由识别或提取写入表单时的版本号，表单版本与之不同说明已被手工修改
+CREATE TABLE IF NOT EXISTS form_raw_ocr (
+    form_data_id INTEGER PRIMARY KEY,
+    ocr_type TEXT NOT NULL,
+    encoding TEXT NOT NULL,
+    -- 压缩前的字节数
+    raw_size INTEGER NOT NULL,
+    content BLOB NOT NULL,
+    extracted_version INTEGER NOT NULL DEFAULT 0,
+    recognized_at TIMESTAMP
+);;
+
+CREATE TRIGGER IF NOT EXISTS form_raw_ocr_delete AFTER DELETE ON form_data BEGIN
+    DELETE FROM form_raw_ocr WHERE form_data_id = old.id;
+END;;
+
+-- 创建OCR识别任务表，图片保存后即记录任务，进程崩溃后可在重启时继续处理
+CREATE TABLE IF NOT EXISTS ocr_job (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    image_path TEXT NOT NULL,
+    image_hash TEXT,
+    original_filename TEXT,
+    ocr_type TEXT,
+    -- 优先级类别序号：0 交互式，1 批量，2 重新识别
+    priority INTEGER NOT NULL DEFAULT 0,
+    -- 任务状态：PENDING 待处理，RUNNING 处理中，DONE 已完成，FAILED 已失败
+    state TEXT NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    max_attempts INTEGER NOT NULL DEFAULT 3,
+    -- 租约：持有者、本次领取的令牌、到期时间（毫秒时间戳）
+    lease_owner TEXT,
+    lease_token TEXT,
+    lease_until INTEGER,
+    form_data_id INTEGER,
+    last_error TEXT,
+    -- 处理时各阶段的耗时：阶段名=纳秒，逗号分隔
+    stage_nanos TEXT,
+    created_at TIMESTAMP,
     updated_at TIMESTAMP
-);
\ No newline at end of file
+);;
+
+CREATE INDEX IF NOT EXISTS idx_ocr_job_state ON ocr_job (state, lease_until, id);;
+
+CREATE INDEX IF NOT EXISTS idx_ocr_job_claim ON ocr_job (state, priority, id);;
+
+-- 按表单查找识别任务（重新识别）
+CREATE INDEX IF NOT EXISTS idx_ocr_job_form ON ocr_job (form_data_id, state);;
+
+CREATE INDEX IF NOT EXISTS idx_ocr_job_image ON ocr_job (image_hash, state);;
+
+-- 图片存储：图片按内容的SHA-256摘要命名，保存在upload-dir/objects/摘要前两位/摘要第3~4位/目录下，
+-- 相同内容的图片只保存一份。既没有表单引用、也没有待处理或处理中的识别任务引用，
+-- 且最近一次保存早于保留期限的图片由后台定期回收
+CREATE TABLE IF NOT EXISTS image_blob (
+    hash TEXT PRIMARY KEY,
+    -- 文件扩展名（不含点），按第一次保存时的文件名
+    extension TEXT NOT NULL,
+    size INTEGER NOT NULL,
+    created_at TIMESTAMP,
+    -- 最近一次保存（包括重复内容）的时间
+    last_used_at TIMESTAMP
+) WITHOUT ROWID;;
+
+CREATE INDEX IF NOT EXISTS idx_image_blob_used ON image_blob (last_used_at);;
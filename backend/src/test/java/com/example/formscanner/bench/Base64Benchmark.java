@@ -0,0 +1,52 @@
+package com.example.formscanner.bench;
+
+import com.example.formscanner.util.baidu.Base64Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 百度OCR请求中图片Base64编码的基准测试，对比项目中的Base64Util与JDK的java.util.Base64
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Base64Benchmark {
+    // 图片字节数：手机拍摄压缩后约200KB，扫描件约2MB
+    @Param({"204800", "2097152"})
+    private int bytes;
+
+    private byte[] image;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        image = new byte[bytes];
+        new Random(42).nextBytes(image);
+    }
+
+    @Benchmark
+    public String base64Util() {
+        return Base64Util.encode(image);
+    }
+
+    @Benchmark
+    public String jdkBase64() {
+        return Base64.getEncoder().encodeToString(image);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.formscanner.bench;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.formscanner.service.ocr.OcrMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * 基准测试的公共准备工作：关闭日志输出、创建不经过Spring容器的组件、生成模拟的表单扫描件
+ */
+final class BenchmarkSupport {
+    private static final String[][] FORM_ROWS = {
+            {"工程名称", "城南安置房三期工程"},
+            {"施工单位", "中建三局第一建设工程有限责任公司"},
+            {"工程地址", "武汉市洪山区南湖大道128号"},
+            {"施工部位", "3#楼十二层顶板及梁"},
+            {"强度等级", "C30P6"},
+            {"本车方量(m3)", "12.5"},
+            {"联系电话", "13812345678"},
+            {"备注", "泵送 坍落度180±20"},
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 不在Spring容器中运行时logback默认输出DEBUG日志，基准测试中只保留警告
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    /**
+     * 注入识别器的监控指标，指标记录在内存中，与线上的开销相同
+     * @param recognizer 直接创建的识别器
+     * @return 识别器本身
+     */
+    static <T> T withMetrics(T recognizer) {
+        ReflectionTestUtils.setField(recognizer, "ocrMetrics", new OcrMetrics(new SimpleMeterRegistry()));
+        return recognizer;
+    }
+
+    /**
+     * 生成模拟的送货单扫描件：白底表格、字段文字和扫描噪点，保存为JPEG
+     * @param width 宽度（像素）
+     * @param height 高度（像素）
+     * @return 临时文件，JVM退出时删除
+     * @throws IOException 如果写入失败
+     */
+    static File syntheticFormImage(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(new Color(246, 244, 238));
+            g.fillRect(0, 0, width, height);
+
+            int margin = width / 12;
+            int rowHeight = height / (FORM_ROWS.length + 6);
+            int labelWidth = (width - 2 * margin) / 3;
+            g.setColor(Color.DARK_GRAY);
+            g.setStroke(new BasicStroke(Math.max(1, width / 600f)));
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, rowHeight / 3));
+            for (int i = 0; i < FORM_ROWS.length; i++) {
+                int y = margin + i * rowHeight;
+                g.drawRect(margin, y, width - 2 * margin, rowHeight);
+                g.drawLine(margin + labelWidth, y, margin + labelWidth, y + rowHeight);
+                g.drawString(FORM_ROWS[i][0], margin + rowHeight / 4, y + rowHeight * 2 / 3);
+                g.drawString(FORM_ROWS[i][1], margin + labelWidth + rowHeight / 4, y + rowHeight * 2 / 3);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        // 扫描噪点
+        Random random = new Random(42);
+        for (int i = 0; i < width * height / 200; i++) {
+            int gray = random.nextInt(160);
+            image.setRGB(random.nextInt(width), random.nextInt(height), new Color(gray, gray, gray).getRGB());
+        }
+
+        File file = File.createTempFile("bench-form-" + width + "x" + height + "-", ".jpg");
+        file.deleteOnExit();
+        ImageIO.write(image, "jpg", file);
+        return file;
+    }
+
+    /**
+     * 模拟Tesseract对送货单的识别结果：字段名中夹杂空格、表格线识别为竖线、部分值换行
+     */
+    static String tesseractText() {
+        StringBuilder text = new StringBuilder();
+        text.append("商 品 混 凝 土 发 货 单\n");
+        text.append("No. 0012876    日期: 2024-05-18 14:32\n");
+        for (String[] row : FORM_ROWS) {
+            text.append("| ").append(String.join(" ", row[0].split(""))).append(" | ").append(row[1]).append(" |\n");
+        }
+        text.append("姓 名 : 张伟    身份证号 42010619850312451X\n");
+        text.append("住址\n湖北省武汉市武昌区中北路88号\n");
+        text.append("工作单位: 武汉城建商砼有限公司    职务: 调度\n");
+        text.append("| 车 号 | 鄂A·5K278 | 司 机 | 李强 |\n");
+        text.append("| 出站时间 | 14:35 | 到达时间 | 15:20 |\n");
+        text.append("签收人（盖章）:\n");
+        text.append("—— —— —— —— —— —— ——\n");
+        text.append("第一联 存根（白）  第二联 客户（红）  第三联 结算（黄）\n");
+        return text.toString();
+    }
+
+    /**
+     * 模拟百度自定义模板识别接口的返回，包含文字位置和置信度
+     */
+    static String baiduRecogniseJson() {
+        StringBuilder ret = new StringBuilder();
+        for (int i = 0; i < FORM_ROWS.length; i++) {
+            if (i > 0) {
+                ret.append(',');
+            }
+            ret.append("{\"probability\":{\"average\":0.9925").append(i)
+                    .append(",\"min\":0.9712,\"variance\":0.000").append(i + 1).append('}')
+                    .append(",\"location\":{\"top\":").append(310 + i * 96)
+                    .append(",\"left\":612,\"width\":").append(180 + i * 20).append(",\"height\":46}")
+                    .append(",\"word_name\":\"").append(FORM_ROWS[i][0]).append('"')
+                    .append(",\"word\":\"").append(FORM_ROWS[i][1]).append("\"}");
+        }
+        return "{\"log_id\":\"1792834650123456789\",\"error_code\":0,\"error_msg\":\"\",\"data\":{"
+                + "\"ret\":[" + ret + "],\"templateSign\":\"4e3ebcfef734b683b040ea6f489eb9e7\","
+                + "\"scores\":0.9634,\"templateName\":\"商品混凝土发货单\",\"isStructured\":true,"
+                + "\"logId\":\"1792834650123456789\",\"templateMatchDegree\":0.8821,\"clockwiseAngle\":0.0}}";
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.formscanner.bench;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.export.FormDataExportWriter;
+import com.example.formscanner.service.export.impl.XlsxFormDataExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel导出的基准测试，测量写出N行表单数据的耗时（不含数据库查询），输出写入空输出流
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ExcelExportBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private final XlsxFormDataExporter exporter = new XlsxFormDataExporter();
+
+    private List<FormData> data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        // 与实际数据相近：工程和施工单位重复出现，施工部位各不相同
+        LocalDateTime createdAt = LocalDateTime.of(2024, 5, 1, 8, 0);
+        data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(FormData.builder()
+                    .id((long) i + 1)
+                    .projectName("城南安置房" + (i % 20 + 1) + "期工程")
+                    .constructionUnit("中建三局第" + (i % 7 + 1) + "建设工程有限责任公司")
+                    .projectAddress("武汉市洪山区南湖大道" + (i % 300 + 1) + "号")
+                    .constructionPart((i % 30 + 1) + "#楼" + (i % 33 + 1) + "层顶板及梁")
+                    .strengthLevel(i % 3 == 0 ? "C30" : "C35P6")
+                    .currentVolume(String.valueOf(8 + i % 10 * 0.5))
+                    .createdAt(createdAt.plusMinutes(i))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public void exportXlsx() throws IOException {
+        try (FormDataExportWriter writer = exporter.open(OutputStream.nullOutputStream())) {
+            for (FormData formData : data) {
+                writer.write(formData);
+            }
+            writer.finish();
+        }
+    }
+}
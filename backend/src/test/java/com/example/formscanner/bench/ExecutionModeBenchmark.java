@@ -0,0 +1,162 @@
+package com.example.formscanner.bench;
+
+import com.example.formscanner.util.baidu.Base64Util;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.ConnectionPool;
+import okhttp3.FormBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 执行模式吞吐量基准测试
+ * 在本机启动一个模拟百度OCR接口（固定延迟），分别以平台线程（与Tomcat默认的200个工作线程一致）
+ * 和虚拟线程处理同一批并发上传，对比吞吐量和延迟。
+ *
+ * 运行方式（在backend目录下）：
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.example.formscanner.bench.ExecutionModeBenchmark
+ *     -Dexec.args="500 300 200"
+ * 参数依次为：并发上传数、模拟接口延迟（毫秒）、平台线程数
+ */
+public class ExecutionModeBenchmark {
+    private static final String RESPONSE_BODY = "{\"log_id\":\"1\",\"error_code\":0,\"data\":{\"ret\":[]}}";
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 300L;
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        HttpServer server = startFakeOcrServer(latencyMillis);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/ocr";
+        byte[] image = new byte[200 * 1024];
+        new Random(42).nextBytes(image);
+
+        try {
+            System.out.printf("并发上传数: %d, 模拟接口延迟: %d ms, 平台线程数: %d%n", concurrency, latencyMillis, platformThreads);
+
+            // 预热一轮，排除类加载和JIT的影响
+            run("warmup", Executors.newFixedThreadPool(platformThreads), url, image, concurrency, false);
+            run("warmup", Executors.newVirtualThreadPerTaskExecutor(), url, image, concurrency, false);
+
+            Result platform = run("platform", Executors.newFixedThreadPool(platformThreads), url, image, concurrency, true);
+            Result virtual = run("virtual", Executors.newVirtualThreadPerTaskExecutor(), url, image, concurrency, true);
+            System.out.printf("虚拟线程相对平台线程吞吐量: %.2fx%n", virtual.throughput() / platform.throughput());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Result run(String mode, ExecutorService executor, String url, byte[] image,
+                              int concurrency, boolean report) throws Exception {
+        OkHttpClient client = new OkHttpClient().newBuilder()
+                .connectionPool(new ConnectionPool(32, 5000L, TimeUnit.MILLISECONDS))
+                .protocols(List.of(Protocol.HTTP_1_1))
+                .readTimeout(60, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(false)
+                .build();
+
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                long start = System.nanoTime();
+                upload(client, url, image);
+                return System.nanoTime() - start;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        startGate.countDown();
+        // 失败的调用单独计数，不计入延迟分布，否则快速失败会拉低分位数
+        long[] latencies = new long[concurrency];
+        int completed = 0;
+        int failures = 0;
+        for (int i = 0; i < concurrency; i++) {
+            try {
+                latencies[completed] = futures.get(i).get();
+                completed++;
+            } catch (Exception e) {
+                failures++;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        client.connectionPool().evictAll();
+        client.dispatcher().executorService().shutdown();
+
+        latencies = Arrays.copyOf(latencies, completed);
+        Arrays.sort(latencies);
+        Result result = new Result(completed, elapsed, latencies);
+        if (report) {
+            System.out.printf("%-8s 完成: %d, 失败: %d, 总耗时: %d ms, 吞吐量: %.1f 次/秒, p50: %d ms, p95: %d ms, p99: %d ms%n",
+                    mode, result.completed(), failures, TimeUnit.NANOSECONDS.toMillis(elapsed), result.throughput(),
+                    result.percentileMillis(0.50), result.percentileMillis(0.95), result.percentileMillis(0.99));
+        }
+        return result;
+    }
+
+    /**
+     * 模拟一次上传中的远程识别：Base64编码图片并调用识别接口
+     */
+    private static void upload(OkHttpClient client, String url, byte[] image) throws IOException {
+        FormBody body = new FormBody.Builder()
+                .add("image", Base64Util.encode(image))
+                .build();
+        Request request = new Request.Builder().url(url).post(body).build();
+        try (Response response = client.newCall(request).execute()) {
+            response.body().string();
+        }
+    }
+
+    private static HttpServer startFakeOcrServer(long latencyMillis) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 2048);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/ocr", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = RESPONSE_BODY.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private record Result(int completed, long elapsedNanos, long[] sortedLatencies) {
+        double throughput() {
+            return completed / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        long percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return TimeUnit.NANOSECONDS.toMillis(sortedLatencies[Math.max(0, index)]);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.formscanner.bench;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.ocr.impl.baidu.BaiduRecogniseOcrRecoginzer;
+import com.example.formscanner.service.ocr.impl.tesserat.AbstractTesseractOcrRecognizer;
+import com.example.formscanner.service.ocr.impl.tesserat.TesseractOcrRecognizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从识别结果中提取表单字段的基准测试：
+ * Tesseract文本的extractFormFields（逐行正则匹配），以及百度自定义模板识别结果的JSON解析和字段映射
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormExtractionBenchmark {
+    private TesseractOcrRecognizer tesseractRecognizer;
+
+    private MethodHandle extractFormFields;
+
+    private BaiduRecogniseOcrRecoginzer baiduRecognizer;
+
+    private String tesseractText;
+
+    private String baiduJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        tesseractRecognizer = new TesseractOcrRecognizer();
+        extractFormFields = MethodHandles.privateLookupIn(AbstractTesseractOcrRecognizer.class, MethodHandles.lookup())
+                .findVirtual(AbstractTesseractOcrRecognizer.class, "extractFormFields",
+                        MethodType.methodType(Map.class, String.class));
+        baiduRecognizer = new BaiduRecogniseOcrRecoginzer();
+        tesseractText = BenchmarkSupport.tesseractText();
+        baiduJson = BenchmarkSupport.baiduRecogniseJson();
+    }
+
+    @Benchmark
+    public Object tesseractExtractFormFields() throws Throwable {
+        return extractFormFields.invoke(tesseractRecognizer, tesseractText);
+    }
+
+    @Benchmark
+    public FormData baiduGetFormData() {
+        return baiduRecognizer.getFormData(baiduJson);
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.formscanner.bench;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 端到端压力测试客户端
+ * 按目标速率向本机运行的后端发送上传、列表、详情和导出的混合请求，经过完整的HTTP、服务和SQLite链路。
+ * 请求按固定间隔开环发出，延迟从计划发出的时间算起，服务端变慢时排队时间计入延迟，不会因客户端等待而被掩盖。
+ * 目标速率逐级提高，每级报告实际吞吐量、各类请求的延迟分位数、错误数和上传请求的服务端各阶段耗时，
+ * 实际吞吐量低于目标的90%、错误率超过1%或p99超过SLO的第一级即为饱和点。
+ *
+ * 后端需要注册模拟识别器（form.scanner.synthetic-ocr.enabled=true），可以用scripts/load-test.sh一并启动。
+ * 单独运行方式（在backend目录下）：
+ * mvn test-compile exec:java -Dexec.classpathScope=test
+ *     -Dexec.mainClass=com.example.formscanner.bench.LoadTestDriver
+ *     -Dexec.args="--base-url=http://localhost:8080/api --rates=5,10,20,40"
+ * 参数：
+ * --base-url       后端地址，默认http://localhost:8080/api
+ * --rates          逐级提高的目标速率（次/秒），默认5,10,20,40,80
+ * --step-duration  每级的持续时间（秒），默认30
+ * --warmup         预热时间（秒），按第一级速率发送且不计入结果，默认10
+ * --mix            各类请求的比例，默认upload=4,list=3,detail=2,export=1
+ * --ocr-type       上传时使用的识别器，默认synthetic
+ * --slo-ms         p99延迟的目标（毫秒），默认2000
+ * --max-in-flight  最多同时进行的请求数，超出时记为丢弃，默认2000
+ * --export-query   导出请求的参数，默认只导出当天的CSV
+ */
+public class LoadTestDriver {
+    private static final String[] OPERATIONS = {"upload", "list", "detail", "export"};
+
+    private static final String[] STAGES = {"save", "queue", "preprocess", "recognize", "extract", "persist", "total"};
+
+    private static final Pattern SERVER_TIMING_PATTERN = Pattern.compile("(\\w+);dur=([0-9.]+)");
+
+    private static final MediaType JPEG = MediaType.get("image/jpeg");
+
+    private final Map<String, String> options;
+
+    private final String baseUrl;
+
+    private final OkHttpClient client;
+
+    private final byte[] image;
+
+    private final int[] cumulativeWeights = new int[OPERATIONS.length];
+
+    // 最近上传或列表返回的表单ID，详情请求从中随机选取
+    private final long[] knownIds = new long[1024];
+
+    private volatile int knownIdCount;
+
+    // 请求在虚拟线程上执行，用ReentrantLock而不是synchronized，避免钉住载体线程
+    private final ReentrantLock knownIdsLock = new ReentrantLock();
+
+    private LoadTestDriver(Map<String, String> options) throws IOException {
+        this.options = options;
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080/api");
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Integer.MAX_VALUE);
+        dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+        this.client = new OkHttpClient().newBuilder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(512, 5, TimeUnit.MINUTES))
+                .protocols(List.of(Protocol.HTTP_1_1))
+                .readTimeout(120, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(false)
+                .build();
+
+        // A4纸150dpi的模拟扫描件，每次上传在末尾追加随机字节，内容摘要各不相同，不会被图片存储去重
+        this.image = Files.readAllBytes(BenchmarkSupport.syntheticFormImage(1240, 1754).toPath());
+
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : options.getOrDefault("mix", "upload=4,list=3,detail=2,export=1").split(",")) {
+            String[] pair = entry.split("=");
+            mix.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        int sum = 0;
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            sum += mix.getOrDefault(OPERATIONS[i], 0);
+            cumulativeWeights[i] = sum;
+        }
+        if (sum == 0) {
+            throw new IllegalArgumentException("--mix中至少一类请求的比例大于0");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("参数格式应为--名称=值: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadTestDriver(options).run();
+    }
+
+    private void run() throws Exception {
+        double[] rates = Arrays.stream(options.getOrDefault("rates", "5,10,20,40,80").split(","))
+                .mapToDouble(Double::parseDouble).toArray();
+        int stepSeconds = Integer.parseInt(options.getOrDefault("step-duration", "30"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        long sloMillis = Long.parseLong(options.getOrDefault("slo-ms", "2000"));
+        Semaphore inFlight = new Semaphore(Integer.parseInt(options.getOrDefault("max-in-flight", "2000")));
+
+        System.out.printf("后端: %s, 请求比例: %s, 每级 %d 秒, p99目标: %d ms%n",
+                baseUrl, options.getOrDefault("mix", "upload=4,list=3,detail=2,export=1"), stepSeconds, sloMillis);
+        // 先取一页列表，详情请求从一开始就有可用的表单ID
+        execute("list", System.nanoTime());
+        if (warmupSeconds > 0) {
+            runStep(rates[0], warmupSeconds, inFlight);
+        }
+
+        List<StepResult> results = new ArrayList<>();
+        Double saturation = null;
+        for (double rate : rates) {
+            StepResult result = runStep(rate, stepSeconds, inFlight);
+            results.add(result);
+            result.print(sloMillis);
+            if (saturation == null && result.saturated(sloMillis)) {
+                saturation = rate;
+            }
+        }
+
+        System.out.println();
+        System.out.printf("%-10s %10s %8s %8s %10s %10s %10s%n", "目标速率", "实际吞吐量", "错误", "丢弃", "p50(ms)", "p99(ms)", "饱和");
+        for (StepResult result : results) {
+            Stats all = result.all();
+            System.out.printf("%-10.1f %10.1f %8d %8d %10.1f %10.1f %10s%n", result.rate, result.throughput(),
+                    all.errors, result.dropped, all.percentile(0.50), all.percentile(0.99),
+                    result.saturated(sloMillis) ? "是" : "");
+        }
+        if (saturation == null) {
+            System.out.println("各级均未饱和，可以继续提高--rates");
+        } else {
+            System.out.printf("饱和点: %.1f 次/秒%n", saturation);
+        }
+        client.connectionPool().evictAll();
+        client.dispatcher().executorService().shutdown();
+    }
+
+    /**
+     * 以固定间隔开环发送一级请求，等待该级的请求全部结束
+     */
+    private StepResult runStep(double rate, int seconds, Semaphore inFlight) throws InterruptedException {
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long total = (long) (rate * seconds);
+        ConcurrentLinkedQueue<Sample> samples = new ConcurrentLinkedQueue<>();
+        AtomicLongArray stageNanos = new AtomicLongArray(STAGES.length);
+        long dropped = 0;
+
+        long begin = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; i < total; i++) {
+                long scheduled = begin + i * intervalNanos;
+                long delay = scheduled - System.nanoTime();
+                if (delay > 0) {
+                    TimeUnit.NANOSECONDS.sleep(delay);
+                }
+                if (!inFlight.tryAcquire()) {
+                    dropped++;
+                    continue;
+                }
+                String operation = pickOperation();
+                executor.execute(() -> {
+                    try {
+                        Sample sample = execute(operation, scheduled);
+                        samples.add(sample);
+                        if (sample.serverTiming() != null) {
+                            addServerTiming(sample.serverTiming(), stageNanos);
+                        }
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        return new StepResult(rate, elapsed, new ArrayList<>(samples), dropped, stageNanos);
+    }
+
+    private String pickOperation() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return OPERATIONS[i];
+            }
+        }
+        return OPERATIONS[0];
+    }
+
+    /**
+     * 发送一个请求并读完响应体
+     * @param operation 请求类型
+     * @param scheduled 计划发出的时间（System.nanoTime）
+     */
+    private Sample execute(String operation, long scheduled) {
+        Request request = switch (operation) {
+            case "upload" -> uploadRequest();
+            case "detail" -> {
+                int count = knownIdCount;
+                yield count == 0 ? listRequest()
+                        : new Request.Builder().url(baseUrl + "/forms/" + knownIds[ThreadLocalRandom.current().nextInt(count)]).build();
+            }
+            case "export" -> new Request.Builder().url(baseUrl + "/forms/export?" + options.getOrDefault("export-query",
+                    "format=csv&createdFrom=" + LocalDate.now())).build();
+            default -> listRequest();
+        };
+        try (Response response = client.newCall(request).execute()) {
+            String serverTiming = response.header("Server-Timing");
+            if ("export".equals(operation)) {
+                try (InputStream body = response.body().byteStream()) {
+                    body.transferTo(OutputStream.nullOutputStream());
+                }
+            } else {
+                rememberIds(response.body().string());
+            }
+            return new Sample(operation, System.nanoTime() - scheduled, response.isSuccessful(), serverTiming);
+        } catch (IOException e) {
+            return new Sample(operation, System.nanoTime() - scheduled, false, null);
+        }
+    }
+
+    private Request uploadRequest() {
+        byte[] content = Arrays.copyOf(image, image.length + 16);
+        byte[] suffix = new byte[16];
+        ThreadLocalRandom.current().nextBytes(suffix);
+        System.arraycopy(suffix, 0, content, image.length, suffix.length);
+        RequestBody body = new MultipartBody.Builder()
+                .setType(MultipartBody.FORM)
+                .addFormDataPart("file", "load-test.jpg", RequestBody.create(content, JPEG))
+                .addFormDataPart("ocrType", options.getOrDefault("ocr-type", "synthetic"))
+                .build();
+        return new Request.Builder().url(baseUrl + "/forms/upload").post(body).build();
+    }
+
+    private Request listRequest() {
+        return new Request.Builder().url(baseUrl + "/forms?limit=20").build();
+    }
+
+    /**
+     * 从上传和列表的响应中记下表单ID，供详情请求使用
+     */
+    private void rememberIds(String body) {
+        if (body.isEmpty() || body.charAt(0) != '{') {
+            return;
+        }
+        JSONObject json = JSON.parseObject(body);
+        JSONArray items = json.getJSONArray("items");
+        if (items != null) {
+            for (int i = 0; i < items.size(); i++) {
+                rememberId(items.getJSONObject(i).getLong("id"));
+            }
+        } else {
+            rememberId(json.getLong("id"));
+        }
+    }
+
+    private void rememberId(Long id) {
+        if (id == null) {
+            return;
+        }
+        knownIdsLock.lock();
+        try {
+            int count = knownIdCount;
+            if (count < knownIds.length) {
+                knownIds[count] = id;
+                knownIdCount = count + 1;
+            } else {
+                knownIds[ThreadLocalRandom.current().nextInt(knownIds.length)] = id;
+            }
+        } finally {
+            knownIdsLock.unlock();
+        }
+    }
+
+    private static void addServerTiming(String header, AtomicLongArray stageNanos) {
+        Matcher matcher = SERVER_TIMING_PATTERN.matcher(header);
+        while (matcher.find()) {
+            int index = Arrays.asList(STAGES).indexOf(matcher.group(1));
+            if (index >= 0) {
+                stageNanos.addAndGet(index, (long) (Double.parseDouble(matcher.group(2)) * 1_000_000));
+            }
+        }
+    }
+
+    private record Sample(String operation, long latencyNanos, boolean success, String serverTiming) {
+    }
+
+    /**
+     * 一组请求的统计
+     */
+    private static final class Stats {
+        private final long[] sortedLatencies;
+
+        private final long errors;
+
+        Stats(List<Sample> samples) {
+            this.sortedLatencies = samples.stream().mapToLong(Sample::latencyNanos).sorted().toArray();
+            this.errors = samples.stream().filter(sample -> !sample.success()).count();
+        }
+
+        double percentile(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * 一级速率的结果
+     */
+    private record StepResult(double rate, long elapsedNanos, List<Sample> samples, long dropped,
+                              AtomicLongArray stageNanos) {
+        Stats all() {
+            return new Stats(samples);
+        }
+
+        double throughput() {
+            long succeeded = samples.stream().filter(Sample::success).count();
+            return succeeded / (elapsedNanos / 1_000_000_000.0);
+        }
+
+        boolean saturated(long sloMillis) {
+            Stats all = all();
+            long requests = samples.size() + dropped;
+            return throughput() < rate * 0.9
+                    || (requests > 0 && (all.errors + dropped) > requests * 0.01)
+                    || all.percentile(0.99) > sloMillis;
+        }
+
+        void print(long sloMillis) {
+            System.out.printf("%n目标速率 %.1f 次/秒: 实际吞吐量 %.1f 次/秒, 请求 %d, 丢弃 %d%s%n", rate, throughput(),
+                    samples.size(), dropped, saturated(sloMillis) ? "（饱和）" : "");
+            Map<String, List<Sample>> byOperation = new TreeMap<>();
+            for (Sample sample : samples) {
+                byOperation.computeIfAbsent(sample.operation(), key -> new ArrayList<>()).add(sample);
+            }
+            byOperation.forEach((operation, list) -> {
+                Stats stats = new Stats(list);
+                System.out.printf("  %-7s 次数 %6d, 错误 %5d, p50 %8.1f ms, p95 %8.1f ms, p99 %8.1f ms, 最大 %8.1f ms%n",
+                        operation, list.size(), stats.errors, stats.percentile(0.50), stats.percentile(0.95),
+                        stats.percentile(0.99), stats.percentile(1.0));
+            });
+            long uploads = samples.stream().filter(sample -> sample.serverTiming() != null).count();
+            if (uploads > 0) {
+                StringBuilder line = new StringBuilder("  上传服务端平均耗时:");
+                for (int i = 0; i < STAGES.length; i++) {
+                    line.append(String.format(" %s %.1f ms", STAGES[i], stageNanos.get(i) / 1_000_000.0 / uploads));
+                }
+                System.out.println(line);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.formscanner.bench;
+
+import com.example.formscanner.service.ocr.impl.tesserat.AbstractTesseractOcrRecognizer;
+import com.example.formscanner.service.ocr.impl.tesserat.EnhancedTesseractOcrRecognizer;
+import com.example.formscanner.service.ocr.impl.tesserat.TesseractOcrRecognizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tesseract识别前图像预处理的基准测试
+ * 分别测量两种识别器的preprocessImage在不同尺寸的模拟扫描件上的耗时，包括读取图片和写出预处理结果
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-Djava.awt.headless=true"})
+public class PreprocessBenchmark {
+    @Param({"tesseract", "enhanced"})
+    private String recognizer;
+
+    // 宽x高，最大的为A4纸300dpi扫描件
+    @Param({"800x1120", "1600x2240", "2480x3508"})
+    private String size;
+
+    private AbstractTesseractOcrRecognizer target;
+
+    private MethodHandle preprocessImage;
+
+    private File image;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkSupport.quietLogging();
+        target = BenchmarkSupport.withMetrics(
+                "enhanced".equals(recognizer) ? new EnhancedTesseractOcrRecognizer() : new TesseractOcrRecognizer());
+        preprocessImage = MethodHandles.privateLookupIn(AbstractTesseractOcrRecognizer.class, MethodHandles.lookup())
+                .findVirtual(AbstractTesseractOcrRecognizer.class, "preprocessImage",
+                        MethodType.methodType(File.class, File.class));
+        String[] dimensions = size.split("x");
+        image = BenchmarkSupport.syntheticFormImage(Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+    }
+
+    @Benchmark
+    public long preprocessImage() throws Throwable {
+        File preprocessed = (File) preprocessImage.invoke(target, image);
+        long length = preprocessed.length();
+        Files.delete(preprocessed.toPath());
+        return length;
+    }
+}
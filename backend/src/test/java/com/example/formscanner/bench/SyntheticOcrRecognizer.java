@@ -0,0 +1,131 @@
+package com.example.formscanner.bench;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONObject;
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.ocr.OcrRecognizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 压力测试用的模拟识别器，不调用真实的OCR引擎
+ * 每次识别先消耗固定的CPU时间（按线程CPU时间计算，CPU争用时实际耗时变长），
+ * 再按对数正态分布等待一段时间模拟远程接口的延迟，并按设定的比例失败。
+ * 返回的文本是随机生成的字段JSON，字段提取和入库与真实识别结果走相同的流程。
+ * 只在测试类路径上且form.scanner.synthetic-ocr.enabled=true时注册，识别器类型为synthetic
+ */
+@Component
+@ConditionalOnProperty(name = "form.scanner.synthetic-ocr.enabled", havingValue = "true")
+public class SyntheticOcrRecognizer implements OcrRecognizer {
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private static final String[] PROJECTS = {"城南安置房三期工程", "光谷科技园A区", "汉江大桥引桥", "东湖学校扩建工程"};
+
+    private static final String[] UNITS = {"中建三局第一建设工程有限责任公司", "武汉城建集团", "湖北路桥集团"};
+
+    private static final String[] GRADES = {"C25", "C30", "C30P6", "C35", "C40"};
+
+    // 每次识别消耗的CPU时间
+    @Value("${form.scanner.synthetic-ocr.cpu-cost:20ms}")
+    private Duration cpuCost;
+
+    // 模拟接口延迟的中位数，为0时不等待
+    @Value("${form.scanner.synthetic-ocr.latency-median:300ms}")
+    private Duration latencyMedian;
+
+    // 延迟的对数标准差，0.5时p99约为中位数的3.2倍
+    @Value("${form.scanner.synthetic-ocr.latency-sigma:0.5}")
+    private double latencySigma;
+
+    // 失败比例（0~1）
+    @Value("${form.scanner.synthetic-ocr.failure-rate:0}")
+    private double failureRate;
+
+    // 是否按CPU密集型识别器调度（在固定的本地识别线程池上执行）
+    @Value("${form.scanner.synthetic-ocr.cpu-bound:false}")
+    private boolean cpuBound;
+
+    @Override
+    public String getRecognizerType() {
+        return "synthetic";
+    }
+
+    @Override
+    public boolean isCpuBound() {
+        return cpuBound;
+    }
+
+    @Override
+    public String recognizeText(File imageFile) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        burnCpu(cpuCost.toNanos(), imageFile.length());
+        if (!latencyMedian.isZero()) {
+            double latencyNanos = latencyMedian.toNanos() * Math.exp(latencySigma * random.nextGaussian());
+            try {
+                TimeUnit.NANOSECONDS.sleep((long) latencyNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("模拟识别被中断", e);
+            }
+        }
+        if (random.nextDouble() < failureRate) {
+            throw new IOException("模拟识别失败");
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("projectName", PROJECTS[random.nextInt(PROJECTS.length)]);
+        fields.put("constructionUnit", UNITS[random.nextInt(UNITS.length)]);
+        fields.put("projectAddress", "武汉市洪山区南湖大道" + random.nextInt(1, 500) + "号");
+        fields.put("constructionPart", random.nextInt(1, 30) + "#楼" + random.nextInt(1, 33) + "层顶板");
+        fields.put("strengthLevel", GRADES[random.nextInt(GRADES.length)]);
+        fields.put("currentVolume", String.valueOf(random.nextInt(10, 25) / 2.0));
+        return JSON.toJSONString(fields);
+    }
+
+    @Override
+    public FormData getFormData(String recognizedText) {
+        JSONObject fields = JSON.parseObject(recognizedText);
+        return FormData.builder()
+                .projectName(fields.getString("projectName"))
+                .constructionUnit(fields.getString("constructionUnit"))
+                .projectAddress(fields.getString("projectAddress"))
+                .constructionPart(fields.getString("constructionPart"))
+                .strengthLevel(fields.getString("strengthLevel"))
+                .currentVolume(fields.getString("currentVolume"))
+                .build();
+    }
+
+    /**
+     * 忙循环直到当前线程消耗了指定的CPU时间；虚拟线程无法获取CPU时间，按经过的时间计算
+     */
+    private static void burnCpu(long nanos, long seed) {
+        if (nanos <= 0) {
+            return;
+        }
+        boolean cpuTime = THREAD_MX_BEAN.getCurrentThreadCpuTime() >= 0;
+        long deadline = (cpuTime ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime()) + nanos;
+        long state = seed | 1;
+        while ((cpuTime ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : System.nanoTime()) < deadline) {
+            for (int i = 0; i < 10_000; i++) {
+                state ^= state << 13;
+                state ^= state >>> 7;
+                state ^= state << 17;
+            }
+        }
+        // 防止循环被JIT消除
+        if (state == 0) {
+            throw new IllegalStateException();
+        }
+    }
+}
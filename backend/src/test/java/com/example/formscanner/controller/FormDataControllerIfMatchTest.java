@@ -0,0 +1,55 @@
+package com.example.formscanner.controller;
+
+import com.example.formscanner.exception.InvalidIfMatchException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FormDataControllerIfMatchTest {
+
+    @Test
+    void missingOrWildcardDoesNotCheckVersion() {
+        assertThat(FormDataController.parseIfMatch(null)).isNull();
+        assertThat(FormDataController.parseIfMatch(" ")).isNull();
+        assertThat(FormDataController.parseIfMatch("*")).isNull();
+        assertThat(FormDataController.parseIfMatch(" * ")).isNull();
+    }
+
+    @Test
+    void parsesSingleAndListedEntityTags() {
+        assertThat(FormDataController.parseIfMatch("\"3\"")).containsExactly(3L);
+        assertThat(FormDataController.parseIfMatch("\"3\", \"4\"")).containsExactly(3L, 4L);
+        assertThat(FormDataController.parseIfMatch("\"3\",\"4\" ,\t\"5\"")).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void nonVersionTagsMatchNothing() {
+        assertThat(FormDataController.parseIfMatch("\"abc\"")).isEmpty();
+        assertThat(FormDataController.parseIfMatch("\"\"")).isEmpty();
+        assertThat(FormDataController.parseIfMatch("\"-1\", \"99999999999999999999\"")).isEmpty();
+        // 引号内允许逗号
+        assertThat(FormDataController.parseIfMatch("\"a,b\", \"7\"")).containsExactly(7L);
+    }
+
+    @Test
+    void rejectsWeakTags() {
+        assertThatThrownBy(() -> FormDataController.parseIfMatch("W/\"3\""))
+                .isInstanceOf(InvalidIfMatchException.class)
+                .hasMessageContaining("弱ETag");
+        assertThatThrownBy(() -> FormDataController.parseIfMatch("\"3\", W/\"4\""))
+                .isInstanceOf(InvalidIfMatchException.class);
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThatThrownBy(() -> FormDataController.parseIfMatch("3"))
+                .isInstanceOf(InvalidIfMatchException.class);
+        assertThatThrownBy(() -> FormDataController.parseIfMatch("\"3"))
+                .isInstanceOf(InvalidIfMatchException.class);
+        assertThatThrownBy(() -> FormDataController.parseIfMatch("\"3\" \"4\""))
+                .isInstanceOf(InvalidIfMatchException.class);
+        assertThatThrownBy(() -> FormDataController.parseIfMatch("*, \"3\""))
+                .isInstanceOf(InvalidIfMatchException.class);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.formscanner.controller;
+
+import com.example.formscanner.controller.ImageController.ByteRange;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageControllerRangeTest {
+
+    @Test
+    void parsesSatisfiableRanges() {
+        assertThat(ImageController.parseRange("bytes=0-99", 1000)).isEqualTo(new ByteRange(0, 99));
+        assertThat(ImageController.parseRange("bytes=500-", 1000)).isEqualTo(new ByteRange(500, 999));
+        assertThat(ImageController.parseRange("bytes=900-5000", 1000)).isEqualTo(new ByteRange(900, 999));
+        assertThat(ImageController.parseRange("bytes=-100", 1000)).isEqualTo(new ByteRange(900, 999));
+        assertThat(ImageController.parseRange("bytes=-5000", 1000)).isEqualTo(new ByteRange(0, 999));
+        assertThat(ImageController.parseRange("bytes=3-3", 1000)).isEqualTo(new ByteRange(3, 3));
+    }
+
+    @Test
+    void ignoresInvalidOrUnsupportedRanges() {
+        // 结束位置小于起始位置的范围语法无效，忽略后返回完整内容
+        assertThat(ImageController.parseRange("bytes=5-3", 1000)).isNull();
+        assertThat(ImageController.parseRange("bytes=-", 1000)).isNull();
+        assertThat(ImageController.parseRange("bytes=0-1,5-6", 1000)).isNull();
+        assertThat(ImageController.parseRange("items=0-1", 1000)).isNull();
+    }
+
+    @Test
+    void rejectsUnsatisfiableRanges() {
+        assertThat(ImageController.parseRange("bytes=1000-", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ImageController.parseRange("bytes=2000-3000", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ImageController.parseRange("bytes=-0", 1000)).isSameAs(ByteRange.UNSATISFIABLE);
+        assertThat(ImageController.parseRange("bytes=-10", 0)).isSameAs(ByteRange.UNSATISFIABLE);
+    }
+}
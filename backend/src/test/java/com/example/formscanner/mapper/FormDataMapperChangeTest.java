@@ -0,0 +1,98 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataChange;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 变更日志墓碑清理的测试：只清理过期的墓碑，并推进清理水位
+ */
+class FormDataMapperChangeTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sqlSessionFactory = MapperTestDatabase.create(tempDir);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            FormDataMapper mapper = session.getMapper(FormDataMapper.class);
+            for (int i = 1; i <= 4; i++) {
+                mapper.insert(FormData.builder().projectName("工程" + i).version(0L).build());
+            }
+        }
+        // 表单1、2在很久以前删除，表单3刚刚删除，表单4仍存在
+        execute("DELETE FROM form_data WHERE projectName IN ('工程1', '工程2')");
+        execute("UPDATE form_change SET changed_at = 1000 WHERE deleted = 1");
+        execute("DELETE FROM form_data WHERE projectName = '工程3'");
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement statement = session.getConnection().createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    private int compact(long changedBefore, int limit) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            FormDataMapper mapper = session.getMapper(FormDataMapper.class);
+            if (mapper.advanceChangeHorizon(changedBefore, limit) == 0) {
+                return 0;
+            }
+            return mapper.deleteCompactedTombstones();
+        }
+    }
+
+    private FormDataMapper mapper(SqlSession session) {
+        return session.getMapper(FormDataMapper.class);
+    }
+
+    @Test
+    void compactsOnlyExpiredTombstonesInBatches() {
+        long changedBefore = Instant.now().getEpochSecond() - 3600;
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            assertThat(mapper(session).selectChangeHorizon()).isZero();
+        }
+
+        assertThat(compact(changedBefore, 1)).isEqualTo(1);
+        assertThat(compact(changedBefore, 1)).isEqualTo(1);
+        assertThat(compact(changedBefore, 1)).isZero();
+
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            FormDataMapper mapper = mapper(session);
+            // 第二个过期墓碑的序号；表单1、2插入后删除，序号为6
+            assertThat(mapper.selectChangeHorizon()).isEqualTo(6L);
+            assertThat(mapper.selectChanges(0, 10))
+                    .extracting(FormDataChange::getFormId, FormDataChange::getDeleted)
+                    .containsExactly(
+                            tuple(4L, false),
+                            tuple(3L, true));
+        }
+    }
+
+    @Test
+    void horizonNeverMovesBackwards() throws SQLException {
+        compact(Instant.now().getEpochSecond() - 3600, 10);
+        execute("UPDATE form_change_compaction SET purged_seq = 100");
+        compact(Instant.now().getEpochSecond() + 3600, 10);
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            assertThat(mapper(session).selectChangeHorizon()).isEqualTo(100L);
+            assertThat(mapper(session).selectChanges(0, 10)).extracting(FormDataChange::getFormId).containsExactly(4L);
+        }
+    }
+}
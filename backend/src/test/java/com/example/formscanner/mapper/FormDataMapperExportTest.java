@@ -0,0 +1,97 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataExportFilter;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 增量导出SQL的测试：水位为变更序号，修改时间较早但在取水位之后才提交的数据留到下次导出
+ */
+class FormDataMapperExportTest {
+    private static final LocalDateTime STAMPED_AT = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    @TempDir
+    Path tempDir;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sqlSessionFactory = MapperTestDatabase.create(tempDir);
+    }
+
+    private void insert(String projectName) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(FormDataMapper.class).insert(FormData.builder()
+                    .projectName(projectName)
+                    .createdAt(STAMPED_AT)
+                    .updatedAt(STAMPED_AT)
+                    .version(0L)
+                    .build());
+        }
+    }
+
+    private long latestSeq() {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            return session.getMapper(FormDataMapper.class).selectLatestChangeSeq();
+        }
+    }
+
+    private List<String> export(Long after, long until) throws IOException {
+        FormDataExportFilter filter = FormDataExportFilter.builder()
+                .changeSeqAfter(after)
+                .changeSeqUntil(until)
+                .build();
+        List<String> projects = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             Cursor<FormData> cursor = session.getMapper(FormDataMapper.class).scanForExport(filter)) {
+            cursor.forEach(formData -> projects.add(formData.getProjectName()));
+        }
+        return projects;
+    }
+
+    @Test
+    void lateCommitIsExportedNextTime() throws IOException {
+        insert("A");
+        long first = latestSeq();
+        // 修改时间与A相同（早于导出时间），但在取水位之后才提交
+        insert("B");
+
+        assertThat(export(null, first)).containsExactly("A");
+        long second = latestSeq();
+        assertThat(export(first, second)).containsExactly("B");
+        assertThat(export(second, latestSeq())).isEmpty();
+    }
+
+    @Test
+    void rowChangedAfterWatermarkMovesToNextExport() throws IOException {
+        insert("A");
+        insert("B");
+        long first = latestSeq();
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement statement = session.getConnection().createStatement()) {
+            statement.executeUpdate("UPDATE form_data SET projectName = 'A2' WHERE projectName = 'A'");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+
+        // 全量导出不包含水位之后才变更的数据，它以新的内容出现在下次增量导出中
+        assertThat(export(null, first)).containsExactly("B");
+        assertThat(export(first, latestSeq())).containsExactly("A2");
+    }
+}
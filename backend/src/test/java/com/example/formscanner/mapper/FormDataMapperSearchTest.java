@@ -0,0 +1,136 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataSearch;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 全文检索SQL的测试：在临时SQLite数据库上执行schema.sql和FormDataMapper.xml中的检索语句，
+ * 通过EXPLAIN QUERY PLAN检查各长度的关键词是否使用索引
+ */
+class FormDataMapperSearchTest {
+    private static final String SEARCH = "com.example.formscanner.mapper.FormDataMapper.search";
+
+    @TempDir
+    Path tempDir;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sqlSessionFactory = MapperTestDatabase.create(tempDir);
+
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            FormDataMapper mapper = session.getMapper(FormDataMapper.class);
+            mapper.insert(form("城南安置房三期工程", "3#楼5层顶板钢筋"));
+            mapper.insert(form("光谷科技园A区", "2#楼基础底板"));
+            mapper.insert(form("汉江大桥引桥", "桥墩钢筋笼"));
+        }
+    }
+
+    private static FormData form(String projectName, String constructionPart) {
+        return FormData.builder()
+                .projectName(projectName)
+                .constructionUnit("中建三局第一建设工程有限责任公司")
+                .projectAddress("武汉市洪山区")
+                .constructionPart(constructionPart)
+                .version(0L)
+                .build();
+    }
+
+    private List<FormData> search(String... terms) {
+        try (SqlSession session = sqlSessionFactory.openSession()) {
+            return session.getMapper(FormDataMapper.class).search(FormDataSearch.of(terms, 20, 0));
+        }
+    }
+
+    private List<String> queryPlan(String... terms) throws SQLException {
+        FormDataSearch search = FormDataSearch.of(terms, 20, 0);
+        MappedStatement statement = sqlSessionFactory.getConfiguration().getMappedStatement(SEARCH);
+        BoundSql boundSql = statement.getBoundSql(search);
+        List<String> plan = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession();
+             PreparedStatement explain = session.getConnection().prepareStatement(
+                     "EXPLAIN QUERY PLAN " + boundSql.getSql())) {
+            new DefaultParameterHandler(statement, search, boundSql).setParameters(explain);
+            try (ResultSet resultSet = explain.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.add(resultSet.getString("detail"));
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * 是否逐行扫描form_data表
+     */
+    private static boolean scansFormData(String detail) {
+        return detail.equals("SCAN f") || detail.startsWith("SCAN f ");
+    }
+
+    @Test
+    void twoCharacterTermUsesBigramIndex() throws SQLException {
+        FormDataSearch search = FormDataSearch.of(new String[]{"钢筋"}, 20, 0);
+        assertThat(search.getBigramQuery()).isEqualTo("\"钢筋\"");
+        assertThat(search.getMatchQuery()).isNull();
+        assertThat(search.getLikePatterns()).isEmpty();
+
+        assertThat(queryPlan("钢筋"))
+                .anyMatch(detail -> detail.startsWith("SCAN form_data_bigram VIRTUAL TABLE INDEX"))
+                .noneMatch(FormDataMapperSearchTest::scansFormData);
+        assertThat(search("钢筋")).extracting(FormData::getProjectName)
+                .containsExactlyInAnyOrder("城南安置房三期工程", "汉江大桥引桥");
+    }
+
+    @Test
+    void mixedTermsCombineTrigramAndBigramIndexes() throws SQLException {
+        assertThat(queryPlan("安置房", "钢筋"))
+                .anyMatch(detail -> detail.startsWith("SCAN form_data_fts VIRTUAL TABLE INDEX"))
+                .anyMatch(detail -> detail.contains("form_data_bigram VIRTUAL TABLE INDEX"))
+                .noneMatch(FormDataMapperSearchTest::scansFormData);
+        assertThat(search("安置房", "钢筋")).extracting(FormData::getProjectName)
+                .containsExactly("城南安置房三期工程");
+    }
+
+    @Test
+    void singleCharacterTermFallsBackToLike() throws SQLException {
+        FormDataSearch search = FormDataSearch.of(new String[]{"桥", "3#"}, 20, 0);
+        assertThat(search.getMatchQuery()).isNull();
+        assertThat(search.getBigramQuery()).isNull();
+        assertThat(search.getLikePatterns()).containsExactly("%桥%", "%3#%");
+        assertThat(queryPlan("桥")).anyMatch(FormDataMapperSearchTest::scansFormData);
+        assertThat(search("桥")).extracting(FormData::getProjectName).containsExactly("汉江大桥引桥");
+    }
+
+    @Test
+    void bigramIndexFollowsUpdatesAndDeletes() {
+        try (SqlSession session = sqlSessionFactory.openSession(true);
+             Statement statement = session.getConnection().createStatement()) {
+            statement.executeUpdate("UPDATE form_data SET constructionPart = '桥面铺装' WHERE projectName = '汉江大桥引桥'");
+            statement.executeUpdate("DELETE FROM form_data WHERE projectName = '光谷科技园A区'");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        assertThat(search("钢筋")).extracting(FormData::getProjectName).containsExactly("城南安置房三期工程");
+        assertThat(search("铺装")).extracting(FormData::getProjectName).containsExactly("汉江大桥引桥");
+        assertThat(search("底板")).isEmpty();
+    }
+}
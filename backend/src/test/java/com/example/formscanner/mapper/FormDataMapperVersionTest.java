@@ -0,0 +1,71 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.model.FormDataPatch;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 条件更新和删除的测试：当前版本是期望版本之一时才修改
+ */
+class FormDataMapperVersionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    private Long id;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sqlSessionFactory = MapperTestDatabase.create(tempDir);
+        FormData formData = FormData.builder().projectName("城南安置房三期工程").version(3L).build();
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            session.getMapper(FormDataMapper.class).insert(formData);
+        }
+        id = formData.getId();
+    }
+
+    private FormData patch(List<Long> expectedVersions) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return session.getMapper(FormDataMapper.class).patch(FormDataPatch.builder()
+                    .id(id)
+                    .fields(Map.of("projectName", "汉江大桥引桥"))
+                    .expectedVersions(expectedVersions)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+    }
+
+    private int delete(List<Long> versions) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return session.getMapper(FormDataMapper.class).deleteById(id, versions);
+        }
+    }
+
+    @Test
+    void patchMatchesAnyListedVersion() {
+        assertThat(patch(List.of(1L, 2L))).isNull();
+        assertThat(patch(List.of())).isNull();
+        assertThat(patch(List.of(2L, 3L)).getVersion()).isEqualTo(4L);
+        assertThat(patch(null).getVersion()).isEqualTo(5L);
+    }
+
+    @Test
+    void deleteMatchesAnyListedVersion() {
+        assertThat(delete(List.of())).isZero();
+        assertThat(delete(List.of(4L))).isZero();
+        assertThat(delete(List.of(4L, 3L))).isEqualTo(1);
+    }
+}
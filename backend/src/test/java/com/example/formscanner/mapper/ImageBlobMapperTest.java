@@ -0,0 +1,66 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.ImageBlob;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 可回收图片翻页查询的测试：按(最近使用时间, 摘要)翻页，最近使用时间相同的图片不会被跳过或重复
+ */
+class ImageBlobMapperTest {
+    private static final LocalDateTime OLD = LocalDateTime.of(2020, 1, 1, 8, 0, 0, 123_456_789);
+
+    @TempDir
+    Path tempDir;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sqlSessionFactory = MapperTestDatabase.create(tempDir);
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            ImageBlobMapper mapper = session.getMapper(ImageBlobMapper.class);
+            mapper.touch(blob("c", OLD));
+            mapper.touch(blob("a", OLD));
+            mapper.touch(blob("b", OLD.plusSeconds(1)));
+            mapper.touch(blob("d", OLD));
+            // 最近刚使用过的图片不回收
+            mapper.touch(blob("e", LocalDateTime.now()));
+        }
+    }
+
+    private static ImageBlob blob(String hash, LocalDateTime lastUsedAt) {
+        return ImageBlob.builder().hash(hash).extension("jpg").size(1L).createdAt(lastUsedAt)
+                .lastUsedAt(lastUsedAt).build();
+    }
+
+    @Test
+    void pagesThroughCollectableImagesWithoutRevisitingThem() {
+        LocalDateTime usedBefore = LocalDateTime.now().minusDays(7);
+        List<String> pages = new ArrayList<>();
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            ImageBlobMapper mapper = session.getMapper(ImageBlobMapper.class);
+            ImageBlob after = null;
+            while (true) {
+                List<ImageBlob> page = mapper.selectCollectable(usedBefore, after, 2);
+                page.forEach(blob -> pages.add(blob.getHash()));
+                if (page.size() < 2) {
+                    break;
+                }
+                after = page.get(page.size() - 1);
+            }
+        }
+
+        assertThat(pages).containsExactly("a", "c", "d", "b");
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.util.SearchBigrams;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.sqlite.SQLiteConnection;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Mapper测试用的临时SQLite数据库：执行schema.sql，加载FormDataMapper.xml、OcrJobMapper.xml和ImageBlobMapper.xml
+ */
+public final class MapperTestDatabase {
+    // OcrJobMapper.xml引用FormDataMapper.xml中的查询条件片段，需要在其后加载
+    private static final String[] MAPPERS = {"mapper/FormDataMapper.xml", "mapper/OcrJobMapper.xml",
+            "mapper/ImageBlobMapper.xml"};
+
+    private MapperTestDatabase() {
+    }
+
+    public static SqlSessionFactory create(Path dir) throws SQLException, IOException {
+        // 与写连接池相同，创建连接时注册bigrams()函数
+        SQLiteDataSource dataSource = new SQLiteDataSource() {
+            @Override
+            public SQLiteConnection getConnection(String username, String password) throws SQLException {
+                SQLiteConnection connection = super.getConnection(username, password);
+                SearchBigrams.register(connection);
+                return connection;
+            }
+        };
+        dataSource.setUrl("jdbc:sqlite:" + dir.resolve("test.db"));
+
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(new ClassPathResource("schema.sql"),
+                            StandardCharsets.UTF_8), false, false, ScriptUtils.DEFAULT_COMMENT_PREFIX, ";;",
+                    ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER, ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+        }
+
+        Configuration configuration = new Configuration(
+                new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        for (String resource : MAPPERS) {
+            try (InputStream mapper = MapperTestDatabase.class.getResourceAsStream("/" + resource)) {
+                new XMLMapperBuilder(mapper, configuration, resource, configuration.getSqlFragments()).parse();
+            }
+        }
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+}
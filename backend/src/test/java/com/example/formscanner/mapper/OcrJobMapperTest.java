@@ -0,0 +1,210 @@
+package com.example.formscanner.mapper;
+
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.model.OcrPriority;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 识别任务租约的测试：领取、续约、令牌校验、尝试次数和节点重启恢复
+ */
+class OcrJobMapperTest {
+    private static final long NOW = 1_000_000L;
+
+    private static final long LEASE = 60_000L;
+
+    @TempDir
+    Path tempDir;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sqlSessionFactory = MapperTestDatabase.create(tempDir);
+    }
+
+    private <T> T query(Function<OcrJobMapper, T> work) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return work.apply(session.getMapper(OcrJobMapper.class));
+        }
+    }
+
+    private int update(ToIntFunction<OcrJobMapper> work) {
+        try (SqlSession session = sqlSessionFactory.openSession(true)) {
+            return work.applyAsInt(session.getMapper(OcrJobMapper.class));
+        }
+    }
+
+    private Long insert(OcrPriority priority, int maxAttempts) {
+        OcrJob job = OcrJob.builder()
+                .imagePath("/images/" + priority)
+                .imageHash("hash-" + priority)
+                .ocrType("fake")
+                .priority(priority)
+                .state(OcrJob.STATE_PENDING)
+                .attempts(0)
+                .maxAttempts(maxAttempts)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        update(mapper -> mapper.insert(job));
+        return job.getId();
+    }
+
+    private List<OcrJob> claim(String owner, String token, long now, int limit) {
+        return query(mapper -> {
+            mapper.claimBatch(owner, token, now, now + LEASE, limit, LocalDateTime.now());
+            return mapper.selectByLeaseToken(token);
+        });
+    }
+
+    private OcrJob select(Long id) {
+        return query(mapper -> mapper.selectById(id));
+    }
+
+    private OcrJob latest(String imageHash) {
+        return query(mapper -> mapper.selectLatestByImageHash(imageHash));
+    }
+
+    @Test
+    void competingOwnersClaimEachJobOnlyOnceInPriorityOrder() {
+        Long batch = insert(OcrPriority.BATCH, 3);
+        Long interactive = insert(OcrPriority.INTERACTIVE, 3);
+        Long reprocess = insert(OcrPriority.REPROCESS, 3);
+
+        assertThat(claim("node-a", "token-a", NOW, 2))
+                .extracting(OcrJob::getId, OcrJob::getState, OcrJob::getAttempts, OcrJob::getLeaseOwner,
+                        OcrJob::getLeaseUntil)
+                .containsExactly(tuple(batch, "RUNNING", 1, "node-a", NOW + LEASE),
+                        tuple(interactive, "RUNNING", 1, "node-a", NOW + LEASE));
+        assertThat(claim("node-b", "token-b", NOW, 2)).extracting(OcrJob::getId).containsExactly(reprocess);
+        assertThat(claim("node-c", "token-c", NOW, 2)).isEmpty();
+        assertThat(update(mapper -> mapper.countPending(OcrPriority.INTERACTIVE))).isZero();
+    }
+
+    @Test
+    void expiredLeaseIsReclaimedAndStaleTokenIsRejected() {
+        Long id = insert(OcrPriority.INTERACTIVE, 3);
+        claim("node-a", "token-a", NOW, 1);
+
+        // 租约未过期时不能被其他节点领取
+        assertThat(claim("node-b", "token-b", NOW + LEASE - 1, 1)).isEmpty();
+        assertThat(claim("node-b", "token-b", NOW + LEASE + 1, 1))
+                .extracting(OcrJob::getId, OcrJob::getAttempts, OcrJob::getLeaseOwner)
+                .containsExactly(tuple(id, 2, "node-b"));
+
+        // 原持有者的令牌已失效，完成、失败、放弃和退回都不生效
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(update(mapper -> mapper.markDone(id, "token-a", 42L, null, now))).isZero();
+        assertThat(update(mapper -> mapper.markFailed(id, "token-a", "错误", now))).isZero();
+        assertThat(update(mapper -> mapper.markAbandoned(id, "token-a", "错误", now))).isZero();
+        assertThat(update(mapper -> mapper.release(id, "token-a", now))).isZero();
+        assertThat(select(id)).extracting(OcrJob::getState, OcrJob::getLeaseToken)
+                .containsExactly("RUNNING", "token-b");
+
+        assertThat(update(mapper -> mapper.markDone(id, "token-b", 42L, "recognize=5", now))).isEqualTo(1);
+        assertThat(select(id)).extracting(OcrJob::getState, OcrJob::getFormDataId, OcrJob::getLeaseUntil,
+                OcrJob::getStageNanos).containsExactly("DONE", 42L, null, "recognize=5");
+        // 已完成的任务不能再次完成
+        assertThat(update(mapper -> mapper.markDone(id, "token-b", 43L, null, now))).isZero();
+    }
+
+    @Test
+    void heartbeatRenewsOnlyLeasesStillHeldByOwner() {
+        Long held = insert(OcrPriority.INTERACTIVE, 3);
+        Long taken = insert(OcrPriority.BATCH, 3);
+        claim("node-a", "token-a", NOW, 2);
+        // 第二个任务的租约过期后被node-b接手
+        update(mapper -> mapper.renewLeases("node-a", List.of(held), NOW + 2 * LEASE));
+        claim("node-b", "token-b", NOW + LEASE + 1, 1);
+
+        assertThat(update(mapper -> mapper.renewLeases("node-a", List.of(held, taken), NOW + 3 * LEASE)))
+                .isEqualTo(1);
+        assertThat(select(held).getLeaseUntil()).isEqualTo(NOW + 3 * LEASE);
+        assertThat(select(taken)).extracting(OcrJob::getLeaseOwner, OcrJob::getLeaseUntil)
+                .containsExactly("node-b", NOW + 2 * LEASE + 1);
+    }
+
+    @Test
+    void failedJobIsRetriedUntilAttemptsAreExhausted() {
+        Long id = insert(OcrPriority.INTERACTIVE, 2);
+        LocalDateTime now = LocalDateTime.now();
+
+        claim("node-a", "token-1", NOW, 1);
+        assertThat(update(mapper -> mapper.markFailed(id, "token-1", "第一次失败", now))).isEqualTo(1);
+        assertThat(select(id)).extracting(OcrJob::getState, OcrJob::getLeaseOwner, OcrJob::getLastError)
+                .containsExactly("PENDING", null, "第一次失败");
+
+        claim("node-a", "token-2", NOW, 1);
+        assertThat(update(mapper -> mapper.markFailed(id, "token-2", "第二次失败", now))).isEqualTo(1);
+        assertThat(select(id)).extracting(OcrJob::getState, OcrJob::getAttempts)
+                .containsExactly("FAILED", 2);
+        assertThat(claim("node-a", "token-3", NOW, 1)).isEmpty();
+    }
+
+    @Test
+    void releaseDoesNotCountAsAttempt() {
+        Long id = insert(OcrPriority.INTERACTIVE, 1);
+        claim("node-a", "token-1", NOW, 1);
+
+        assertThat(update(mapper -> mapper.release(id, "token-1", LocalDateTime.now()))).isEqualTo(1);
+        assertThat(select(id)).extracting(OcrJob::getState, OcrJob::getAttempts)
+                .containsExactly("PENDING", 0);
+        assertThat(claim("node-a", "token-2", NOW, 1)).extracting(OcrJob::getId).containsExactly(id);
+    }
+
+    @Test
+    void expiredJobWithoutAttemptsLeftIsFailedInsteadOfReclaimed() {
+        Long id = insert(OcrPriority.INTERACTIVE, 1);
+        claim("node-a", "token-a", NOW, 1);
+
+        assertThat(update(mapper -> mapper.failExhausted(NOW + LEASE - 1, LocalDateTime.now()))).isZero();
+        assertThat(claim("node-b", "token-b", NOW + LEASE + 1, 1)).isEmpty();
+        assertThat(update(mapper -> mapper.failExhausted(NOW + LEASE + 1, LocalDateTime.now()))).isEqualTo(1);
+        assertThat(select(id)).extracting(OcrJob::getState, OcrJob::getLeaseOwner, OcrJob::getLastError)
+                .containsExactly("FAILED", null, "超过最大尝试次数");
+    }
+
+    @Test
+    void releaseByOwnerRequeuesOnlyThatOwnersRunningJobs() {
+        Long retry = insert(OcrPriority.INTERACTIVE, 3);
+        Long exhausted = insert(OcrPriority.BATCH, 1);
+        Long other = insert(OcrPriority.REPROCESS, 3);
+        claim("node-a", "token-a", NOW, 2);
+        claim("node-b", "token-b", NOW, 1);
+
+        assertThat(update(mapper -> mapper.releaseByOwner("node-a", LocalDateTime.now()))).isEqualTo(2);
+        assertThat(select(retry)).extracting(OcrJob::getState, OcrJob::getLeaseOwner, OcrJob::getAttempts)
+                .containsExactly("PENDING", null, 1);
+        assertThat(select(exhausted).getState()).isEqualTo("FAILED");
+        assertThat(select(other)).extracting(OcrJob::getState, OcrJob::getLeaseOwner)
+                .containsExactly("RUNNING", "node-b");
+        // 重启前的令牌不能再完成已退回的任务
+        assertThat(update(mapper -> mapper.markDone(retry, "token-a", 1L, null, LocalDateTime.now()))).isZero();
+    }
+
+    @Test
+    void latestJobForImageIgnoresFailedJobs() {
+        Long first = insert(OcrPriority.INTERACTIVE, 1);
+        claim("node-a", "token-a", NOW, 1);
+        update(mapper -> mapper.markAbandoned(first, "token-a", "错误", LocalDateTime.now()));
+
+        assertThat(latest("hash-INTERACTIVE")).isNull();
+        Long second = insert(OcrPriority.INTERACTIVE, 1);
+        assertThat(latest("hash-INTERACTIVE"))
+                .extracting(OcrJob::getId, OcrJob::getState)
+                .containsExactly(second, "PENDING");
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.formscanner.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FormDataExportTokenTest {
+
+    @Test
+    void roundTripsThroughUrlSafeString() {
+        for (long seq : new long[]{0L, 1L, 1234567L, Long.MAX_VALUE}) {
+            String encoded = new FormDataExportToken(seq).encode();
+            assertThat(encoded).doesNotContain("=", "+", "/");
+            assertThat(FormDataExportToken.decode(encoded).seq()).isEqualTo(seq);
+        }
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        String negative = Base64.getUrlEncoder().withoutPadding().encodeToString("-1".getBytes(StandardCharsets.UTF_8));
+        // 改为变更序号之前的按时间的令牌
+        String legacy = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("2024-05-01T08:00".getBytes(StandardCharsets.UTF_8));
+        for (String token : new String[]{"", "!!", negative, legacy}) {
+            assertThatThrownBy(() -> FormDataExportToken.decode(token))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageStartingWith("无效的导出令牌");
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.formscanner.service.export.impl;
+
+import com.example.formscanner.model.FormData;
+import com.example.formscanner.service.export.FormDataExportWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CsvFormDataExporterTest {
+    private static final String HEADER = "ID,工程名称,施工单位,工程地址,施工部位,强度等级,本车方量(m³),创建时间\r\n";
+
+    private static String export(boolean bom, FormData... rows) throws IOException {
+        CsvFormDataExporter exporter = new CsvFormDataExporter();
+        ReflectionTestUtils.setField(exporter, "writeBom", bom);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (FormDataExportWriter writer = exporter.open(output)) {
+            for (FormData row : rows) {
+                writer.write(row);
+            }
+            writer.finish();
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private static FormData row(String projectName, String constructionPart) {
+        return FormData.builder()
+                .id(7L)
+                .projectName(projectName)
+                .constructionPart(constructionPart)
+                .currentVolume("12.5")
+                .createdAt(LocalDateTime.of(2024, 5, 1, 8, 30))
+                .build();
+    }
+
+    @Test
+    void plainFieldsAreNotQuotedAndNullsAreEmpty() throws IOException {
+        assertThat(export(false, row("城南安置房三期工程", "3#楼顶板")))
+                .isEqualTo(HEADER + "7,城南安置房三期工程,,,3#楼顶板,,12.5,2024-05-01T08:30\r\n");
+    }
+
+    @Test
+    void quotesFieldsWithCommaQuoteOrLineBreak() throws IOException {
+        String csv = export(false,
+                row("A,B", "say \"hi\""),
+                row("line1\nline2", "cr\rhere"),
+                row("crlf\r\nend", "\""));
+        assertThat(csv).isEqualTo(HEADER
+                + "7,\"A,B\",,,\"say \"\"hi\"\"\",,12.5,2024-05-01T08:30\r\n"
+                + "7,\"line1\nline2\",,,\"cr\rhere\",,12.5,2024-05-01T08:30\r\n"
+                + "7,\"crlf\r\nend\",,,\"\"\"\",,12.5,2024-05-01T08:30\r\n");
+    }
+
+    @Test
+    void writesBomWhenEnabled() throws IOException {
+        assertThat(export(true)).isEqualTo("\uFEFF" + HEADER);
+        assertThat(export(false)).isEqualTo(HEADER);
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.formscanner.service.job;
+
+import com.example.formscanner.config.JobQueueProperties;
+import com.example.formscanner.mapper.MapperTestDatabase;
+import com.example.formscanner.mapper.OcrJobMapper;
+import com.example.formscanner.model.OcrJob;
+import com.example.formscanner.model.OcrPriority;
+import com.example.formscanner.service.storage.ImageStore;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 识别任务服务的测试：多节点竞争领取、租约失效后的完成、节点重启恢复，以及完成后唤醒等待者的时机
+ */
+class OcrJobServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private OcrJobMapper ocrJobMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // 每次调用使用独立的自动提交会话，各节点和等待线程共享同一个数据库
+        ocrJobMapper = SqlSessionManager.newInstance(MapperTestDatabase.create(tempDir)).getMapper(OcrJobMapper.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private OcrJobService node(String nodeId, Duration leaseDuration) {
+        JobQueueProperties properties = new JobQueueProperties();
+        properties.setNodeId(nodeId);
+        properties.setLeaseDuration(leaseDuration);
+        properties.setAwaitPollInterval(Duration.ofMinutes(1));
+        return new OcrJobService(ocrJobMapper, properties, mock(PlatformTransactionManager.class), 8080);
+    }
+
+    private static ImageStore.StoredImage image(String hash) {
+        return new ImageStore.StoredImage(hash, Path.of("/images", hash));
+    }
+
+    @Test
+    void competingNodesClaimEachJobOnlyOnce() {
+        OcrJobService nodeA = node("node-a", Duration.ofMinutes(1));
+        OcrJobService nodeB = node("node-b", Duration.ofMinutes(1));
+        for (int i = 0; i < 3; i++) {
+            nodeA.enqueue(image("hash-" + i), "scan.png", "fake", OcrPriority.BATCH);
+        }
+
+        List<OcrJob> claimedByA = nodeA.claim(2);
+        List<OcrJob> claimedByB = nodeB.claim(2);
+
+        assertThat(claimedByA).hasSize(2).allMatch(job -> "node-a".equals(job.getLeaseOwner()));
+        assertThat(claimedByB).hasSize(1).allMatch(job -> "node-b".equals(job.getLeaseOwner()));
+        assertThat(claimedByB.get(0).getId()).isNotIn(claimedByA.get(0).getId(), claimedByA.get(1).getId());
+        assertThat(nodeA.heartbeat()).isEqualTo(2);
+        assertThat(nodeB.heartbeat()).isEqualTo(1);
+    }
+
+    @Test
+    void completeAfterLeaseWasTakenOverIsRejected() throws Exception {
+        OcrJobService nodeA = node("node-a", Duration.ofMillis(1));
+        OcrJobService nodeB = node("node-b", Duration.ofMinutes(1));
+        nodeA.enqueue(image("hash"), "scan.png", "fake", OcrPriority.INTERACTIVE);
+
+        OcrJob staleJob = nodeA.claim(1).get(0);
+        Thread.sleep(5);
+        OcrJob job = nodeB.claim(1).get(0);
+
+        assertThat(job.getId()).isEqualTo(staleJob.getId());
+        assertThat(nodeA.complete(staleJob, 1L)).isFalse();
+        // 租约失效的节点不再为该任务续约
+        assertThat(nodeA.heartbeat()).isZero();
+        assertThat(nodeB.complete(job, 2L)).isTrue();
+        assertThat(nodeB.getJob(job.getId())).get()
+                .extracting(OcrJob::getState, OcrJob::getFormDataId)
+                .containsExactly(OcrJob.STATE_DONE, 2L);
+    }
+
+    @Test
+    void recoverOwnJobsRequeuesJobsLeftRunning() {
+        OcrJobService beforeRestart = node("node-a", Duration.ofMinutes(1));
+        OcrJob job = beforeRestart.start(image("hash"), "scan.png", "fake", OcrPriority.BATCH);
+
+        OcrJobService afterRestart = node("node-a", Duration.ofMinutes(1));
+        assertThat(afterRestart.recoverOwnJobs()).isEqualTo(1);
+        assertThat(afterRestart.getJob(job.getId())).get()
+                .extracting(OcrJob::getState, OcrJob::getLeaseOwner)
+                .containsExactly(OcrJob.STATE_PENDING, null);
+        assertThat(afterRestart.claim(1)).extracting(OcrJob::getId).containsExactly(job.getId());
+    }
+
+    @Test
+    void completeInTransactionWakesWaiterOnlyAfterCommit() throws Exception {
+        OcrJobService service = node("node-a", Duration.ofMinutes(1));
+        OcrJob job = service.start(image("hash"), "scan.png", "fake", OcrPriority.INTERACTIVE);
+
+        CompletableFuture<Optional<OcrJob>> waiter = new CompletableFuture<>();
+        Thread waiterThread = new Thread(() -> {
+            try {
+                waiter.complete(service.awaitFinished(job.getId(), Duration.ofMinutes(1)));
+            } catch (Throwable e) {
+                waiter.completeExceptionally(e);
+            }
+        });
+        waiterThread.start();
+        // 等待者查询到任务仍在处理中，开始等待唤醒
+        while (waiterThread.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(service.complete(job, 1L)).isTrue();
+        // 事务提交前等待者不被唤醒
+        Thread.sleep(100);
+        assertThat(waiter).isNotDone();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).get()
+                .extracting(OcrJob::getState, OcrJob::getFormDataId)
+                .containsExactly(OcrJob.STATE_DONE, 1L);
+    }
+}
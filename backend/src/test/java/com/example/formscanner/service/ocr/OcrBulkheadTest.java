@@ -0,0 +1,125 @@
+package com.example.formscanner.service.ocr;
+
+import com.example.formscanner.config.OcrBulkheadProperties;
+import com.example.formscanner.exception.OcrRejectedException;
+import com.example.formscanner.model.OcrPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OcrBulkheadTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private OcrBulkhead bulkhead(int maxConcurrent, int queueCapacity) {
+        OcrBulkheadProperties properties = new OcrBulkheadProperties();
+        properties.setDefaults(new OcrBulkheadProperties.Limit(
+                maxConcurrent, queueCapacity, Duration.ofSeconds(10), Duration.ofSeconds(1)));
+        return new OcrBulkhead(properties, meterRegistry);
+    }
+
+    private double availablePermits() {
+        return meterRegistry.get("ocr.bulkhead.available.permits").tag("recognizer", "test").gauge().value();
+    }
+
+    private double queued(OcrPriority priority) {
+        return meterRegistry.get("ocr.bulkhead.queued").tag("recognizer", "test")
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT)).gauge().value();
+    }
+
+    private void awaitQueued(OcrPriority priority, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (queued(priority) != expected) {
+            assertThat(System.nanoTime()).as("等待%s类别排队数达到%d", priority, expected).isLessThan(deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    /**
+     * 启动一个排队的请求，获得许可后记录类别并立即释放
+     */
+    private Thread queue(OcrBulkhead bulkhead, OcrPriority priority, List<OcrPriority> grants) {
+        return Thread.ofPlatform().daemon().start(() -> {
+            try (OcrBulkhead.Permit ignored = bulkhead.acquire("test", priority)) {
+                grants.add(priority);
+            } catch (OcrRejectedException e) {
+                // 被中断的等待者
+            }
+        });
+    }
+
+    /**
+     * 许可被占用时排入8个交互式和2个批量请求，按权重8:2交替获得许可
+     */
+    private List<OcrPriority> interleave(OcrBulkhead bulkhead, OcrBulkhead.Permit held) throws InterruptedException {
+        List<OcrPriority> grants = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(queue(bulkhead, OcrPriority.INTERACTIVE, grants));
+        }
+        for (int i = 0; i < 2; i++) {
+            threads.add(queue(bulkhead, OcrPriority.BATCH, grants));
+        }
+        awaitQueued(OcrPriority.INTERACTIVE, 8);
+        awaitQueued(OcrPriority.BATCH, 2);
+        held.close();
+        for (Thread thread : threads) {
+            thread.join(5000);
+        }
+        return grants;
+    }
+
+    @Test
+    void closingPermitTwiceReleasesOnce() {
+        OcrBulkhead bulkhead = bulkhead(1, 0);
+        OcrBulkhead.Permit permit = bulkhead.acquire("test");
+        permit.close();
+        permit.close();
+        assertThat(availablePermits()).isEqualTo(1.0);
+
+        try (OcrBulkhead.Permit ignored = bulkhead.acquire("test")) {
+            // 许可没有被多归还，第二个请求不能同时获得许可
+            assertThatThrownBy(() -> bulkhead.acquire("test", OcrPriority.INTERACTIVE))
+                    .isInstanceOf(OcrRejectedException.class);
+        }
+    }
+
+    @Test
+    void classesInterleaveByWeight() throws InterruptedException {
+        OcrBulkhead bulkhead = bulkhead(1, 64);
+        List<OcrPriority> grants = interleave(bulkhead, bulkhead.acquire("test"));
+
+        OcrPriority i = OcrPriority.INTERACTIVE;
+        OcrPriority b = OcrPriority.BATCH;
+        assertThat(grants).containsExactly(i, i, i, i, b, i, i, i, i, b);
+    }
+
+    @Test
+    void abandonedWaitersDoNotStarveTheirClass() throws InterruptedException {
+        OcrBulkhead bulkhead = bulkhead(1, 64);
+        OcrBulkhead.Permit held = bulkhead.acquire("test");
+
+        // 一批批量请求排队后全部放弃，它们占用的虚拟完成时间应被撤回
+        List<OcrPriority> abandoned = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int n = 0; n < 20; n++) {
+            threads.add(queue(bulkhead, OcrPriority.BATCH, abandoned));
+        }
+        awaitQueued(OcrPriority.BATCH, 20);
+        threads.forEach(Thread::interrupt);
+        awaitQueued(OcrPriority.BATCH, 0);
+        assertThat(abandoned).isEmpty();
+
+        List<OcrPriority> grants = interleave(bulkhead, held);
+        OcrPriority i = OcrPriority.INTERACTIVE;
+        OcrPriority b = OcrPriority.BATCH;
+        assertThat(grants).containsExactly(i, i, i, i, b, i, i, i, i, b);
+    }
+}
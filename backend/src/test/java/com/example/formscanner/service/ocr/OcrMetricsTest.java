@@ -0,0 +1,43 @@
+package com.example.formscanner.service.ocr;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OcrMetricsTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OcrMetrics ocrMetrics = new OcrMetrics(meterRegistry);
+
+    @Test
+    void recordsIntoOneMeterPerTagCombination() {
+        ocrMetrics.recordRecognize("tesseract", OcrMetrics.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(100));
+        ocrMetrics.recordRecognize("tesseract", OcrMetrics.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(300));
+        ocrMetrics.recordRecognize("tesseract", OcrMetrics.OUTCOME_FAILURE, TimeUnit.MILLISECONDS.toNanos(50));
+        ocrMetrics.recordRecognize("baidu", OcrMetrics.OUTCOME_SUCCESS, TimeUnit.MILLISECONDS.toNanos(200));
+
+        assertThat(meterRegistry.get("ocr.recognize").timers()).hasSize(3);
+        assertThat(meterRegistry.get("ocr.recognize").tag("recognizer", "tesseract")
+                .tag("outcome", OcrMetrics.OUTCOME_SUCCESS).timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(400.0);
+        assertThat(meterRegistry.get("ocr.recognize").tag("recognizer", "tesseract")
+                .tag("outcome", OcrMetrics.OUTCOME_SUCCESS).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void tagValuesAreNotConfusedAcrossPositions() {
+        ocrMetrics.recordPreprocess("a", "b", 1);
+        ocrMetrics.recordPreprocess("b", "a", 1);
+        ocrMetrics.countForm("tesseract", OcrMetrics.OUTCOME_SUCCESS);
+        ocrMetrics.countForm("tesseract", OcrMetrics.OUTCOME_SUCCESS);
+        ocrMetrics.recordSave(1);
+        ocrMetrics.recordSave(1);
+
+        assertThat(meterRegistry.get("ocr.preprocess").timers()).hasSize(2);
+        assertThat(meterRegistry.get("ocr.forms").tag("outcome", OcrMetrics.OUTCOME_SUCCESS).counter().count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("ocr.image.save").timer().count()).isEqualTo(2);
+    }
+}
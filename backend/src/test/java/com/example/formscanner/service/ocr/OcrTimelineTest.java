@@ -0,0 +1,59 @@
+package com.example.formscanner.service.ocr;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OcrTimelineTest {
+
+    @AfterEach
+    void tearDown() {
+        OcrTimeline.end();
+    }
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+
+    @Test
+    void stagesRecordedOnWorkerAreMergedIntoWaitingRequest() {
+        // 处理节点：识别耗时包含预处理
+        OcrTimeline.begin();
+        OcrTimeline.record(OcrTimeline.Stage.PREPROCESS, millis(20));
+        OcrTimeline.record(OcrTimeline.Stage.RECOGNIZE, millis(820));
+        OcrTimeline.record(OcrTimeline.Stage.EXTRACT, millis(5));
+        String encoded = OcrTimeline.encodeStages();
+        OcrTimeline.end();
+        assertThat(encoded).isEqualTo("preprocess=20000000,recognize=820000000,extract=5000000");
+
+        // 等待任务的请求
+        OcrTimeline timeline = OcrTimeline.begin();
+        OcrTimeline.record(OcrTimeline.Stage.SAVE, millis(12));
+        long processed = OcrTimeline.mergeStages(encoded);
+        assertThat(processed).isEqualTo(millis(825));
+        OcrTimeline.record(OcrTimeline.Stage.QUEUE, millis(1000) - processed);
+
+        Map<String, Double> stages = timeline.toMillis();
+        assertThat(stages).containsKeys("save", "queue", "preprocess", "recognize", "extract", "total")
+                .doesNotContainKey("persist");
+        assertThat(stages).containsEntry("queue", 175.0).containsEntry("recognize", 800.0)
+                .containsEntry("preprocess", 20.0);
+        assertThat(OcrTimeline.toServerTiming(stages)).startsWith("save;dur=12.0, queue;dur=175.0, preprocess;dur=20.0");
+    }
+
+    @Test
+    void missingOrMalformedStagesAreIgnored() {
+        assertThat(OcrTimeline.encodeStages()).isNull();
+        assertThat(OcrTimeline.mergeStages("recognize=1")).isZero();
+
+        OcrTimeline timeline = OcrTimeline.begin();
+        assertThat(OcrTimeline.encodeStages()).isNull();
+        assertThat(OcrTimeline.mergeStages(null)).isZero();
+        assertThat(OcrTimeline.mergeStages("unknown=5,recognize=abc,=3,extract=2000000")).isEqualTo(2_000_000);
+        assertThat(timeline.toMillis()).containsEntry("extract", 2.0).doesNotContainKey("recognize");
+    }
+}
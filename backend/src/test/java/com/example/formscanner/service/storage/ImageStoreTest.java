@@ -0,0 +1,154 @@
+package com.example.formscanner.service.storage;
+
+import com.example.formscanner.mapper.ImageBlobMapper;
+import com.example.formscanner.model.ImageBlob;
+import com.example.formscanner.service.persistence.GroupCommitWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图片保存与回收的测试：回收只以删除记录时的条件为准，不会留下没有记录的文件
+ */
+class ImageStoreTest {
+    private static final byte[] IMAGE = "fake-jpeg-content".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploadDir;
+
+    private final ImageBlobMapper imageBlobMapper = mock(ImageBlobMapper.class);
+
+    private ImageStore imageStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws IOException {
+        GroupCommitWriter groupCommitWriter = mock(GroupCommitWriter.class);
+        when(groupCommitWriter.execute(any(Supplier.class))).thenAnswer(invocation ->
+                ((Supplier<Object>) invocation.getArgument(0)).get());
+        when(imageBlobMapper.touch(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        imageStore = new ImageStore(imageBlobMapper, groupCommitWriter, mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(imageStore, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(imageStore, "orphanRetention", Duration.ofDays(7));
+        ReflectionTestUtils.setField(imageStore, "gcInterval", Duration.ZERO);
+        ReflectionTestUtils.setField(imageStore, "gcBatchSize", 10);
+        ReflectionTestUtils.setField(imageStore, "thumbnailSizes", List.of(160));
+        imageStore.init();
+    }
+
+    private ImageBlob save() throws IOException {
+        ImageStore.StoredImage stored = imageStore.save("scan.jpg", new ByteArrayResource(IMAGE));
+        ImageBlob blob = ImageBlob.builder().hash(stored.hash()).extension("jpg").size((long) IMAGE.length).build();
+        assertThat(stored.path()).isEqualTo(imageStore.resolve(blob)).hasBinaryContent(IMAGE);
+        return blob;
+    }
+
+    private List<Path> tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(uploadDir.resolve("tmp"))) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    void collectedImageLeavesNoFileBehind() throws IOException {
+        when(imageBlobMapper.selectByHash(any())).thenAnswer(invocation ->
+                ImageBlob.builder().hash(invocation.getArgument(0)).build());
+        ImageBlob blob = save();
+        Files.createDirectories(imageStore.resolveThumbnail(blob.getHash(), 160).getParent());
+        Files.write(imageStore.resolveThumbnail(blob.getHash(), 160), IMAGE);
+        when(imageBlobMapper.selectCollectable(any(), any(), anyInt())).thenReturn(List.of(blob));
+        when(imageBlobMapper.deleteIfCollectable(eq(blob.getHash()), any(LocalDateTime.class))).thenReturn(1);
+
+        assertThat(imageStore.collectGarbage()).isEqualTo(1);
+        assertThat(imageStore.resolve(blob)).doesNotExist();
+        assertThat(imageStore.resolveThumbnail(blob.getHash(), 160)).doesNotExist();
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void imageReusedBeforeDeletionIsRestored() throws IOException {
+        when(imageBlobMapper.selectByHash(any())).thenAnswer(invocation ->
+                ImageBlob.builder().hash(invocation.getArgument(0)).build());
+        ImageBlob blob = save();
+        when(imageBlobMapper.selectCollectable(any(), any(), anyInt())).thenReturn(List.of(blob));
+        // 查询之后图片被其他节点再次保存，删除条件不再成立
+        when(imageBlobMapper.deleteIfCollectable(eq(blob.getHash()), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThat(imageStore.collectGarbage()).isZero();
+        assertThat(imageStore.resolve(blob)).hasBinaryContent(IMAGE);
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void failedDeletionRestoresFile() throws IOException {
+        when(imageBlobMapper.selectByHash(any())).thenAnswer(invocation ->
+                ImageBlob.builder().hash(invocation.getArgument(0)).build());
+        ImageBlob blob = save();
+        when(imageBlobMapper.selectCollectable(any(), any(), anyInt())).thenReturn(List.of(blob));
+        when(imageBlobMapper.deleteIfCollectable(eq(blob.getHash()), any(LocalDateTime.class)))
+                .thenThrow(new IllegalStateException("database is locked"));
+
+        assertThatThrownBy(imageStore::collectGarbage).isInstanceOf(IllegalStateException.class);
+        assertThat(imageStore.resolve(blob)).hasBinaryContent(IMAGE);
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void passEndsWhenFullBatchCannotBeCollected() throws IOException {
+        when(imageBlobMapper.selectByHash(any())).thenAnswer(invocation ->
+                ImageBlob.builder().hash(invocation.getArgument(0)).build());
+        ImageBlob blob = save();
+        ReflectionTestUtils.setField(imageStore, "gcBatchSize", 1);
+        // 记录没有删除，仍满足回收条件，只有翻页才能结束本轮回收
+        when(imageBlobMapper.selectCollectable(any(), any(), anyInt())).thenAnswer(invocation ->
+                invocation.getArgument(1) == null ? List.of(blob) : List.of());
+        when(imageBlobMapper.deleteIfCollectable(eq(blob.getHash()), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThat(imageStore.collectGarbage()).isZero();
+        verify(imageBlobMapper).selectCollectable(any(), eq(blob), eq(1));
+        assertThat(imageStore.resolve(blob)).hasBinaryContent(IMAGE);
+    }
+
+    @Test
+    void saveRetriesWhenRecordWasCollectedMeanwhile() throws IOException {
+        // 第一次保存后重新检查时记录已被回收删除
+        when(imageBlobMapper.selectByHash(any()))
+                .thenReturn(null)
+                .thenAnswer(invocation -> ImageBlob.builder().hash(invocation.getArgument(0)).build());
+
+        save();
+        verify(imageBlobMapper, times(2)).touch(any());
+        assertThat(tempFiles()).isEmpty();
+    }
+
+    @Test
+    void saveGivesUpWhenImageKeepsBeingCollected() {
+        when(imageBlobMapper.selectByHash(any())).thenReturn(null);
+
+        assertThatThrownBy(this::save).isInstanceOf(IOException.class).hasMessageContaining("被回收");
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.formscanner.service.storage;
+
+import com.example.formscanner.model.ImageBlob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 缩略图生成的测试：原图不存在和无法解码要区分开，分别对应404和422
+ */
+class ThumbnailServiceTest {
+    private static final ImageBlob BLOB = ImageBlob.builder().hash("abcdef").extension("png").build();
+
+    @TempDir
+    Path dir;
+
+    private final ImageStore imageStore = mock(ImageStore.class);
+
+    private ThumbnailService thumbnailService;
+
+    private Path original;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        original = dir.resolve("original.png");
+        when(imageStore.getThumbnailSizes()).thenReturn(List.of(160));
+        when(imageStore.resolve(BLOB)).thenReturn(original);
+        when(imageStore.resolveThumbnail(any(), anyInt())).thenReturn(dir.resolve("thumbnail.jpg"));
+        when(imageStore.createTempFile()).thenAnswer(invocation -> Files.createTempFile(dir, "thumb", ".tmp"));
+        doAnswer(invocation -> Files.move(invocation.<Path>getArgument(0), invocation.<Path>getArgument(1)))
+                .when(imageStore).moveIntoPlace(any(), any());
+        thumbnailService = new ThumbnailService(imageStore);
+        ReflectionTestUtils.setField(thumbnailService, "quality", 0.8f);
+    }
+
+    @Test
+    void missingOriginalIsReportedAsMissingFile() {
+        assertThatThrownBy(() -> thumbnailService.getThumbnail(BLOB, 160)).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void undecodableOriginalYieldsNoThumbnail() throws IOException {
+        Files.write(original, "not an image".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(thumbnailService.getThumbnail(BLOB, 160)).isEmpty();
+    }
+
+    @Test
+    void decodableOriginalIsScaledDown() throws IOException {
+        ImageIO.write(new BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        Path thumbnail = thumbnailService.getThumbnail(BLOB, 160).orElseThrow();
+        BufferedImage image = ImageIO.read(thumbnail.toFile());
+        assertThat(image.getWidth()).isEqualTo(160);
+        assertThat(image.getHeight()).isEqualTo(80);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.formscanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeflateUtilTest {
+
+    private static String roundTrip(String text) {
+        byte[] compressed = DeflateUtil.compress(text);
+        return DeflateUtil.decompress(compressed, text.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void roundTripsOcrOutput() {
+        String json = "{\"words_result\":[{\"words\":\"工程名称：城南安置房三期工程\",\"location\":{\"top\":12,\"left\":30}},"
+                + "{\"words\":\"浇筑部位：3#楼5层顶板\",\"location\":{\"top\":48,\"left\":30}}]}";
+        String text = json.repeat(20);
+        assertThat(roundTrip(text)).isEqualTo(text);
+        // 重复度高的识别结果压缩后明显变小
+        assertThat(DeflateUtil.compress(text).length).isLessThan(text.getBytes(StandardCharsets.UTF_8).length / 4);
+    }
+
+    @Test
+    void roundTripsEmptyAndSupplementaryText() {
+        assertThat(roundTrip("")).isEmpty();
+        assertThat(roundTrip("𠀀楼 C30")).isEqualTo("𠀀楼 C30");
+    }
+
+    @Test
+    void roundTripsIncompressibleContentLargerThanBuffer() {
+        // 随机内容压缩后比8KB缓冲区大，需要多次输出
+        byte[] bytes = new byte[64 * 1024];
+        new Random(42).nextBytes(bytes);
+        String text = new String(Base64.getEncoder().encode(bytes), StandardCharsets.US_ASCII);
+        assertThat(roundTrip(text)).isEqualTo(text);
+    }
+
+    @Test
+    void rejectsWrongSizeAndCorruptContent() {
+        byte[] compressed = DeflateUtil.compress("浇筑部位：3#楼5层顶板");
+        int rawSize = "浇筑部位：3#楼5层顶板".getBytes(StandardCharsets.UTF_8).length;
+        assertThatThrownBy(() -> DeflateUtil.decompress(compressed, rawSize + 1))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("长度不符");
+        assertThatThrownBy(() -> DeflateUtil.decompress(Arrays.copyOf(compressed, compressed.length / 2), rawSize))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> DeflateUtil.decompress(new byte[]{(byte) 0xff, (byte) 0xff, 0x00}, rawSize))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("已损坏");
+    }
+}
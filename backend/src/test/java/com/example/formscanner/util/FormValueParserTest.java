@@ -0,0 +1,62 @@
+package com.example.formscanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class FormValueParserTest {
+
+    @Test
+    void parsesVolumeWithUnitsAndFullWidthDigits() {
+        assertThat(FormValueParser.parseVolume("12.5")).isEqualTo(12.5);
+        assertThat(FormValueParser.parseVolume("12.5m³")).isEqualTo(12.5);
+        assertThat(FormValueParser.parseVolume("１２．５方")).isEqualTo(12.5);
+        assertThat(FormValueParser.parseVolume(" 8 方 ")).isEqualTo(8.0);
+        assertThat(FormValueParser.parseVolume("12,5")).isEqualTo(12.5);
+        assertThat(FormValueParser.parseVolume("12。5")).isEqualTo(12.5);
+    }
+
+    @Test
+    void rejectsVolumeOutsideReasonableRange() {
+        assertThat(FormValueParser.parseVolume("100")).isEqualTo(100.0);
+        assertThat(FormValueParser.parseVolume("100.5")).isNull();
+        assertThat(FormValueParser.parseVolume("0")).isNull();
+        assertThat(FormValueParser.parseVolume("方量")).isNull();
+        assertThat(FormValueParser.parseVolume(null)).isNull();
+    }
+
+    @Test
+    void normalizesStrengthGrade() {
+        assertThat(FormValueParser.parseStrengthGrade("C30")).isEqualTo("C30");
+        assertThat(FormValueParser.parseStrengthGrade("c 30")).isEqualTo("C30");
+        assertThat(FormValueParser.parseStrengthGrade("Ｃ３０P6")).isEqualTo("C30");
+        assertThat(FormValueParser.parseStrengthGrade("砼C35")).isEqualTo("C35");
+        assertThat(FormValueParser.parseStrengthGrade("C100")).isEqualTo("C100");
+    }
+
+    @Test
+    void rejectsUnknownStrengthGrade() {
+        // 只有一位数字，或三位数字超出范围
+        assertThat(FormValueParser.parseStrengthGrade("C5")).isNull();
+        assertThat(FormValueParser.parseStrengthGrade("C105")).isNull();
+        assertThat(FormValueParser.parseStrengthGrade("P6")).isNull();
+        assertThat(FormValueParser.parseStrengthGrade(null)).isNull();
+    }
+
+    @Test
+    void addsDerivedValuesOnlyForChangedColumns() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("currentVolume", "12.5方");
+        FormValueParser.addDerivedValues(fields);
+        assertThat(fields).containsOnly(entry("currentVolume", "12.5方"), entry("volume", 12.5));
+
+        fields = new HashMap<>();
+        fields.put("strengthLevel", null);
+        FormValueParser.addDerivedValues(fields);
+        assertThat(fields).containsOnly(entry("strengthLevel", null), entry("strengthGrade", null));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.formscanner.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchBigramsTest {
+
+    @Test
+    void splitsRunsOfLettersAndDigitsIntoBigrams() {
+        assertThat(SearchBigrams.bigrams("钢筋混凝土")).isEqualTo("钢筋 筋混 混凝 凝土");
+        assertThat(SearchBigrams.bigrams("C30P6")).isEqualTo("C3 30 0P P6");
+    }
+
+    @Test
+    void breaksAtPunctuationAndWhitespace() {
+        assertThat(SearchBigrams.bigrams("3#楼5层")).isEqualTo("楼5 5层");
+        assertThat(SearchBigrams.bigrams("东湖 学校")).isEqualTo("东湖 学校");
+        assertThat(SearchBigrams.bigrams("楼")).isEmpty();
+        assertThat(SearchBigrams.bigrams("")).isEmpty();
+    }
+
+    @Test
+    void handlesSupplementaryCharacters() {
+        // 扩展B区汉字占两个char，按码点拆分
+        assertThat(SearchBigrams.bigrams("𠀀楼")).isEqualTo("𠀀楼");
+        assertThat(SearchBigrams.isIndexable("𠀀楼")).isTrue();
+    }
+
+    @Test
+    void onlyTwoLetterOrDigitTermsAreIndexable() {
+        assertThat(SearchBigrams.isIndexable("钢筋")).isTrue();
+        assertThat(SearchBigrams.isIndexable("C3")).isTrue();
+        assertThat(SearchBigrams.isIndexable("楼")).isFalse();
+        assertThat(SearchBigrams.isIndexable("3#")).isFalse();
+        assertThat(SearchBigrams.isIndexable("混凝土")).isFalse();
+    }
+}
@@ -14,7 +14,7 @@ interface FormData {
   workUnit: string;
   position: string;
   remark: string;
-  imagePath: string;
+  imageHash: string | null;
   createdAt: string;
   updatedAt: string;
 }
@@ -147,6 +147,22 @@ export default function DetailPage({ params }: { params: { id: string } }) {
             <h3 className="text-sm font-medium text-gray-500">备注</h3>
             <p className="mt-1 text-lg text-gray-900">{formData.remark || '无'}</p>
           </div>
+
+          {formData.imageHash && (
+            <div className="mt-6">
+              <h3 className="text-sm font-medium text-gray-500">表单图片</h3>
+              <a href={`/api/images/${formData.imageHash}`} target="_blank" rel="noopener noreferrer" className="mt-2 block">
+                <Image
+                  src={`/api/images/${formData.imageHash}?size=480`}
+                  alt="表单图片"
+                  width={360}
+                  height={480}
+                  unoptimized
+                  className="max-h-[480px] w-auto rounded border border-gray-200"
+                />
+              </a>
+            </div>
+          )}
         </div>
 
         <div className="flex justify-end space-x-4">
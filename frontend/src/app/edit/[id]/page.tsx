@@ -6,21 +6,41 @@ import Link from 'next/link';
 
 interface FormData {
   id: number;
-  name: string;
-  idNumber: string;
-  phoneNumber: string;
-  address: string;
-  workUnit: string;
-  position: string;
-  remark: string;
-  imagePath: string;
+  projectName: string | null;
+  constructionUnit: string | null;
+  projectAddress: string | null;
+  constructionPart: string | null;
+  strengthLevel: string | null;
+  currentVolume: string | null;
   createdAt: string;
   updatedAt: string;
+  version: number;
 }
 
+type EditableField =
+  | 'projectName'
+  | 'constructionUnit'
+  | 'projectAddress'
+  | 'constructionPart'
+  | 'strengthLevel'
+  | 'currentVolume';
+
+// 可编辑的字段和显示名称
+const FIELDS: { name: EditableField; label: string }[] = [
+  { name: 'projectName', label: '工程名称' },
+  { name: 'constructionUnit', label: '施工单位' },
+  { name: 'projectAddress', label: '工程地址' },
+  { name: 'constructionPart', label: '施工部位' },
+  { name: 'strengthLevel', label: '强度等级' },
+  { name: 'currentVolume', label: '本车方量(m³)' },
+];
+
 export default function EditPage({ params }: { params: { id: string } }) {
   const router = useRouter();
   const [formData, setFormData] = useState<FormData | null>(null);
+  // 读取时的原始数据和ETag，保存时只提交修改过的字段，并用If-Match检查数据是否已被他人修改
+  const [original, setOriginal] = useState<FormData | null>(null);
+  const [etag, setEtag] = useState<string | null>(null);
   const [loading, setLoading] = useState(true);
   const [saving, setSaving] = useState(false);
   const [error, setError] = useState<string | null>(null);
@@ -29,12 +49,14 @@ export default function EditPage({ params }: { params: { id: string } }) {
     const fetchFormData = async () => {
       try {
         setLoading(true);
-        const response = await fetch(`/api/forms/${params.id}`);
+        const response = await fetch(`/api/forms/${params.id}`, { cache: 'no-store' });
         if (!response.ok) {
           throw new Error('获取数据失败');
         }
         const data = await response.json();
         setFormData(data);
+        setOriginal(data);
+        setEtag(response.headers.get('ETag'));
         setError(null);
       } catch (err) {
         console.error('获取表单数据出错:', err);
@@ -47,7 +69,7 @@ export default function EditPage({ params }: { params: { id: string } }) {
     fetchFormData();
   }, [params.id]);
 
-  const handleChange = (e: React.ChangeEvent<HTMLInputElement | HTMLTextAreaElement>) => {
+  const handleChange = (e: React.ChangeEvent<HTMLInputElement>) => {
     if (!formData) return;
     
     const { name, value } = e.target;
@@ -59,18 +81,37 @@ export default function EditPage({ params }: { params: { id: string } }) {
 
   const handleSubmit = async (e: React.FormEvent) => {
     e.preventDefault();
-    if (!formData) return;
+    if (!formData || !original) return;
+
+    const changes: Partial<Record<EditableField, string | null>> = {};
+    for (const { name } of FIELDS) {
+      if ((formData[name] ?? '') !== (original[name] ?? '')) {
+        changes[name] = formData[name] === '' ? null : formData[name];
+      }
+    }
+    if (Object.keys(changes).length === 0) {
+      router.push(`/detail/${params.id}`);
+      return;
+    }
 
     try {
       setSaving(true);
+      const headers: Record<string, string> = {
+        'Content-Type': 'application/merge-patch+json',
+      };
+      if (etag) {
+        headers['If-Match'] = etag;
+      }
       const response = await fetch(`/api/forms/${params.id}`, {
-        method: 'PUT',
-        headers: {
-          'Content-Type': 'application/json',
-        },
-        body: JSON.stringify(formData),
+        method: 'PATCH',
+        headers,
+        body: JSON.stringify(changes),
       });
 
+      if (response.status === 412) {
+        alert('数据已被他人修改，请刷新后重试');
+        return;
+      }
       if (!response.ok) {
         throw new Error('保存失败');
       }
@@ -122,84 +163,19 @@ export default function EditPage({ params }: { params: { id: string } }) {
         <div className="bg-white p-6 rounded-lg shadow-md mb-6">
           <form onSubmit={handleSubmit} className="space-y-6">
             <div className="grid grid-cols-1 md:grid-cols-2 gap-6">
-              <div>
-                <label htmlFor="name" className="block text-sm font-medium text-gray-700">姓名</label>
-                <input
-                  type="text"
-                  id="name"
-                  name="name"
-                  value={formData.name}
-                  onChange={handleChange}
-                  className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-                />
-              </div>
-              <div>
-                <label htmlFor="idNumber" className="block text-sm font-medium text-gray-700">身份证号</label>
-                <input
-                  type="text"
-                  id="idNumber"
-                  name="idNumber"
-                  value={formData.idNumber}
-                  onChange={handleChange}
-                  className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-                />
-              </div>
-              <div>
-                <label htmlFor="phoneNumber" className="block text-sm font-medium text-gray-700">联系电话</label>
-                <input
-                  type="text"
-                  id="phoneNumber"
-                  name="phoneNumber"
-                  value={formData.phoneNumber}
-                  onChange={handleChange}
-                  className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-                />
-              </div>
-              <div>
-                <label htmlFor="address" className="block text-sm font-medium text-gray-700">住址</label>
-                <input
-                  type="text"
-                  id="address"
-                  name="address"
-                  value={formData.address}
-                  onChange={handleChange}
-                  className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-                />
-              </div>
-              <div>
-                <label htmlFor="workUnit" className="block text-sm font-medium text-gray-700">工作单位</label>
-                <input
-                  type="text"
-                  id="workUnit"
-                  name="workUnit"
-                  value={formData.workUnit}
-                  onChange={handleChange}
-                  className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-                />
-              </div>
-              <div>
-                <label htmlFor="position" className="block text-sm font-medium text-gray-700">职务</label>
-                <input
-                  type="text"
-                  id="position"
-                  name="position"
-                  value={formData.position}
-                  onChange={handleChange}
-                  className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-                />
-              </div>
-            </div>
-            
-            <div>
-              <label htmlFor="remark" className="block text-sm font-medium text-gray-700">备注</label>
-              <textarea
-                id="remark"
-                name="remark"
-                rows={3}
-                value={formData.remark}
-                onChange={handleChange}
-                className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
-              />
+              {FIELDS.map(({ name, label }) => (
+                <div key={name}>
+                  <label htmlFor={name} className="block text-sm font-medium text-gray-700">{label}</label>
+                  <input
+                    type="text"
+                    id={name}
+                    name={name}
+                    value={formData[name] ?? ''}
+                    onChange={handleChange}
+                    className="mt-1 block w-full rounded-md border-gray-300 shadow-sm focus:border-indigo-500 focus:ring-indigo-500 sm:text-sm"
+                  />
+                </div>
+              ))}
             </div>
             
             <div className="flex justify-end space-x-4">
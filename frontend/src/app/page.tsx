@@ -6,23 +6,63 @@ import Link from 'next/link';
 
 interface FormData {
   id: number;
-  name: string;
-  idNumber: string;
-  phoneNumber: string;
-  address: string;
-  workUnit: string;
-  position: string;
-  remark: string;
+  projectName: string;
+  constructionUnit: string;
+  projectAddress: string;
+  constructionPart: string;
+  strengthLevel: string;
+  currentVolume: string;
   createdAt: string;
   updatedAt: string;
+  imageHash: string | null;
 }
 
+interface FormDataPage {
+  items: FormData[];
+  nextCursor: string | null;
+}
+
+interface FormDataChanges {
+  items: FormData[];
+  deletedIds: number[];
+  nextToken: string;
+  hasMore: boolean;
+}
+
+interface Filters {
+  projectName: string;
+  constructionUnit: string;
+  strengthLevel: string;
+  createdFrom: string;
+  createdTo: string;
+}
+
+const PAGE_SIZE = 20;
+
+// 增量同步的轮询间隔
+const SYNC_INTERVAL_MS = 10000;
+
+const EMPTY_FILTERS: Filters = {
+  projectName: '',
+  constructionUnit: '',
+  strengthLevel: '',
+  createdFrom: '',
+  createdTo: '',
+};
+
 export default function Home() {
   const [file, setFile] = useState<File | null>(null);
   const [preview, setPreview] = useState<string | null>(null);
   const [uploading, setUploading] = useState(false);
   const [formDataList, setFormDataList] = useState<FormData[]>([]);
   const [loading, setLoading] = useState(true);
+  const [loadingMore, setLoadingMore] = useState(false);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [filters, setFilters] = useState<Filters>(EMPTY_FILTERS);
+  // 当前列表是否带筛选条件，带筛选条件时同步到的新数据不插入列表（无法判断是否符合条件）
+  const [filtered, setFiltered] = useState(false);
+  // 增量同步令牌，加载第一页时由X-Change-Token响应头获得
+  const [changeToken, setChangeToken] = useState<string | null>(null);
   const [error, setError] = useState<string | null>(null);
   const [ocrTypes, setOcrTypes] = useState<string[]>([]);
   const [selectedOcrType, setSelectedOcrType] = useState<string>('');
@@ -33,6 +73,15 @@ export default function Home() {
     fetchOcrTypes();
   }, []);
 
+  // 定时拉取列表加载之后的变更，没有新变更时服务端只做一次主键查找
+  useEffect(() => {
+    if (!changeToken) {
+      return;
+    }
+    const timer = setTimeout(() => syncChanges(changeToken), SYNC_INTERVAL_MS);
+    return () => clearTimeout(timer);
+  }, [changeToken]);
+
   // 获取可用的OCR类型
   const fetchOcrTypes = async () => {
     try {
@@ -50,16 +99,82 @@ export default function Home() {
     }
   };
 
-  // 获取表单数据
+  // 获取一页表单数据，cursor为空时从第一页开始
+  const fetchFormDataPage = async (cursor: string | null): Promise<FormDataPage> => {
+    const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value) {
+        params.append(key, value);
+      }
+    });
+    if (cursor) {
+      params.append('cursor', cursor);
+    }
+    const response = await fetch(`/api/forms?${params.toString()}`);
+    if (!response.ok) {
+      throw new Error('获取数据失败');
+    }
+    if (!cursor) {
+      setChangeToken(response.headers.get('X-Change-Token'));
+    }
+    return response.json();
+  };
+
+  // 拉取令牌之后的变更并合并到列表：修改的替换，删除的移除，新增的按创建时间插入已加载的范围内
+  const syncChanges = async (token: string) => {
+    try {
+      let since = token;
+      let hasMore = true;
+      while (hasMore) {
+        const response = await fetch(`/api/forms/changes?since=${encodeURIComponent(since)}`);
+        if (!response.ok) {
+          throw new Error('同步数据失败');
+        }
+        const changes: FormDataChanges = await response.json();
+        setFormDataList((list) => mergeChanges(list, changes));
+        since = changes.nextToken;
+        hasMore = changes.hasMore;
+      }
+      setChangeToken(since);
+    } catch (err) {
+      console.error('同步表单数据出错:', err);
+      // 令牌不变，稍后重试
+      setChangeToken(null);
+      setTimeout(() => setChangeToken(token), SYNC_INTERVAL_MS);
+    }
+  };
+
+  const mergeChanges = (list: FormData[], changes: FormDataChanges): FormData[] => {
+    const deleted = new Set(changes.deletedIds);
+    const changed = new Map(changes.items.map((item) => [item.id, item]));
+    const merged = list
+      .filter((item) => !deleted.has(item.id))
+      .map((item) => {
+        const current = changed.get(item.id);
+        changed.delete(item.id);
+        return current ?? item;
+      });
+    if (filtered || changed.size === 0) {
+      return merged;
+    }
+    // 只插入不早于已加载最后一条的数据，更早的数据在翻页时加载
+    const last = merged[merged.length - 1];
+    changed.forEach((item) => {
+      if (!nextCursor || !last || item.createdAt >= last.createdAt) {
+        merged.push(item);
+      }
+    });
+    return merged.sort((a, b) => b.createdAt.localeCompare(a.createdAt) || b.id - a.id);
+  };
+
+  // 获取表单数据第一页
   const fetchFormData = async () => {
     try {
       setLoading(true);
-      const response = await fetch('/api/forms');
-      if (!response.ok) {
-        throw new Error('获取数据失败');
-      }
-      const data = await response.json();
-      setFormDataList(data);
+      const page = await fetchFormDataPage(null);
+      setFormDataList(page.items);
+      setFiltered(Object.values(filters).some((value) => value));
+      setNextCursor(page.nextCursor);
       setError(null);
     } catch (err) {
       console.error('获取表单数据出错:', err);
@@ -69,6 +184,36 @@ export default function Home() {
     }
   };
 
+  // 加载下一页
+  const loadMore = async () => {
+    if (!nextCursor) {
+      return;
+    }
+    try {
+      setLoadingMore(true);
+      const page = await fetchFormDataPage(nextCursor);
+      setFormDataList((list) => [...list, ...page.items]);
+      setNextCursor(page.nextCursor);
+    } catch (err) {
+      console.error('获取表单数据出错:', err);
+      alert('加载更多失败，请稍后再试');
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  // 处理筛选条件变化
+  const handleFilterChange = (e: React.ChangeEvent<HTMLInputElement>) => {
+    const { name, value } = e.target;
+    setFilters((current) => ({ ...current, [name]: value }));
+  };
+
+  // 按筛选条件重新查询
+  const handleSearch = (e: React.FormEvent) => {
+    e.preventDefault();
+    fetchFormData();
+  };
+
   // 处理文件选择
   const handleFileChange = (e: React.ChangeEvent<HTMLInputElement>) => {
     const selectedFile = e.target.files?.[0];
@@ -120,8 +265,12 @@ export default function Home() {
         e.target.reset();
       }
       
-      // 刷新数据列表
-      fetchFormData();
+      // 只同步新上传的数据，不重新加载整个列表
+      if (changeToken) {
+        syncChanges(changeToken);
+      } else {
+        fetchFormData();
+      }
     } catch (err) {
       console.error('上传出错:', err);
       alert('上传失败，请稍后再试');
@@ -135,9 +284,16 @@ export default function Home() {
     setSelectedOcrType(e.target.value);
   };
 
-  // 导出Excel
+  // 按当前筛选条件导出Excel
   const handleExport = () => {
-    window.location.href = '/api/forms/export';
+    const params = new URLSearchParams();
+    Object.entries(filters).forEach(([key, value]) => {
+      if (value) {
+        params.append(key, value);
+      }
+    });
+    const query = params.toString();
+    window.location.href = query ? `/api/forms/export?${query}` : '/api/forms/export';
   };
 
   return (
@@ -240,6 +396,54 @@ export default function Home() {
               导出Excel
             </button>
           </div>
+
+          {/* 筛选条件 */}
+          <form onSubmit={handleSearch} className="grid grid-cols-1 md:grid-cols-6 gap-3 mb-4">
+            <input
+              type="text"
+              name="projectName"
+              placeholder="工程名称"
+              value={filters.projectName}
+              onChange={handleFilterChange}
+              className="border border-gray-300 rounded-md px-3 py-2 text-sm"
+            />
+            <input
+              type="text"
+              name="constructionUnit"
+              placeholder="施工单位"
+              value={filters.constructionUnit}
+              onChange={handleFilterChange}
+              className="border border-gray-300 rounded-md px-3 py-2 text-sm"
+            />
+            <input
+              type="text"
+              name="strengthLevel"
+              placeholder="强度等级"
+              value={filters.strengthLevel}
+              onChange={handleFilterChange}
+              className="border border-gray-300 rounded-md px-3 py-2 text-sm"
+            />
+            <input
+              type="date"
+              name="createdFrom"
+              value={filters.createdFrom}
+              onChange={handleFilterChange}
+              className="border border-gray-300 rounded-md px-3 py-2 text-sm"
+            />
+            <input
+              type="date"
+              name="createdTo"
+              value={filters.createdTo}
+              onChange={handleFilterChange}
+              className="border border-gray-300 rounded-md px-3 py-2 text-sm"
+            />
+            <button
+              type="submit"
+              className="inline-flex justify-center items-center px-4 py-2 border border-transparent text-sm font-medium rounded-md shadow-sm text-white bg-indigo-600 hover:bg-indigo-700"
+            >
+              查询
+            </button>
+          </form>
           
           {loading ? (
             <div className="text-center py-8">
@@ -256,9 +460,11 @@ export default function Home() {
                 <thead className="bg-gray-50">
                   <tr>
                     <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">ID</th>
-                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">姓名</th>
-                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">身份证号</th>
-                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">联系电话</th>
+                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">图片</th>
+                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">工程名称</th>
+                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">施工单位</th>
+                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">强度等级</th>
+                    <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">创建时间</th>
                     <th scope="col" className="px-6 py-3 text-left text-xs font-medium text-gray-500 uppercase tracking-wider">操作</th>
                   </tr>
                 </thead>
@@ -266,9 +472,24 @@ export default function Home() {
                   {formDataList.map((formData) => (
                     <tr key={formData.id}>
                       <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">{formData.id}</td>
-                      <td className="px-6 py-4 whitespace-nowrap text-sm font-medium text-gray-900">{formData.name}</td>
-                      <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">{formData.idNumber}</td>
-                      <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">{formData.phoneNumber}</td>
+                      <td className="px-6 py-2 whitespace-nowrap">
+                        {formData.imageHash && (
+                          <a href={`/api/images/${formData.imageHash}`} target="_blank" rel="noopener noreferrer">
+                            <Image
+                              src={`/api/images/${formData.imageHash}?size=160`}
+                              alt="表单图片"
+                              width={48}
+                              height={64}
+                              unoptimized
+                              className="h-16 w-12 object-cover rounded border border-gray-200"
+                            />
+                          </a>
+                        )}
+                      </td>
+                      <td className="px-6 py-4 whitespace-nowrap text-sm font-medium text-gray-900">{formData.projectName}</td>
+                      <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">{formData.constructionUnit}</td>
+                      <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">{formData.strengthLevel}</td>
+                      <td className="px-6 py-4 whitespace-nowrap text-sm text-gray-500">{formData.createdAt?.replace('T', ' ').substring(0, 19)}</td>
                       <td className="px-6 py-4 whitespace-nowrap text-sm font-medium">
                         <Link href={`/detail/${formData.id}`} className="text-indigo-600 hover:text-indigo-900 mr-4">
                           查看详情
@@ -278,6 +499,17 @@ export default function Home() {
                   ))}
                 </tbody>
               </table>
+              {nextCursor && (
+                <div className="text-center mt-4">
+                  <button
+                    onClick={loadMore}
+                    disabled={loadingMore}
+                    className="inline-flex items-center px-4 py-2 border border-gray-300 text-sm font-medium rounded-md text-gray-700 bg-white hover:bg-gray-50 disabled:cursor-not-allowed"
+                  >
+                    {loadingMore ? '加载中...' : '加载更多'}
+                  </button>
+                </div>
+              )}
             </div>
           )}
         </div>